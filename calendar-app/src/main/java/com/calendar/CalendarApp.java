@@ -6,22 +6,47 @@ import com.calendar.cli.CalendarCliRunner;
 import com.calendar.service.CalendarService;
 import com.calendar.service.impl.CalendarServiceImpl;
 import com.calendar.storage.EventStorage;
+import com.calendar.storage.impl.CachingEventStorage;
+import com.calendar.storage.impl.ColumnarEventStorage;
+import com.calendar.storage.impl.EventBinaryStorage;
 import com.calendar.storage.impl.EventFileStorage;
+import com.calendar.storage.impl.EventLogStorage;
+import com.calendar.storage.impl.GroupCommitEventStorage;
+import com.calendar.storage.impl.JdbcEventStorage;
+import com.calendar.storage.impl.OffHeapEventStorage;
+import com.calendar.storage.impl.PartitionedEventStorage;
 import io.javalin.Javalin;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.time.Duration;
+
 public class CalendarApp {
 
     private static final String STORAGE_FILE_NAME = "events.json";
+    private static final String STORAGE_LOG_FILE_NAME = "events.log";
+    private static final String STORAGE_BINARY_FILE_NAME = "events.bin";
+    private static final String STORAGE_PARTITION_DIR_NAME = "events-partitions";
+    private static final String STORAGE_DATABASE_FILE_NAME = "events-db/events.mv.db";
+    private static final String STORAGE_DATABASE_URL = "jdbc:h2:./events-db/events";
+    private static final String PARAM_NAME_STORAGE = "STORAGE";
+    private static final String PARAM_NAME_GROUP_COMMIT_MAX_BATCH = "GROUP_COMMIT_MAX_BATCH";
+    private static final String PARAM_NAME_GROUP_COMMIT_LINGER_MS = "GROUP_COMMIT_LINGER_MS";
+    private static final String PARAM_NAME_FREE_BUSY_GRANULARITY_MINUTES = "FREE_BUSY_GRANULARITY_MINUTES";
+    private static final String PARAM_NAME_DAY_CACHE_SIZE = "DAY_CACHE_SIZE";
     private static final String PARAM_NAME_PORT = "PORT";
     private static final Integer DEFAULT_PORT = 8000;
     private static final Logger log = LoggerFactory.getLogger(CalendarApp.class);
 
     public static void main(String[] args) {
         log.info("Starting application...");
-        EventStorage storage = new EventFileStorage(STORAGE_FILE_NAME);
-        CalendarService calendarService = new CalendarServiceImpl(storage);
+        EventStorage storage = createStorage();
+        Duration freeBusyGranularity = Duration.ofMinutes(getIntParam(PARAM_NAME_FREE_BUSY_GRANULARITY_MINUTES,
+                (int) CalendarServiceImpl.DEFAULT_FREE_BUSY_GRANULARITY.toMinutes()));
+        int dayCacheSize = getIntParam(PARAM_NAME_DAY_CACHE_SIZE, CalendarServiceImpl.DEFAULT_DAY_CACHE_SIZE);
+        CalendarService calendarService = new CalendarServiceImpl(storage, freeBusyGranularity, dayCacheSize);
 
         if (args.length > 0 && "cli".equalsIgnoreCase(args[0])) {
             log.info("Running in CLI mode");
@@ -43,6 +68,72 @@ public class CalendarApp {
         }
     }
 
+    private static EventStorage createStorage() {
+        String type = System.getenv(PARAM_NAME_STORAGE);
+        if ("columnar".equalsIgnoreCase(type)) {
+            // Not group-committed: inserts are applied to the columns, the only in-memory copy, directly.
+            log.info("Using columnar in-memory storage [file={}]", STORAGE_FILE_NAME);
+            return new ColumnarEventStorage(new EventFileStorage(STORAGE_FILE_NAME));
+        }
+        if ("offheap".equalsIgnoreCase(type)) {
+            // Not group-committed: inserts go straight to the records and are appended to the mapped file,
+            // which keeps nothing on the heap beyond its recent appends.
+            log.info("Using off-heap storage [file={}]", STORAGE_BINARY_FILE_NAME);
+            return new OffHeapEventStorage(createBinaryStorage());
+        }
+        if ("jdbc".equalsIgnoreCase(type)) {
+            // Each insert is its own small transaction, so there is nothing to group-commit.
+            log.info("Using embedded database storage [url={}]", STORAGE_DATABASE_URL);
+            boolean created = !Files.exists(Paths.get(STORAGE_DATABASE_FILE_NAME));
+            JdbcEventStorage jdbc = new JdbcEventStorage(STORAGE_DATABASE_URL);
+            if (created && Files.exists(Paths.get(STORAGE_FILE_NAME))) {
+                jdbc.saveEvents(new EventFileStorage(STORAGE_FILE_NAME).loadEvents());
+            }
+            return jdbc;
+        }
+        // Group commit batches the inserts and hands them to the storage's own insertEvents.
+        int maxBatch = getIntParam(PARAM_NAME_GROUP_COMMIT_MAX_BATCH, GroupCommitEventStorage.DEFAULT_MAX_BATCH_SIZE);
+        long lingerMillis = getIntParam(PARAM_NAME_GROUP_COMMIT_LINGER_MS, (int) GroupCommitEventStorage.DEFAULT_LINGER_MILLIS);
+        log.info("Group commit enabled [maxBatch={} lingerMs={}]", maxBatch, lingerMillis);
+        return new GroupCommitEventStorage(createBaseStorage(), maxBatch, lingerMillis);
+    }
+
+    private static EventStorage createBaseStorage() {
+        String type = System.getenv(PARAM_NAME_STORAGE);
+        if ("log".equalsIgnoreCase(type)) {
+            log.info("Using append-only log storage [file={}]", STORAGE_LOG_FILE_NAME);
+            return new EventLogStorage(STORAGE_LOG_FILE_NAME);
+        }
+        if ("binary".equalsIgnoreCase(type)) {
+            // Group-committed batches are appended to the file with one write each.
+            log.info("Using binary storage [file={}]", STORAGE_BINARY_FILE_NAME);
+            return createBinaryStorage();
+        }
+        if ("partitioned".equalsIgnoreCase(type)) {
+            log.info("Using partitioned storage [dir={}]", STORAGE_PARTITION_DIR_NAME);
+            PartitionedEventStorage partitioned = new PartitionedEventStorage(STORAGE_PARTITION_DIR_NAME);
+            if (!Files.exists(Paths.get(STORAGE_PARTITION_DIR_NAME)) && Files.exists(Paths.get(STORAGE_FILE_NAME))) {
+                partitioned.saveEvents(new EventFileStorage(STORAGE_FILE_NAME).loadEvents());
+            }
+            return partitioned;
+        }
+        log.info("Using JSON file storage [file={}]", STORAGE_FILE_NAME);
+        return new CachingEventStorage(new EventFileStorage(STORAGE_FILE_NAME), STORAGE_FILE_NAME);
+    }
+
+    private static EventBinaryStorage createBinaryStorage() {
+        EventBinaryStorage binary = new EventBinaryStorage(STORAGE_BINARY_FILE_NAME);
+        if (!Files.exists(Paths.get(STORAGE_BINARY_FILE_NAME)) && Files.exists(Paths.get(STORAGE_FILE_NAME))) {
+            binary.importJson(STORAGE_FILE_NAME);
+        }
+        return binary;
+    }
+
+    private static int getIntParam(String name, int defaultValue) {
+        String value = System.getenv(name);
+        return value != null ? Integer.parseInt(value) : defaultValue;
+    }
+
     private static int getPort() {
         String port = System.getenv(PARAM_NAME_PORT);
         return port != null ? Integer.parseInt(port) : DEFAULT_PORT;
@@ -0,0 +1,84 @@
+package com.calendar.api;
+
+import com.calendar.model.EventView;
+import com.calendar.util.JsonUtil;
+import com.fasterxml.jackson.core.JsonGenerator;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.function.Consumer;
+
+/**
+ * Writes events as a JSON array straight to a response stream, one at a time, in the same
+ * shape {@code ctx.json(List<Event>)} produces.
+ *
+ * <p>The stream is only opened when the first event arrives or the array is finished, so an
+ * error raised before that (e.g. an invalid parameter) can still be answered with a normal
+ * error response. Events are serialized from their getters, so flyweight views can be
+ * written without copying them.</p>
+ */
+public class EventArrayWriter implements Consumer<EventView> {
+
+    /**
+     * Opens the stream the array is written to.
+     */
+    public interface OutputOpener {
+        OutputStream open() throws IOException;
+    }
+
+    private final OutputOpener opener;
+    private JsonGenerator generator;
+
+    public EventArrayWriter(OutputOpener opener) {
+        this.opener = opener;
+    }
+
+    /**
+     * Runs {@code source} with a new writer as its consumer and finishes the array.
+     *
+     * @throws IOException if writing to the stream fails
+     */
+    public static void write(OutputOpener opener, Consumer<Consumer<? super EventView>> source) throws IOException {
+        EventArrayWriter writer = new EventArrayWriter(opener);
+        try {
+            source.accept(writer);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        writer.finish();
+    }
+
+    /**
+     * @throws UncheckedIOException if writing to the stream fails
+     */
+    @Override
+    public void accept(EventView event) {
+        try {
+            start();
+            generator.writeStartObject();
+            generator.writeStringField("title", event.getTitle());
+            generator.writeNumberField("startEpochMillis", event.getStartEpochMillis());
+            generator.writeNumberField("endEpochMillis", event.getEndEpochMillis());
+            generator.writeEndObject();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Closes the array, writing an empty one if no event was passed, and flushes the stream.
+     */
+    public void finish() throws IOException {
+        start();
+        generator.writeEndArray();
+        generator.close();
+    }
+
+    private void start() throws IOException {
+        if (generator == null) {
+            generator = JsonUtil.createGenerator(opener.open());
+            generator.writeStartArray();
+        }
+    }
+}
@@ -0,0 +1,398 @@
+package com.calendar.api;
+
+import com.calendar.dto.EventChange;
+import com.calendar.dto.EventChanges;
+import com.calendar.exception.ValidationException;
+import com.calendar.model.Event;
+import com.calendar.service.CalendarService;
+import com.calendar.util.DateTimeUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Pushes added events to live subscribers, each of which only receives the events
+ * overlapping one day in its time zone.
+ *
+ * <p>The broadcaster follows the service's change feed on its own thread, so adding an event
+ * never waits for subscribers. Every subscriber has a bounded queue, drained by a small pool of
+ * sender threads; a subscriber whose queue overflows is too slow to keep up and is
+ * disconnected, so that it cannot hold back the others or use unbounded memory. So is a
+ * subscriber whose write has not returned within the send timeout: its sender thread is
+ * interrupted, which aborts the blocked socket write, so stalled clients cannot take over the
+ * sender pool and get the others disconnected as laggards. Disconnected
+ * clients catch up through the change feed, using the id of the last event they received as
+ * the cursor.</p>
+ *
+ * <p>Subscribers also get a heartbeat every {@link #HEARTBEAT_MILLIS}, which keeps idle
+ * connections open and detects clients that went away.</p>
+ */
+public class EventBroadcaster implements Closeable {
+
+    private static final Logger log = LoggerFactory.getLogger(EventBroadcaster.class);
+
+    public static final int DEFAULT_QUEUE_CAPACITY = 256;
+    public static final int DEFAULT_SENDER_THREADS = 4;
+    public static final long DEFAULT_SEND_TIMEOUT_MILLIS = 5_000L;
+
+    /** Well below the HTTP server's idle timeout of 30 seconds. */
+    static final long HEARTBEAT_MILLIS = 15_000L;
+
+    private static final int PAGE_SIZE = 500;
+    private static final long FOLLOW_WAIT_MILLIS = 10_000L;
+    private static final long RETRY_DELAY_MILLIS = 1_000L;
+    /** Most messages a sender writes to one subscriber before giving the others a turn. */
+    private static final int MAX_MESSAGES_PER_TURN = 64;
+
+    /**
+     * Receives the messages of one subscription, one at a time. Sending may block, but must
+     * give up when the sending thread is interrupted.
+     */
+    public interface Subscriber {
+
+        /**
+         * @param name the event name, {@code "added"} or {@code "reset"}
+         * @param data the event or, for a reset, the cursor to continue from
+         * @param id   the change feed cursor right after this message
+         */
+        void send(String name, Object data, String id);
+
+        void heartbeat();
+
+        /**
+         * Ends the subscription from the server's side.
+         */
+        void close();
+    }
+
+    /**
+     * Handle of a subscription.
+     */
+    public final class Subscription {
+        private final Connection connection;
+
+        private Subscription(Connection connection) {
+            this.connection = connection;
+        }
+
+        /**
+         * Stops sending to the subscriber, e.g. because the client went away.
+         */
+        public void cancel() {
+            remove(connection);
+        }
+    }
+
+    private final CalendarService calendarService;
+    private final int queueCapacity;
+    private final long sendTimeoutNanos;
+    private final Set<Connection> connections = ConcurrentHashMap.newKeySet();
+    private final ExecutorService senders;
+    private final ScheduledExecutorService dispatcher;
+
+    private final AtomicLong delivered = new AtomicLong();
+    private final AtomicLong disconnected = new AtomicLong();
+    private volatile boolean closed;
+
+    public EventBroadcaster(CalendarService calendarService) {
+        this(calendarService, DEFAULT_QUEUE_CAPACITY, DEFAULT_SENDER_THREADS);
+    }
+
+    public EventBroadcaster(CalendarService calendarService, int queueCapacity, int senderThreads) {
+        this(calendarService, queueCapacity, senderThreads, DEFAULT_SEND_TIMEOUT_MILLIS);
+    }
+
+    public EventBroadcaster(CalendarService calendarService, int queueCapacity, int senderThreads,
+            long sendTimeoutMillis) {
+        if (queueCapacity <= 0) {
+            throw new IllegalArgumentException("Queue capacity must be positive.");
+        }
+        if (senderThreads <= 0) {
+            throw new IllegalArgumentException("Sender thread count must be positive.");
+        }
+        if (sendTimeoutMillis <= 0) {
+            throw new IllegalArgumentException("Send timeout must be positive.");
+        }
+        this.calendarService = calendarService;
+        this.queueCapacity = queueCapacity;
+        this.sendTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(sendTimeoutMillis);
+        this.senders = Executors.newFixedThreadPool(senderThreads, daemonThreads("event-stream-sender"));
+        this.dispatcher = Executors.newSingleThreadScheduledExecutor(daemonThreads("event-stream-dispatcher"));
+    }
+
+    /**
+     * Starts following the change feed from its current position, sending heartbeats and
+     * watching for stalled writes.
+     */
+    public void start() {
+        String cursor = calendarService.getChanges(null, 1).getCursor();
+        dispatcher.execute(() -> follow(cursor));
+        dispatcher.scheduleWithFixedDelay(this::heartbeat, HEARTBEAT_MILLIS, HEARTBEAT_MILLIS, TimeUnit.MILLISECONDS);
+        long checkNanos = Math.max(1L, sendTimeoutNanos / 4);
+        dispatcher.scheduleWithFixedDelay(this::abortStalledSends, checkNanos, checkNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Subscribes to the events added from now on that overlap {@code date} in the given zone.
+     *
+     * @param zoneName the time zone ID
+     * @param date     the date in format yyyy-MM-dd, or {@code null} to follow the current day
+     * @throws ValidationException if the date or timezone is invalid
+     */
+    public Subscription subscribe(String zoneName, String date, Subscriber subscriber) throws ValidationException {
+        ZoneId zone = DateTimeUtil.getZone(zoneName);
+        LocalDate day = date != null ? DateTimeUtil.toLocalDate(date) : null;
+        Connection connection = new Connection(subscriber, zone, day);
+        connections.add(connection);
+        if (closed) {
+            remove(connection);
+        }
+        return new Subscription(connection);
+    }
+
+    /**
+     * Returns the number of subscribers, the messages delivered to them and the subscribers
+     * disconnected for falling behind or stalling.
+     */
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("subscribers", connections.size());
+        stats.put("delivered", delivered.get());
+        stats.put("disconnected", disconnected.get());
+        return stats;
+    }
+
+    /**
+     * Stops following the change feed and closes all subscriptions.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        dispatcher.shutdownNow();
+        for (Connection connection : connections) {
+            remove(connection);
+            connection.subscriber.close();
+        }
+        senders.shutdownNow();
+    }
+
+    private void follow(String cursor) {
+        if (closed) {
+            return;
+        }
+        CompletableFuture<EventChanges> next;
+        try {
+            next = calendarService.awaitChanges(cursor, PAGE_SIZE, FOLLOW_WAIT_MILLIS);
+        } catch (RuntimeException e) {
+            log.error("Failed to read change feed [cursor={}]", cursor, e);
+            dispatcher.schedule(() -> follow(cursor), RETRY_DELAY_MILLIS, TimeUnit.MILLISECONDS);
+            return;
+        }
+        next.whenCompleteAsync((changes, error) -> {
+            if (error != null) {
+                log.error("Failed to read change feed [cursor={}]", cursor, error);
+                dispatcher.schedule(() -> follow(cursor), RETRY_DELAY_MILLIS, TimeUnit.MILLISECONDS);
+                return;
+            }
+            dispatch(changes);
+            follow(changes.getCursor());
+        }, dispatcher);
+    }
+
+    private void dispatch(EventChanges changes) {
+        if (connections.isEmpty()) {
+            return;
+        }
+        if (changes.isReset()) {
+            // Changes were missed; subscribers have to reload rather than trust the stream.
+            Message reset = new Message("reset", changes.getCursor(), changes.getCursor());
+            for (Connection connection : connections) {
+                connection.offer(reset);
+            }
+            return;
+        }
+        for (Connection connection : connections) {
+            long[] window = connection.window();
+            for (EventChange change : changes.getChanges()) {
+                Event event = change.getEvent();
+                if (event.getStartEpochMillis() < window[1] && event.getEndEpochMillis() > window[0]) {
+                    connection.offer(new Message("added", event, change.getCursor()));
+                }
+            }
+        }
+    }
+
+    private void heartbeat() {
+        for (Connection connection : connections) {
+            connection.offer(Message.HEARTBEAT);
+        }
+    }
+
+    private void abortStalledSends() {
+        long now = System.nanoTime();
+        for (Connection connection : connections) {
+            if (connection.abortIfStalled(now)) {
+                log.warn("Disconnecting event stream subscriber whose write stalled");
+                disconnected.incrementAndGet();
+                remove(connection);
+                connection.subscriber.close();
+            }
+        }
+    }
+
+    private void remove(Connection connection) {
+        if (connections.remove(connection)) {
+            connection.closed = true;
+            connection.queue.clear();
+        }
+    }
+
+    private static ThreadFactory daemonThreads(String name) {
+        AtomicInteger count = new AtomicInteger();
+        return r -> {
+            Thread thread = new Thread(r, name + "-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    private static final class Message {
+        static final Message HEARTBEAT = new Message(null, null, null);
+
+        final String name;
+        final Object data;
+        final String id;
+
+        Message(String name, Object data, String id) {
+            this.name = name;
+            this.data = data;
+            this.id = id;
+        }
+    }
+
+    /**
+     * One subscriber with its queue. At most one sender drains the queue at a time.
+     */
+    private final class Connection implements Runnable {
+        final Subscriber subscriber;
+        final ZoneId zone;
+        final LocalDate day;
+        final BlockingQueue<Message> queue = new ArrayBlockingQueue<>(queueCapacity);
+        final AtomicBoolean scheduled = new AtomicBoolean();
+        volatile boolean closed;
+
+        /** The sender thread while it is writing to the subscriber, guarded by this connection. */
+        private Thread sender;
+        private long sendStartNanos;
+
+        Connection(Subscriber subscriber, ZoneId zone, LocalDate day) {
+            this.subscriber = subscriber;
+            this.zone = zone;
+            this.day = day;
+        }
+
+        /**
+         * @return the start and end of the subscribed day in epoch millis
+         */
+        long[] window() {
+            LocalDate current = day != null ? day : LocalDate.now(zone);
+            return new long[] {
+                    current.atStartOfDay(zone).toInstant().toEpochMilli(),
+                    current.plusDays(1).atStartOfDay(zone).toInstant().toEpochMilli()
+            };
+        }
+
+        void offer(Message message) {
+            if (closed) {
+                return;
+            }
+            if (!queue.offer(message)) {
+                log.warn("Disconnecting event stream subscriber that fell behind [queued={}]", queue.size());
+                disconnected.incrementAndGet();
+                remove(this);
+                subscriber.close();
+                return;
+            }
+            schedule();
+        }
+
+        private void schedule() {
+            if (scheduled.compareAndSet(false, true)) {
+                try {
+                    senders.execute(this);
+                } catch (RuntimeException e) {
+                    // Shutting down.
+                    scheduled.set(false);
+                }
+            }
+        }
+
+        /**
+         * Closes this connection and interrupts the sender if it has been writing to the
+         * subscriber for longer than the send timeout.
+         *
+         * @return whether it was interrupted
+         */
+        synchronized boolean abortIfStalled(long nowNanos) {
+            if (sender == null || nowNanos - sendStartNanos < sendTimeoutNanos) {
+                return false;
+            }
+            // Closed first, so the interrupted sender does not go on to the next message.
+            closed = true;
+            sender.interrupt();
+            return true;
+        }
+
+        @Override
+        public void run() {
+            int sent = 0;
+            Message message;
+            while (!closed && sent < MAX_MESSAGES_PER_TURN && (message = queue.poll()) != null) {
+                synchronized (this) {
+                    sender = Thread.currentThread();
+                    sendStartNanos = System.nanoTime();
+                }
+                try {
+                    if (message == Message.HEARTBEAT) {
+                        subscriber.heartbeat();
+                    } else {
+                        subscriber.send(message.name, message.data, message.id);
+                        delivered.incrementAndGet();
+                    }
+                } catch (RuntimeException e) {
+                    log.debug("Event stream subscriber failed; removing it", e);
+                    remove(this);
+                } finally {
+                    synchronized (this) {
+                        sender = null;
+                        // An abort that arrived as the write finished must not hit the next one.
+                        Thread.interrupted();
+                    }
+                }
+                sent++;
+            }
+            scheduled.set(false);
+            if (!closed && !queue.isEmpty()) {
+                schedule();
+            }
+        }
+    }
+}
@@ -1,18 +1,35 @@
 package com.calendar.api;
 
+import com.calendar.dto.EventBatchResult;
 import com.calendar.dto.EventRequest;
+import com.calendar.exception.ValidationException;
 import com.calendar.model.Event;
+import com.calendar.model.EventView;
 import com.calendar.service.CalendarService;
 import com.calendar.util.EventFactory;
 import com.calendar.util.SeedDataGenerator;
 import io.javalin.Javalin;
 import io.javalin.http.Context;
 import io.javalin.http.Handler;
+import io.javalin.http.sse.SseClient;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
 
 public class EventController {
 
+    private static final int DEFAULT_SLOT_LIMIT = 5;
+    private static final int DEFAULT_CHANGE_LIMIT = 500;
+
     public EventController(Javalin app, CalendarService calendarService) {
 
+        EventBroadcaster broadcaster = new EventBroadcaster(calendarService);
+        broadcaster.start();
+
         app.get("/health", new Handler() {
             @Override
             public void handle(Context ctx) {
@@ -22,26 +39,35 @@ public class EventController {
 
         app.get("/events/today", new Handler() {
             @Override
-            public void handle(Context ctx) {
+            public void handle(Context ctx) throws IOException {
                 String zone = ctx.queryParam("zone");
-                ctx.json(calendarService.listEventsForToday(zone));
+                if (notModified(ctx, calendarService.getDayListTag(null, zone, false))) {
+                    return;
+                }
+                streamEvents(ctx, action -> calendarService.forEachEventForToday(zone, action));
             }
         });
 
         app.get("/events/remaining", new Handler() {
             @Override
-            public void handle(Context ctx) {
+            public void handle(Context ctx) throws IOException {
                 String zone = ctx.queryParam("zone");
-                ctx.json(calendarService.listRemainingEventsForToday(zone));
+                if (notModified(ctx, calendarService.getDayListTag(null, zone, true))) {
+                    return;
+                }
+                streamEvents(ctx, action -> calendarService.forEachRemainingEventForToday(zone, action));
             }
         });
 
         app.get("/events/day", new Handler() {
             @Override
-            public void handle(Context ctx) {
+            public void handle(Context ctx) throws IOException {
                 String date = ctx.queryParam("date");
                 String zone = ctx.queryParam("zone");
-                ctx.json(calendarService.listEventsForDay(date, zone));
+                if (notModified(ctx, calendarService.getDayListTag(date, zone, false))) {
+                    return;
+                }
+                streamEvents(ctx, action -> calendarService.forEachEventForDay(date, zone, action));
             }
         });
 
@@ -55,12 +81,95 @@ public class EventController {
             }
         });
 
+        app.get("/events/slots", new Handler() {
+            @Override
+            public void handle(Context ctx) {
+                int minutes = Integer.parseInt(ctx.queryParam("minutes"));
+                String from = ctx.queryParam("from");
+                String to = ctx.queryParam("to");
+                String limit = ctx.queryParam("limit");
+                String zone = ctx.queryParam("zone");
+                ctx.json(calendarService.findAvailableSlots(minutes, from, to,
+                        limit != null ? Integer.parseInt(limit) : DEFAULT_SLOT_LIMIT, zone));
+            }
+        });
+
+        // Long-polls for up to "wait" seconds when there is nothing new after the cursor.
+        app.get("/events/changes", new Handler() {
+            @Override
+            public void handle(Context ctx) {
+                String since = ctx.queryParam("since");
+                String limit = ctx.queryParam("limit");
+                String wait = ctx.queryParam("wait");
+                int max = limit != null ? Integer.parseInt(limit) : DEFAULT_CHANGE_LIMIT;
+                if (wait == null) {
+                    ctx.json(calendarService.getChanges(since, max));
+                } else {
+                    ctx.future(calendarService.awaitChanges(since, max, TimeUnit.SECONDS.toMillis(Long.parseLong(wait))));
+                }
+            }
+        });
+
+        // Server-Sent Events: "added" for each new event overlapping the day, "reset" if some were missed.
+        app.sse("/events/stream", client -> {
+            EventBroadcaster.Subscription subscription;
+            try {
+                subscription = broadcaster.subscribe(client.ctx.queryParam("zone"), client.ctx.queryParam("date"),
+                        new SseSubscriber(client));
+            } catch (ValidationException e) {
+                client.sendEvent("error", Collections.singletonMap("error", e.getMessage()));
+                client.close();
+                return;
+            }
+            client.onClose(subscription::cancel);
+        });
+
         app.post("/events", ctx -> {
             EventRequest req = ctx.bodyAsClass(EventRequest.class);
             Event event = EventFactory.fromRequest(req);
             ctx.json(calendarService.addEvent(event));
         });
 
+        app.post("/events/batch", ctx -> {
+            EventRequest[] requests = ctx.bodyAsClass(EventRequest[].class);
+            List<EventBatchResult> results = new ArrayList<>(Collections.nCopies(requests.length, null));
+            List<Event> events = new ArrayList<>(requests.length);
+            List<Integer> positions = new ArrayList<>(requests.length);
+            for (int i = 0; i < requests.length; i++) {
+                try {
+                    events.add(EventFactory.fromRequest(requests[i]));
+                    positions.add(i);
+                } catch (ValidationException e) {
+                    results.set(i, EventBatchResult.invalid(e.getMessage()));
+                }
+            }
+            List<EventBatchResult> added = calendarService.addEvents(events);
+            for (int i = 0; i < added.size(); i++) {
+                results.set(positions.get(i), added.get(i));
+            }
+            ctx.json(results);
+        });
+
+        // Newline-delimited JSON in and out; results are streamed back while the upload is read.
+        app.post("/events/import", ctx -> {
+            ctx.contentType("application/x-ndjson");
+            new EventImporter(calendarService).importNdjson(ctx.bodyAsInputStream(), ctx.res.getOutputStream());
+        });
+
+        app.get("/stats/day-cache", new Handler() {
+            @Override
+            public void handle(Context ctx) {
+                ctx.json(calendarService.getDayCacheStats());
+            }
+        });
+
+        app.get("/stats/event-stream", new Handler() {
+            @Override
+            public void handle(Context ctx) {
+                ctx.json(broadcaster.stats());
+            }
+        });
+
         app.get("/generate-seed-data", new Handler() {
             @Override
             public void handle(Context ctx) {
@@ -72,7 +181,8 @@ public class EventController {
         app.before(ctx -> {
             ctx.header("Access-Control-Allow-Origin", "*");
             ctx.header("Access-Control-Allow-Methods", "GET, POST, PUT, DELETE, OPTIONS");
-            ctx.header("Access-Control-Allow-Headers", "Content-Type");
+            ctx.header("Access-Control-Allow-Headers", "Content-Type, If-None-Match");
+            ctx.header("Access-Control-Expose-Headers", "ETag");
         });
 
         app.options("/*", ctx -> {
@@ -81,4 +191,73 @@ public class EventController {
 
     }
 
+    /**
+     * Writes the messages of a broadcaster subscription to a Server-Sent Events client.
+     */
+    private static final class SseSubscriber implements EventBroadcaster.Subscriber {
+        private final SseClient client;
+
+        SseSubscriber(SseClient client) {
+            this.client = client;
+        }
+
+        @Override
+        public void send(String name, Object data, String id) {
+            client.sendEvent(name, data, id);
+        }
+
+        @Override
+        public void heartbeat() {
+            client.sendComment("heartbeat");
+        }
+
+        @Override
+        public void close() {
+            client.close();
+        }
+    }
+
+    /**
+     * Sends {@code tag} as the response's ETag and answers 304 Not Modified if the request's
+     * If-None-Match already names it. Clients are asked to revalidate on every use, since the
+     * events can change at any time.
+     *
+     * @param tag the tag of the current result, or {@code null} if it cannot be tagged
+     * @return true if the response is complete and the result must not be written
+     */
+    private static boolean notModified(Context ctx, String tag) {
+        if (tag == null) {
+            return false;
+        }
+        String etag = "\"" + tag + "\"";
+        ctx.header("ETag", etag);
+        ctx.header("Cache-Control", "no-cache");
+        String ifNoneMatch = ctx.header("If-None-Match");
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            candidate = candidate.trim();
+            // Weak comparison, as RFC 7232 requires for If-None-Match.
+            if (candidate.startsWith("W/")) {
+                candidate = candidate.substring(2);
+            }
+            if (candidate.equals(etag) || candidate.equals("*")) {
+                ctx.status(304);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Writes the events {@code source} passes on as a JSON array directly to the response,
+     * instead of collecting them into a list and serializing that into one buffer first.
+     */
+    private static void streamEvents(Context ctx, Consumer<Consumer<? super EventView>> source) throws IOException {
+        EventArrayWriter.write(() -> {
+            ctx.contentType("application/json");
+            return ctx.res.getOutputStream();
+        }, source);
+    }
 }
@@ -0,0 +1,168 @@
+package com.calendar.api;
+
+import com.calendar.dto.EventBatchResult;
+import com.calendar.dto.EventImportResult;
+import com.calendar.dto.EventRequest;
+import com.calendar.exception.EventConflictException;
+import com.calendar.exception.EventStorageException;
+import com.calendar.exception.JsonProcessingException;
+import com.calendar.exception.ValidationException;
+import com.calendar.model.Event;
+import com.calendar.service.CalendarService;
+import com.calendar.util.EventFactory;
+import com.calendar.util.JsonUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Imports events from newline-delimited JSON, one {@link EventRequest} per line.
+ *
+ * <p>Lines are parsed and validated as they are read and collected into chunks of at most
+ * {@code chunkSize} lines, whose events are added with one
+ * {@link CalendarService#addEvents(List)} call each. The result of every line is written back
+ * as one JSON line as soon as its chunk is done, and the next chunk is only read after that,
+ * so a slow storage or a slow client holds back the upload instead of piling it up in memory.
+ * Memory use depends on the chunk size, not on the size of the upload.</p>
+ */
+public class EventImporter {
+
+    private static final Logger log = LoggerFactory.getLogger(EventImporter.class);
+
+    public static final int DEFAULT_CHUNK_SIZE = 500;
+
+    private final CalendarService calendarService;
+    private final int chunkSize;
+
+    public EventImporter(CalendarService calendarService) {
+        this(calendarService, DEFAULT_CHUNK_SIZE);
+    }
+
+    public EventImporter(CalendarService calendarService, int chunkSize) {
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException("Chunk size must be positive.");
+        }
+        this.calendarService = calendarService;
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * Reads events from {@code in} until it ends and writes one {@link EventImportResult} line
+     * per non-blank input line to {@code out}, in input order. If saving a chunk fails, an
+     * error line is written and the import stops; the chunks before it stay imported.
+     *
+     * @return the number of lines with each status
+     * @throws IOException if reading the input or writing the results fails
+     */
+    public Map<EventBatchResult.Status, Integer> importNdjson(InputStream in, OutputStream out) throws IOException {
+        Map<EventBatchResult.Status, Integer> counts = new EnumMap<>(EventBatchResult.Status.class);
+        for (EventBatchResult.Status status : EventBatchResult.Status.values()) {
+            counts.put(status, 0);
+        }
+
+        BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+        Chunk chunk = new Chunk();
+        long lineNumber = 0;
+        String line;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            if (line.trim().isEmpty()) {
+                continue;
+            }
+            chunk.add(lineNumber, line);
+            if (chunk.size() == chunkSize && !flush(chunk, out, counts)) {
+                return counts;
+            }
+        }
+        if (chunk.size() > 0) {
+            flush(chunk, out, counts);
+        }
+        out.flush();
+        log.info("Finished event import [lines={} results={}]", lineNumber, counts);
+        return counts;
+    }
+
+    /**
+     * Adds the chunk's valid events, writes the results of all its lines and clears it.
+     *
+     * @return false if the chunk could not be saved and the import must stop
+     */
+    private boolean flush(Chunk chunk, OutputStream out, Map<EventBatchResult.Status, Integer> counts)
+            throws IOException {
+        if (!chunk.events.isEmpty()) {
+            List<EventBatchResult> added;
+            try {
+                added = calendarService.addEvents(chunk.events);
+            } catch (EventConflictException e) {
+                // The storage rejected the whole chunk; report it on each of its events.
+                added = new ArrayList<>(chunk.events.size());
+                for (Event event : chunk.events) {
+                    added.add(EventBatchResult.conflict(event, e.getMessage()));
+                }
+            } catch (EventStorageException e) {
+                log.error("Event import stopped at line {}", chunk.lines.get(0), e);
+                JsonUtil.writeLine(out, Collections.singletonMap("error", "Error saving or loading data"));
+                out.flush();
+                return false;
+            }
+            for (int i = 0; i < added.size(); i++) {
+                chunk.results.set(chunk.eventPositions.get(i), added.get(i));
+            }
+        }
+        for (int i = 0; i < chunk.size(); i++) {
+            EventBatchResult result = chunk.results.get(i);
+            counts.merge(result.getStatus(), 1, Integer::sum);
+            JsonUtil.writeLine(out, new EventImportResult(chunk.lines.get(i), result));
+        }
+        out.flush();
+        chunk.clear();
+        return true;
+    }
+
+    /**
+     * Lines read since the last flush: invalid lines already have their result, valid ones
+     * wait for it in {@code results} at the position recorded in {@code eventPositions}.
+     */
+    private static final class Chunk {
+        final List<Long> lines = new ArrayList<>();
+        final List<EventBatchResult> results = new ArrayList<>();
+        final List<Event> events = new ArrayList<>();
+        final List<Integer> eventPositions = new ArrayList<>();
+
+        void add(long lineNumber, String line) {
+            lines.add(lineNumber);
+            try {
+                Event event = EventFactory.fromRequest(JsonUtil.fromJson(line, EventRequest.class));
+                eventPositions.add(results.size());
+                events.add(event);
+                results.add(null);
+            } catch (JsonProcessingException e) {
+                results.add(EventBatchResult.invalid("Invalid input format"));
+            } catch (ValidationException e) {
+                results.add(EventBatchResult.invalid(e.getMessage()));
+            }
+        }
+
+        int size() {
+            return lines.size();
+        }
+
+        void clear() {
+            lines.clear();
+            results.clear();
+            events.clear();
+            eventPositions.clear();
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package com.calendar.dto;
+
+import com.calendar.model.Event;
+
+/**
+ * Outcome of one event in a batch insert. Results are returned in the same order as the
+ * submitted events.
+ */
+public class EventBatchResult {
+
+    public enum Status {
+        ADDED,
+        CONFLICT,
+        INVALID
+    }
+
+    private Status status;
+    private Event event;
+    private String message;
+
+    public EventBatchResult() {
+
+    }
+
+    public EventBatchResult(Status status, Event event, String message) {
+        this.status = status;
+        this.event = event;
+        this.message = message;
+    }
+
+    public static EventBatchResult added(Event event) {
+        return new EventBatchResult(Status.ADDED, event, null);
+    }
+
+    public static EventBatchResult conflict(Event event, String message) {
+        return new EventBatchResult(Status.CONFLICT, event, message);
+    }
+
+    public static EventBatchResult invalid(String message) {
+        return new EventBatchResult(Status.INVALID, null, message);
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public void setStatus(Status status) {
+        this.status = status;
+    }
+
+    public Event getEvent() {
+        return event;
+    }
+
+    public void setEvent(Event event) {
+        this.event = event;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    public void setMessage(String message) {
+        this.message = message;
+    }
+
+    @Override
+    public String toString() {
+        return "EventBatchResult{status=" + status + ", event=" + event + ", message='" + message + "'}";
+    }
+}
@@ -0,0 +1,70 @@
+package com.calendar.dto;
+
+import com.calendar.model.Event;
+
+/**
+ * One entry of the change feed: what happened to which event.
+ */
+public class EventChange {
+
+    public enum Type {
+        ADDED
+    }
+
+    private Type type;
+    private Event event;
+    /** Feed cursor right after this change; set once the change is in the feed. */
+    private String cursor;
+
+    public EventChange() {
+
+    }
+
+    public EventChange(Type type, Event event) {
+        this.type = type;
+        this.event = event;
+    }
+
+    public EventChange(Type type, Event event, String cursor) {
+        this.type = type;
+        this.event = event;
+        this.cursor = cursor;
+    }
+
+    public static EventChange added(Event event) {
+        return new EventChange(Type.ADDED, event);
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public void setType(Type type) {
+        this.type = type;
+    }
+
+    public Event getEvent() {
+        return event;
+    }
+
+    public void setEvent(Event event) {
+        this.event = event;
+    }
+
+    /**
+     * @return the cursor to resume the feed from after this change, so that a client that
+     *         stops in the middle of a page does not miss the rest of it
+     */
+    public String getCursor() {
+        return cursor;
+    }
+
+    public void setCursor(String cursor) {
+        this.cursor = cursor;
+    }
+
+    @Override
+    public String toString() {
+        return "EventChange{type=" + type + ", event=" + event + ", cursor='" + cursor + "'}";
+    }
+}
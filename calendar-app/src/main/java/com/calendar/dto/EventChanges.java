@@ -0,0 +1,70 @@
+package com.calendar.dto;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A page of the change feed: the changes after the requested cursor, oldest first, and the
+ * cursor to continue from.
+ *
+ * <p>{@code reset} means the requested cursor is unknown, e.g. because the server restarted or
+ * the changes after it are no longer kept: the client has to reload the events it shows and
+ * continue from the returned cursor. {@code more} means further changes are waiting and can
+ * be fetched right away.</p>
+ */
+public class EventChanges {
+
+    private String cursor;
+    private boolean reset;
+    private boolean more;
+    private List<EventChange> changes = new ArrayList<>();
+
+    public EventChanges() {
+
+    }
+
+    public EventChanges(String cursor, boolean reset, boolean more, List<EventChange> changes) {
+        this.cursor = cursor;
+        this.reset = reset;
+        this.more = more;
+        this.changes = changes;
+    }
+
+    public String getCursor() {
+        return cursor;
+    }
+
+    public void setCursor(String cursor) {
+        this.cursor = cursor;
+    }
+
+    public boolean isReset() {
+        return reset;
+    }
+
+    public void setReset(boolean reset) {
+        this.reset = reset;
+    }
+
+    public boolean isMore() {
+        return more;
+    }
+
+    public void setMore(boolean more) {
+        this.more = more;
+    }
+
+    public List<EventChange> getChanges() {
+        return changes;
+    }
+
+    public void setChanges(List<EventChange> changes) {
+        this.changes = changes;
+    }
+
+    @Override
+    public String toString() {
+        return "EventChanges{cursor='" + cursor + "', reset=" + reset + ", more=" + more
+                + ", changes=" + changes + "}";
+    }
+}
@@ -0,0 +1,40 @@
+package com.calendar.dto;
+
+import com.fasterxml.jackson.annotation.JsonUnwrapped;
+
+/**
+ * Outcome of one line of a newline-delimited JSON import: the line number followed by the
+ * fields of its {@link EventBatchResult}.
+ */
+public class EventImportResult {
+
+    private long line;
+
+    @JsonUnwrapped
+    private EventBatchResult result;
+
+    public EventImportResult() {
+
+    }
+
+    public EventImportResult(long line, EventBatchResult result) {
+        this.line = line;
+        this.result = result;
+    }
+
+    public long getLine() {
+        return line;
+    }
+
+    public void setLine(long line) {
+        this.line = line;
+    }
+
+    public EventBatchResult getResult() {
+        return result;
+    }
+
+    public void setResult(EventBatchResult result) {
+        this.result = result;
+    }
+}
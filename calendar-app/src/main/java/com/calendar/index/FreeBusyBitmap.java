@@ -0,0 +1,128 @@
+package com.calendar.index;
+
+import java.util.Arrays;
+
+/**
+ * Immutable free/busy bitmap for one UTC day.
+ *
+ * <p>The day is split into fixed slots (one minute by default) and each slot is one bit,
+ * set if any event overlaps any part of it. Free or busy slots are found a 64-slot word at a
+ * time with {@link Long#numberOfTrailingZeros(long)}, so a day at minute granularity is
+ * scanned in at most 23 word operations.</p>
+ *
+ * <p>{@link #withBusy(long, long)} returns a new bitmap and leaves this one unchanged, so a
+ * bitmap can be read from any number of threads without locking.</p>
+ */
+public final class FreeBusyBitmap {
+
+    public static final long DAY_MILLIS = 24L * 60 * 60 * 1000;
+
+    private final long dayStartMillis;
+    private final long slotMillis;
+    private final int slots;
+    private final long[] words;
+
+    private FreeBusyBitmap(long dayStartMillis, long slotMillis, int slots, long[] words) {
+        this.dayStartMillis = dayStartMillis;
+        this.slotMillis = slotMillis;
+        this.slots = slots;
+        this.words = words;
+    }
+
+    /**
+     * Returns an all-free bitmap for the UTC day starting at {@code dayStartMillis}.
+     *
+     * @param slotMillis slot length; must divide a day evenly
+     */
+    public static FreeBusyBitmap empty(long dayStartMillis, long slotMillis) {
+        if (slotMillis <= 0 || DAY_MILLIS % slotMillis != 0) {
+            throw new IllegalArgumentException("Slot length must divide a day evenly: " + slotMillis);
+        }
+        if (Math.floorMod(dayStartMillis, DAY_MILLIS) != 0) {
+            throw new IllegalArgumentException("Not the start of a UTC day: " + dayStartMillis);
+        }
+        int slots = (int) (DAY_MILLIS / slotMillis);
+        return new FreeBusyBitmap(dayStartMillis, slotMillis, slots, new long[(slots + 63) / 64]);
+    }
+
+    public long getDayStartMillis() {
+        return dayStartMillis;
+    }
+
+    public long getSlotMillis() {
+        return slotMillis;
+    }
+
+    /**
+     * @return the number of slots in the day
+     */
+    public int size() {
+        return slots;
+    }
+
+    /**
+     * Returns a bitmap with every slot overlapping {@code [startMillis, endMillis)} marked busy.
+     * Parts of the interval outside this day are ignored.
+     */
+    public FreeBusyBitmap withBusy(long startMillis, long endMillis) {
+        long from = Math.max(startMillis, dayStartMillis) - dayStartMillis;
+        long to = Math.min(endMillis, dayStartMillis + DAY_MILLIS) - dayStartMillis;
+        if (from >= to) {
+            return this;
+        }
+        int first = (int) (from / slotMillis);
+        int last = (int) ((to + slotMillis - 1) / slotMillis);  // exclusive
+        long[] updated = Arrays.copyOf(words, words.length);
+        for (int w = first >>> 6; w <= (last - 1) >>> 6; w++) {
+            long mask = -1L;
+            if (w == first >>> 6) {
+                mask &= -1L << (first & 63);
+            }
+            if (w == (last - 1) >>> 6) {
+                mask &= -1L >>> (63 - ((last - 1) & 63));
+            }
+            updated[w] |= mask;
+        }
+        return new FreeBusyBitmap(dayStartMillis, slotMillis, slots, updated);
+    }
+
+    public boolean isBusy(int slot) {
+        return (words[slot >>> 6] & (1L << (slot & 63))) != 0;
+    }
+
+    /**
+     * @return the first free slot at or after {@code fromSlot}, or -1 if there is none
+     */
+    public int nextFree(int fromSlot) {
+        return next(fromSlot, -1L);
+    }
+
+    /**
+     * @return the first busy slot at or after {@code fromSlot}, or -1 if there is none
+     */
+    public int nextBusy(int fromSlot) {
+        return next(fromSlot, 0L);
+    }
+
+    /**
+     * Finds the first slot whose bit differs from {@code flip}'s bits, i.e. the first set
+     * bit of {@code word ^ flip}.
+     */
+    private int next(int fromSlot, long flip) {
+        if (fromSlot >= slots) {
+            return -1;
+        }
+        int w = fromSlot >>> 6;
+        long word = (words[w] ^ flip) & (-1L << (fromSlot & 63));
+        while (true) {
+            if (word != 0) {
+                int slot = (w << 6) + Long.numberOfTrailingZeros(word);
+                return slot < slots ? slot : -1;
+            }
+            if (++w == words.length) {
+                return -1;
+            }
+            word = words[w] ^ flip;
+        }
+    }
+}
@@ -0,0 +1,225 @@
+package com.calendar.index;
+
+import com.calendar.model.Event;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Immutable interval index over calendar events.
+ *
+ * <p>Events are kept in a balanced (AVL) binary search tree ordered by start time, where every
+ * node also records the greatest end time in its subtree. That bound lets a query skip whole
+ * subtrees that end before the requested window, so overlap checks take {@code O(log n)} and
+ * overlap queries take {@code O(log n + k)} for {@code k} matches.</p>
+ *
+ * <p>The index is persistent: {@link #insert(Event)} returns a new index that shares all
+ * untouched nodes with the old one, and an existing index never changes. It can therefore be
+ * read from any number of threads without locking.</p>
+ */
+public final class IntervalIndex {
+
+    private static final IntervalIndex EMPTY = new IntervalIndex(null);
+
+    private final Node root;
+
+    private IntervalIndex(Node root) {
+        this.root = root;
+    }
+
+    /**
+     * @return an index with no events
+     */
+    public static IntervalIndex empty() {
+        return EMPTY;
+    }
+
+    /**
+     * Builds an index over the given events in {@code O(n log n)}, or {@code O(n)} when they
+     * are already sorted by start time.
+     *
+     * @param events the events to index
+     * @return an index containing all the events
+     */
+    public static IntervalIndex of(Collection<Event> events) {
+        List<Event> sorted = new ArrayList<>(events);
+        sorted.sort(Comparator.comparingLong(Event::getStartEpochMillis));
+        return new IntervalIndex(build(sorted, 0, sorted.size()));
+    }
+
+    /**
+     * Returns a new index that also contains the given event. Events with equal start times
+     * are kept in insertion order.
+     *
+     * @param event the event to add
+     * @return the new index; this index is left unchanged
+     */
+    public IntervalIndex insert(Event event) {
+        return new IntervalIndex(insert(root, event));
+    }
+
+    /**
+     * @return the number of indexed events
+     */
+    public int size() {
+        return size(root);
+    }
+
+    /**
+     * Finds the earliest-starting event that overlaps the half-open window {@code [start, end)}.
+     *
+     * @param startMillis window start in epoch millis (inclusive)
+     * @param endMillis   window end in epoch millis (exclusive)
+     * @return the first overlapping event, or {@code null} if there is none
+     */
+    public Event findFirstOverlap(long startMillis, long endMillis) {
+        Node node = firstOverlap(root, startMillis, endMillis);
+        return node == null ? null : node.event;
+    }
+
+    /**
+     * Finds all events that overlap the half-open window {@code [start, end)}, including
+     * events that started before the window and are still running.
+     *
+     * @param startMillis window start in epoch millis (inclusive)
+     * @param endMillis   window end in epoch millis (exclusive)
+     * @return the overlapping events ordered by start time
+     */
+    public List<Event> findOverlapping(long startMillis, long endMillis) {
+        List<Event> result = new ArrayList<>();
+        collectOverlapping(root, startMillis, endMillis, result);
+        return result;
+    }
+
+    /**
+     * @return all indexed events ordered by start time
+     */
+    public List<Event> toList() {
+        List<Event> result = new ArrayList<>(size());
+        collectAll(root, result);
+        return Collections.unmodifiableList(result);
+    }
+
+    private static Node firstOverlap(Node node, long start, long end) {
+        while (node != null && node.maxEnd > start) {
+            if (node.left != null && node.left.maxEnd > start) {
+                Node found = firstOverlap(node.left, start, end);
+                if (found != null) {
+                    return found;
+                }
+            }
+            if (node.start >= end) {
+                return null;
+            }
+            if (node.end > start) {
+                return node;
+            }
+            node = node.right;
+        }
+        return null;
+    }
+
+    private static void collectOverlapping(Node node, long start, long end, List<Event> out) {
+        while (node != null && node.maxEnd > start) {
+            collectOverlapping(node.left, start, end, out);
+            if (node.start >= end) {
+                return;
+            }
+            if (node.end > start) {
+                out.add(node.event);
+            }
+            node = node.right;
+        }
+    }
+
+    private static void collectAll(Node node, List<Event> out) {
+        while (node != null) {
+            collectAll(node.left, out);
+            out.add(node.event);
+            node = node.right;
+        }
+    }
+
+    private static Node build(List<Event> sorted, int from, int to) {
+        if (from >= to) {
+            return null;
+        }
+        int mid = (from + to) >>> 1;
+        return new Node(sorted.get(mid), build(sorted, from, mid), build(sorted, mid + 1, to));
+    }
+
+    private static Node insert(Node node, Event event) {
+        if (node == null) {
+            return new Node(event, null, null);
+        }
+        if (event.getStartEpochMillis() < node.start) {
+            return balance(new Node(node.event, insert(node.left, event), node.right));
+        }
+        return balance(new Node(node.event, node.left, insert(node.right, event)));
+    }
+
+    private static Node balance(Node node) {
+        int skew = height(node.left) - height(node.right);
+        if (skew > 1) {
+            Node left = node.left;
+            if (height(left.left) < height(left.right)) {
+                left = rotateLeft(left);
+            }
+            return rotateRight(new Node(node.event, left, node.right));
+        }
+        if (skew < -1) {
+            Node right = node.right;
+            if (height(right.right) < height(right.left)) {
+                right = rotateRight(right);
+            }
+            return rotateLeft(new Node(node.event, node.left, right));
+        }
+        return node;
+    }
+
+    private static Node rotateLeft(Node node) {
+        Node right = node.right;
+        return new Node(right.event, new Node(node.event, node.left, right.left), right.right);
+    }
+
+    private static Node rotateRight(Node node) {
+        Node left = node.left;
+        return new Node(left.event, left.left, new Node(node.event, left.right, node.right));
+    }
+
+    private static int height(Node node) {
+        return node == null ? 0 : node.height;
+    }
+
+    private static int size(Node node) {
+        return node == null ? 0 : node.size;
+    }
+
+    private static final class Node {
+        final Event event;
+        final long start;
+        final long end;
+        final long maxEnd;
+        final int height;
+        final int size;
+        final Node left;
+        final Node right;
+
+        Node(Event event, Node left, Node right) {
+            this.event = event;
+            this.start = event.getStartEpochMillis();
+            this.end = event.getEndEpochMillis();
+            this.left = left;
+            this.right = right;
+            long max = end;
+            if (left != null && left.maxEnd > max) max = left.maxEnd;
+            if (right != null && right.maxEnd > max) max = right.maxEnd;
+            this.maxEnd = max;
+            this.height = Math.max(height(left), height(right)) + 1;
+            this.size = size(left) + size(right) + 1;
+        }
+    }
+}
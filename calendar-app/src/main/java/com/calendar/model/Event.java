@@ -8,7 +8,7 @@ import java.util.Objects;
 /**
  * Represents a calendar event with start and end times stored as epoch milliseconds.
  */
-public class Event {
+public class Event implements EventView {
 
     private String title;
     private long startEpochMillis;
@@ -24,6 +24,7 @@ public class Event {
         this.endEpochMillis = endEpochMillis;
     }
 
+    @Override
     public String getTitle() {
         return title;
     }
@@ -32,6 +33,7 @@ public class Event {
         this.title = title;
     }
 
+    @Override
     public long getStartEpochMillis() {
         return startEpochMillis;
     }
@@ -40,6 +42,7 @@ public class Event {
         this.startEpochMillis = startEpochMillis;
     }
 
+    @Override
     public long getEndEpochMillis() {
         return endEpochMillis;
     }
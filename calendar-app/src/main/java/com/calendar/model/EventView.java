@@ -0,0 +1,24 @@
+package com.calendar.model;
+
+/**
+ * Read-only access to the fields of a calendar event.
+ *
+ * <p>Storages that keep events outside the heap hand out flyweight views: a single view
+ * object is moved from record to record during a scan, so it is only valid inside the
+ * callback it was passed to. Call {@link #toEvent()} to keep a copy.</p>
+ */
+public interface EventView {
+
+    String getTitle();
+
+    long getStartEpochMillis();
+
+    long getEndEpochMillis();
+
+    /**
+     * @return an independent {@link Event} with this view's current values
+     */
+    default Event toEvent() {
+        return new Event(getTitle(), getStartEpochMillis(), getEndEpochMillis());
+    }
+}
@@ -1,12 +1,17 @@
 package com.calendar.service;
 
+import com.calendar.dto.EventBatchResult;
+import com.calendar.dto.EventChanges;
 import com.calendar.exception.EventConflictException;
 import com.calendar.exception.EventStorageException;
 import com.calendar.exception.ValidationException;
 import com.calendar.model.Event;
+import com.calendar.model.EventView;
 
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
 
 /**
  * Service interface for managing calendar events.
@@ -47,6 +52,86 @@ public interface CalendarService {
     List<Event> listEventsForDay(String date, String zoneName)
             throws ValidationException, EventStorageException;
 
+    /**
+     * Streaming form of {@link #listEventsForToday(String)}: passes the events to
+     * {@code action} in start order as they are read, without building a list. The inputs
+     * are validated before the first event is passed. A view may be a flyweight that is only
+     * valid during the call.
+     *
+     * @throws ValidationException if the timezone is invalid
+     * @throws EventStorageException if loading events fails
+     */
+    void forEachEventForToday(String zoneName, Consumer<? super EventView> action)
+            throws ValidationException, EventStorageException;
+
+    /**
+     * Streaming form of {@link #listRemainingEventsForToday(String)}, with the same rules as
+     * {@link #forEachEventForToday(String, Consumer)}.
+     *
+     * @throws ValidationException if the timezone is invalid
+     * @throws EventStorageException if loading events fails
+     */
+    void forEachRemainingEventForToday(String zoneName, Consumer<? super EventView> action)
+            throws ValidationException, EventStorageException;
+
+    /**
+     * Streaming form of {@link #listEventsForDay(String, String)}, with the same rules as
+     * {@link #forEachEventForToday(String, Consumer)}.
+     *
+     * @throws ValidationException if the date or timezone is invalid
+     * @throws EventStorageException if loading events fails
+     */
+    void forEachEventForDay(String date, String zoneName, Consumer<? super EventView> action)
+            throws ValidationException, EventStorageException;
+
+    /**
+     * Returns up to {@code limit} of the changes made through this service after
+     * {@code cursor}, oldest first, with the cursor to continue from. Without a cursor, no
+     * changes and the current cursor are returned. A cursor that is no longer known, e.g. from
+     * before a restart, yields a reset: the caller has to reload the events it shows.
+     *
+     * @param cursor the cursor returned by an earlier call, or {@code null}
+     * @param limit  the maximum number of changes to return
+     * @return the changes after the cursor
+     * @throws ValidationException if the cursor is malformed or the limit is out of range
+     */
+    EventChanges getChanges(String cursor, int limit) throws ValidationException;
+
+    /**
+     * Like {@link #getChanges(String, int)}, but if there are no changes after {@code cursor}
+     * yet, the result completes with the next ones, or with none after {@code waitMillis}.
+     *
+     * @param waitMillis how long to wait for a change; 0 returns at once
+     * @return a future completing with the changes after the cursor
+     * @throws ValidationException if the cursor is malformed, or the limit or wait time is out of range
+     */
+    CompletableFuture<EventChanges> awaitChanges(String cursor, int limit, long waitMillis)
+            throws ValidationException;
+
+    /**
+     * Returns a tag identifying the current result of a day list method: it changes whenever
+     * that result may have changed, so a client holding the result it got with an equal tag is
+     * up to date. The tag is read before the result, so a result is never older than its tag.
+     *
+     * @param date          the date in format yyyy-MM-dd, or {@code null} for today
+     * @param zoneName      the time zone ID
+     * @param remainingOnly whether the result is that of {@link #listRemainingEventsForToday};
+     *                      {@code date} must be {@code null} then
+     * @return the tag, or {@code null} if the storage does not track changes
+     * @throws ValidationException if the date or timezone is invalid
+     * @throws EventStorageException if loading events fails
+     */
+    String getDayListTag(String date, String zoneName, boolean remainingOnly)
+            throws ValidationException, EventStorageException;
+
+    /**
+     * Returns the counters of the cache behind the day list methods: its size and maximum
+     * size, and its hits, misses, evictions and invalidations since startup.
+     *
+     * @return counter names mapped to their values
+     */
+    Map<String, Object> getDayCacheStats();
+
     /**
      * Finds the next available slot of the given duration on the specified date.
      *
@@ -61,6 +146,24 @@ public interface CalendarService {
     Map<String, Object> findNextAvailableSlot(int durationMinutes, String date, String zoneName)
             throws ValidationException, EventStorageException;
 
+    /**
+     * Finds up to {@code limit} available slots of the given duration between two dates, inclusive.
+     * Each free gap in a day yields at most one slot, at its start, so the results are spread
+     * across the range; they are returned in chronological order.
+     *
+     * @param durationMinutes the required duration in minutes
+     * @param fromDate        the first date in format yyyy-MM-dd (nullable, defaults to today)
+     * @param toDate          the last date in format yyyy-MM-dd (nullable, defaults to {@code fromDate})
+     * @param limit           the maximum number of slots to return
+     * @param zoneName        the time zone ID
+     * @return maps containing start and end epoch millis of each slot; empty if none is found
+     * @throws ValidationException if inputs are invalid or the range is too long
+     * @throws EventStorageException if loading events fails
+     */
+    List<Map<String, Object>> findAvailableSlots(int durationMinutes, String fromDate, String toDate,
+                                                 int limit, String zoneName)
+            throws ValidationException, EventStorageException;
+
     /**
      * Adds a new event after validating and checking for conflicts.
      *
@@ -72,4 +175,18 @@ public interface CalendarService {
      */
     Event addEvent(Event event)
             throws ValidationException, EventConflictException, EventStorageException;
+
+    /**
+     * Adds several events with a single write. Each event is checked against the stored events
+     * and against the events before it in the batch (by start time); events that conflict are
+     * skipped and reported rather than failing the batch.
+     *
+     * @param events the new events to add
+     * @return one result per event, in the same order
+     * @throws ValidationException if the list is null
+     * @throws EventConflictException if the storage rejects the batch because of a conflict
+     * @throws EventStorageException if saving fails; none of the events are added then
+     */
+    List<EventBatchResult> addEvents(List<Event> events)
+            throws ValidationException, EventConflictException, EventStorageException;
 }
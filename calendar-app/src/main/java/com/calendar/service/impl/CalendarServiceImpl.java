@@ -1,9 +1,13 @@
 package com.calendar.service.impl;
 
+import com.calendar.dto.EventBatchResult;
+import com.calendar.dto.EventChange;
+import com.calendar.dto.EventChanges;
 import com.calendar.exception.EventConflictException;
 import com.calendar.exception.EventStorageException;
 import com.calendar.exception.ValidationException;
 import com.calendar.model.Event;
+import com.calendar.model.EventView;
 import com.calendar.service.CalendarService;
 import com.calendar.storage.EventStorage;
 import com.calendar.util.DateTimeUtil;
@@ -15,16 +19,81 @@ import java.time.LocalDate;
 import java.time.ZoneId;
 import java.time.ZonedDateTime;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Consumer;
 
 
 public class CalendarServiceImpl implements CalendarService {
 
+    /** Granularity of the free/busy bitmaps used by {@link #findNextAvailableSlot}. */
+    public static final Duration DEFAULT_FREE_BUSY_GRANULARITY = Duration.ofMinutes(1);
+
+    /** Number of day windows cached for the list methods by default. */
+    public static final int DEFAULT_DAY_CACHE_SIZE = DayWindowCache.DEFAULT_MAX_WINDOWS;
+
+    /** Longest date range {@link #findAvailableSlots} searches. */
+    public static final int MAX_SLOT_SEARCH_DAYS = 31;
+
+    /** Most changes {@link #getChanges} returns at once. */
+    public static final int MAX_CHANGES_PER_READ = 1000;
+
+    /**
+     * Longest time {@link #awaitChanges} waits, kept below the HTTP server's idle timeout of
+     * 30 seconds.
+     */
+    public static final long MAX_CHANGE_WAIT_MILLIS = 20_000L;
+
     private final EventStorage storage;
 
+    private final FreeBusyCache freeBusy;
+
+    private final DayWindowCache dayCache;
+
+    /** Tells the caches about changes to the storage that bypassed this service. */
+    private final StorageVersionWatch storageWatch;
+
+    /**
+     * Serializes writers so that the conflict check and the save happen atomically.
+     */
+    private final Object writeLock = new Object();
+
+    /**
+     * Counts the writes whose events the caches have been told about, so that list tags cannot
+     * change ahead of the cached results. Only changed under {@link #writeLock}.
+     */
+    private volatile long cachedWrites;
+
+    /** Tells list tags of this instance apart from those handed out before a restart. */
+    private final String instanceTag = Long.toString(System.currentTimeMillis(), Character.MAX_RADIX);
+
+    /** Changes made through this service, published once they are durable. */
+    private final ChangeLog changes = new ChangeLog(instanceTag, ChangeLog.DEFAULT_CAPACITY);
+
     private static final Logger log = LoggerFactory.getLogger(CalendarServiceImpl.class);
 
     public CalendarServiceImpl(EventStorage storage) {
+        this(storage, DEFAULT_FREE_BUSY_GRANULARITY);
+    }
+
+    /**
+     * @param freeBusyGranularity slot length of the free/busy bitmaps; must divide a day evenly.
+     *                            An event occupies every slot it touches, so free slots are
+     *                            only found at this granularity.
+     */
+    public CalendarServiceImpl(EventStorage storage, Duration freeBusyGranularity) {
+        this(storage, freeBusyGranularity, DEFAULT_DAY_CACHE_SIZE);
+    }
+
+    /**
+     * @param dayCacheSize number of day windows whose events are kept for the list methods;
+     *                     0 disables the cache
+     */
+    public CalendarServiceImpl(EventStorage storage, Duration freeBusyGranularity, int dayCacheSize) {
         this.storage = storage;
+        this.storageWatch = new StorageVersionWatch(storage);
+        this.freeBusy = new FreeBusyCache(storage, storageWatch, freeBusyGranularity.toMillis());
+        this.dayCache = new DayWindowCache(storage, storageWatch, dayCacheSize);
     }
 
     @Override
@@ -64,19 +133,105 @@ public class CalendarServiceImpl implements CalendarService {
         long startMillis = startOfDay.toInstant().toEpochMilli();
         long endMillis = endOfDay.toInstant().toEpochMilli();
 
-        List<Event> result = new ArrayList<>();
-        for (Event e : storage.loadEvents()) {
-            if (e.getStartEpochMillis() < endMillis && e.getEndEpochMillis() > startMillis) {
-                result.add(e);
+        // Overlap rather than containment, so events that started on an earlier day are included.
+        // Copied because callers own the returned list; the cached one is shared.
+        return new ArrayList<>(dayCache.get(startMillis, endMillis));
+    }
+
+    @Override
+    public void forEachEventForToday(String zoneName, Consumer<? super EventView> action)
+            throws ValidationException, EventStorageException {
+        ZoneId zone = DateTimeUtil.getZone(zoneName);
+        forEachEventInDay(LocalDate.now(zone), zone, action);
+    }
+
+    @Override
+    public void forEachRemainingEventForToday(String zoneName, Consumer<? super EventView> action)
+            throws ValidationException, EventStorageException {
+        ZoneId zone = DateTimeUtil.getZone(zoneName);
+        ZonedDateTime now = ZonedDateTime.now(zone);
+        long nowMillis = now.toInstant().toEpochMilli();
+        // Filter the whole day rather than query from now, so the cached day window is reused.
+        forEachEventInDay(now.toLocalDate(), zone, e -> {
+            if (e.getEndEpochMillis() > nowMillis) {
+                action.accept(e);
             }
+        });
+    }
+
+    @Override
+    public void forEachEventForDay(String date, String zoneName, Consumer<? super EventView> action)
+            throws ValidationException, EventStorageException {
+        LocalDate parsedDate = DateTimeUtil.toLocalDate(date);
+        ZoneId zone = DateTimeUtil.getZone(zoneName);
+        forEachEventInDay(parsedDate, zone, action);
+    }
+
+    private void forEachEventInDay(LocalDate day, ZoneId zone, Consumer<? super EventView> action) {
+        dayCache.forEach(day.atStartOfDay(zone).toInstant().toEpochMilli(),
+                day.plusDays(1).atStartOfDay(zone).toInstant().toEpochMilli(), action);
+    }
+
+    @Override
+    public String getDayListTag(String date, String zoneName, boolean remainingOnly)
+            throws ValidationException, EventStorageException {
+        if (remainingOnly && date != null) {
+            throw new ValidationException("Remaining events are only listed for today.");
+        }
+        ZoneId zone = DateTimeUtil.getZone(zoneName);
+        ZonedDateTime now = ZonedDateTime.now(zone);
+        LocalDate day = date != null ? DateTimeUtil.toLocalDate(date) : now.toLocalDate();
+
+        long writes = cachedWrites;
+        long version = storage.getVersion();
+        if (version == EventStorage.UNVERSIONED) {
+            return null;
         }
-        result.sort(new Comparator<Event>() {
-            @Override
-            public int compare(Event e1, Event e2) {
-                return Long.compare(e1.getStartEpochMillis(), e2.getStartEpochMillis());
+        long startMillis = day.atStartOfDay(zone).toInstant().toEpochMilli();
+        long endMillis = day.plusDays(1).atStartOfDay(zone).toInstant().toEpochMilli();
+        StringBuilder tag = new StringBuilder(instanceTag)
+                .append('-').append(version).append('.').append(writes)
+                .append('-').append(startMillis).append('-').append(endMillis);
+        if (remainingOnly) {
+            // The remaining events also change as events end: tag them with how many have.
+            long nowMillis = now.toInstant().toEpochMilli();
+            int ended = 0;
+            for (Event e : dayCache.get(startMillis, endMillis)) {
+                if (e.getEndEpochMillis() <= nowMillis) {
+                    ended++;
+                }
             }
-        });
-        return result;
+            tag.append('-').append(ended);
+        }
+        return tag.toString();
+    }
+
+    @Override
+    public EventChanges getChanges(String cursor, int limit) throws ValidationException {
+        validateChangeLimit(limit);
+        return changes.read(cursor, limit);
+    }
+
+    @Override
+    public CompletableFuture<EventChanges> awaitChanges(String cursor, int limit, long waitMillis)
+            throws ValidationException {
+        validateChangeLimit(limit);
+        if (waitMillis < 0 || waitMillis > MAX_CHANGE_WAIT_MILLIS) {
+            throw new ValidationException("Wait time must be between 0 and "
+                    + MAX_CHANGE_WAIT_MILLIS / 1000 + " seconds.");
+        }
+        return changes.await(cursor, limit, waitMillis);
+    }
+
+    private static void validateChangeLimit(int limit) {
+        if (limit <= 0 || limit > MAX_CHANGES_PER_READ) {
+            throw new ValidationException("Limit must be between 1 and " + MAX_CHANGES_PER_READ + ".");
+        }
+    }
+
+    @Override
+    public Map<String, Object> getDayCacheStats() {
+        return dayCache.stats();
     }
 
     @Override
@@ -93,20 +248,9 @@ public class CalendarServiceImpl implements CalendarService {
         long searchStart = Math.max(startOfDay.toInstant().toEpochMilli(), nowMillis);
         long searchEnd = endOfDay.toInstant().toEpochMilli();
 
-        List<Event> events = getEventsForDay(day, zone);
-        long current = searchStart;
-
-        for (Event e : events) {
-            if (e.getStartEpochMillis() >= searchEnd) break;
-
-            if (e.getStartEpochMillis() - current >= slotDurationMillis) {
-                return makeSlotResult(current, current + slotDurationMillis);
-            }
-            current = Math.max(current, e.getEndEpochMillis());
-        }
-
-        if (searchEnd - current >= slotDurationMillis) {
-            return makeSlotResult(current, current + slotDurationMillis);
+        long slotStart = freeBusy.findFreeSlot(searchStart, searchEnd, slotDurationMillis);
+        if (slotStart >= 0) {
+            return makeSlotResult(slotStart, slotStart + slotDurationMillis);
         }
 
         Map<String, Object> noSlot = new HashMap<>();
@@ -114,6 +258,46 @@ public class CalendarServiceImpl implements CalendarService {
         return noSlot;
     }
 
+    @Override
+    public List<Map<String, Object>> findAvailableSlots(int durationMinutes, String fromDate, String toDate,
+                                                        int limit, String zoneName)
+            throws ValidationException, EventStorageException {
+        if (durationMinutes <= 0) {
+            throw new ValidationException("Duration must be positive.");
+        }
+        if (limit <= 0) {
+            throw new ValidationException("Limit must be positive.");
+        }
+        ZoneId zone = DateTimeUtil.getZone(zoneName);
+        LocalDate first = (fromDate != null) ? DateTimeUtil.toLocalDate(fromDate) : LocalDate.now(zone);
+        LocalDate last = (toDate != null) ? DateTimeUtil.toLocalDate(toDate) : first;
+        if (last.isBefore(first)) {
+            throw new ValidationException("End date is before start date.");
+        }
+        if (first.plusDays(MAX_SLOT_SEARCH_DAYS).isBefore(last.plusDays(1))) {
+            throw new ValidationException("Date range is longer than " + MAX_SLOT_SEARCH_DAYS + " days.");
+        }
+
+        long slotDurationMillis = Duration.ofMinutes(durationMinutes).toMillis();
+        long nowMillis = ZonedDateTime.now(zone).toInstant().toEpochMilli();
+        long rangeEnd = last.plusDays(1).atStartOfDay(zone).toInstant().toEpochMilli();
+
+        // Load the busy times of the whole range in one query; the per-day scans below then
+        // stop as soon as enough slots are found.
+        freeBusy.prefetch(Math.max(first.atStartOfDay(zone).toInstant().toEpochMilli(), nowMillis), rangeEnd);
+
+        List<Map<String, Object>> slots = new ArrayList<>();
+        for (LocalDate day = first; !day.isAfter(last) && slots.size() < limit; day = day.plusDays(1)) {
+            long searchStart = Math.max(day.atStartOfDay(zone).toInstant().toEpochMilli(), nowMillis);
+            long searchEnd = day.plusDays(1).atStartOfDay(zone).toInstant().toEpochMilli();
+            freeBusy.scanFree(searchStart, searchEnd, slotDurationMillis, (start, end) -> {
+                slots.add(makeSlotResult(start, start + slotDurationMillis));
+                return slots.size() < limit;
+            });
+        }
+        return slots;
+    }
+
     private Map<String, Object> makeSlotResult(long start, long end) {
         Map<String, Object> result = new HashMap<>();
         result.put("startEpochMillis", start);
@@ -130,36 +314,173 @@ public class CalendarServiceImpl implements CalendarService {
 
         log.debug("Attempting to add new event: {}", newEvent);
 
-        List<Event> events;
-        try {
-            events = new ArrayList<>(storage.loadEvents());
-        } catch (Exception e) {
-            log.error("Failed to load existing events from storage", e);
-            throw new EventStorageException("Unable to access event storage.", e);
-        }
-
-        for (Event existing : events) {
-            boolean overlaps = newEvent.getStartEpochMillis() < existing.getEndEpochMillis()
-                    && newEvent.getEndEpochMillis() > existing.getStartEpochMillis();
+        CompletableFuture<Void> durable;
+        synchronized (writeLock) {
+            List<Event> overlapping;
+            try {
+                overlapping = storage.findOverlapping(newEvent.getStartEpochMillis(), newEvent.getEndEpochMillis());
+            } catch (Exception e) {
+                log.error("Failed to load existing events from storage", e);
+                throw new EventStorageException("Unable to access event storage.", e);
+            }
 
-            if (overlaps) {
+            if (!overlapping.isEmpty()) {
+                Event existing = overlapping.get(0);
                 log.info("Conflict detected [newEvent={} existingEvent={}]", newEvent, existing);
                 throw new EventConflictException("Event conflicts with an existing event - " + existing.getTitle());
             }
-        }
 
-        events.add(newEvent);
-        events.sort(Comparator.comparingLong(Event::getStartEpochMillis));
+            // Only queue the write while holding the lock; waiting for it outside lets the
+            // storage commit the writes of concurrent callers together.
+            storageWatch.writeStarted();
+            durable = storage.insertEventAsync(newEvent);
+            freeBusy.markBusy(newEvent);
+            dayCache.invalidate(newEvent.getStartEpochMillis(), newEvent.getEndEpochMillis());
+            cachedWrites++;
+        }
 
         try {
-            storage.saveEvents(events);
+            durable.join();
+            changes.append(Collections.singletonList(EventChange.added(newEvent)));
             log.info("Successfully added event: {}", newEvent);
-        } catch (Exception e) {
-            log.error("Failed to save event to storage", e);
-            throw new EventStorageException("Failed to persist event to storage.", e);
+        } catch (CompletionException e) {
+            freeBusy.invalidate(newEvent);
+            dayCache.invalidate(newEvent.getStartEpochMillis(), newEvent.getEndEpochMillis());
+            synchronized (writeLock) {
+                cachedWrites++;
+            }
+            if (e.getCause() instanceof EventConflictException) {
+                // The storage found the conflict itself, e.g. one written by another process.
+                log.info("Conflict detected by storage [newEvent={}]", newEvent);
+                throw (EventConflictException) e.getCause();
+            }
+            log.error("Failed to save event to storage", e.getCause());
+            throw new EventStorageException("Failed to persist event to storage.", e.getCause());
+        } finally {
+            storageWatch.writeFinished();
         }
 
         return newEvent;
     }
 
+    @Override
+    public List<EventBatchResult> addEvents(List<Event> newEvents)
+            throws ValidationException, EventConflictException, EventStorageException {
+        if (newEvents == null) {
+            throw new ValidationException("Events cannot be null.");
+        }
+
+        List<EventBatchResult> results = new ArrayList<>(Collections.nCopies(newEvents.size(), null));
+        List<Integer> order = new ArrayList<>(newEvents.size());
+        for (int i = 0; i < newEvents.size(); i++) {
+            if (newEvents.get(i) == null) {
+                results.set(i, EventBatchResult.invalid("Event cannot be null."));
+            } else {
+                order.add(i);
+            }
+        }
+        if (order.isEmpty()) {
+            return results;
+        }
+        order.sort(Comparator.comparingLong(i -> newEvents.get(i).getStartEpochMillis()));
+
+        List<Event> accepted = new ArrayList<>(order.size());
+        CompletableFuture<Void> durable;
+        synchronized (writeLock) {
+            long from = Long.MAX_VALUE;
+            long to = Long.MIN_VALUE;
+            for (int i : order) {
+                from = Math.min(from, newEvents.get(i).getStartEpochMillis());
+                to = Math.max(to, newEvents.get(i).getEndEpochMillis());
+            }
+            List<Event> existing;
+            try {
+                existing = storage.findOverlapping(from, to);
+            } catch (Exception e) {
+                log.error("Failed to load existing events from storage", e);
+                throw new EventStorageException("Unable to access event storage.", e);
+            }
+
+            // Sweep the batch in start order alongside the start-sorted existing events. An event
+            // overlaps an existing one that starts earlier if the latest end among those is past
+            // its start, and one that starts later if the next one starts before its end. Within
+            // the batch, the earlier event wins.
+            int next = 0;
+            Event latestExisting = null;
+            Event latestAccepted = null;
+            for (int i : order) {
+                Event candidate = newEvents.get(i);
+                while (next < existing.size()
+                        && existing.get(next).getStartEpochMillis() <= candidate.getStartEpochMillis()) {
+                    Event e = existing.get(next++);
+                    if (latestExisting == null || e.getEndEpochMillis() > latestExisting.getEndEpochMillis()) {
+                        latestExisting = e;
+                    }
+                }
+
+                Event clash = null;
+                if (latestExisting != null && latestExisting.getEndEpochMillis() > candidate.getStartEpochMillis()) {
+                    clash = latestExisting;
+                } else if (next < existing.size()
+                        && existing.get(next).getStartEpochMillis() < candidate.getEndEpochMillis()) {
+                    clash = existing.get(next);
+                }
+                if (clash != null) {
+                    results.set(i, EventBatchResult.conflict(candidate,
+                            "Event conflicts with an existing event - " + clash.getTitle()));
+                } else if (latestAccepted != null
+                        && latestAccepted.getEndEpochMillis() > candidate.getStartEpochMillis()) {
+                    results.set(i, EventBatchResult.conflict(candidate,
+                            "Event conflicts with another event in the batch - " + latestAccepted.getTitle()));
+                } else {
+                    results.set(i, EventBatchResult.added(candidate));
+                    accepted.add(candidate);
+                    if (latestAccepted == null || candidate.getEndEpochMillis() > latestAccepted.getEndEpochMillis()) {
+                        latestAccepted = candidate;
+                    }
+                }
+            }
+            if (accepted.isEmpty()) {
+                log.info("No events added from batch [submitted={}]", newEvents.size());
+                return results;
+            }
+
+            storageWatch.writeStarted();
+            durable = storage.insertEventsAsync(accepted);
+            for (Event e : accepted) {
+                freeBusy.markBusy(e);
+                dayCache.invalidate(e.getStartEpochMillis(), e.getEndEpochMillis());
+            }
+            cachedWrites++;
+        }
+
+        try {
+            durable.join();
+            List<EventChange> added = new ArrayList<>(accepted.size());
+            for (Event e : accepted) {
+                added.add(EventChange.added(e));
+            }
+            changes.append(added);
+            log.info("Successfully added batch [submitted={} added={}]", newEvents.size(), accepted.size());
+        } catch (CompletionException e) {
+            for (Event event : accepted) {
+                freeBusy.invalidate(event);
+                dayCache.invalidate(event.getStartEpochMillis(), event.getEndEpochMillis());
+            }
+            synchronized (writeLock) {
+                cachedWrites++;
+            }
+            if (e.getCause() instanceof EventConflictException) {
+                log.info("Conflict detected by storage in batch [submitted={}]", newEvents.size());
+                throw (EventConflictException) e.getCause();
+            }
+            log.error("Failed to save event batch to storage", e.getCause());
+            throw new EventStorageException("Failed to persist events to storage.", e.getCause());
+        } finally {
+            storageWatch.writeFinished();
+        }
+
+        return results;
+    }
+
 }
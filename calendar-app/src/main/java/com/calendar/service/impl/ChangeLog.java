@@ -0,0 +1,177 @@
+package com.calendar.service.impl;
+
+import com.calendar.dto.EventChange;
+import com.calendar.dto.EventChanges;
+import com.calendar.exception.ValidationException;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Bounded in-memory log of the changes made through the service, read by clients that sync
+ * incrementally instead of re-reading whole days.
+ *
+ * <p>Every change gets the next sequence number. Cursors have the form
+ * {@code <epoch>-<sequence>}, where the epoch identifies this log, so that cursors handed out
+ * before a restart are recognized. Only the newest {@code capacity} changes are kept; a cursor
+ * from another epoch or older than that gets a reset.</p>
+ *
+ * <p>Readers may wait for the next change. Waiting readers are completed on the log's own
+ * thread, so appending never waits for their responses to be written.</p>
+ */
+class ChangeLog {
+
+    static final int DEFAULT_CAPACITY = 10_000;
+
+    private final String epoch;
+    private final EventChange[] ring;
+    private final ScheduledThreadPoolExecutor notifier;
+
+    /** Sequence number of the newest change, 0 before the first. */
+    private long head;
+    private final List<Waiter> waiters = new ArrayList<>();
+
+    ChangeLog(String epoch, int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Change log capacity must be positive.");
+        }
+        this.epoch = epoch;
+        this.ring = new EventChange[capacity];
+        this.notifier = new ScheduledThreadPoolExecutor(1, r -> {
+            Thread thread = new Thread(r, "event-change-notifier");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.notifier.setRemoveOnCancelPolicy(true);
+    }
+
+    /**
+     * Appends the changes in order, each with the cursor right after it, and wakes the readers
+     * waiting for them.
+     */
+    synchronized void append(List<EventChange> changes) {
+        if (changes.isEmpty()) {
+            return;
+        }
+        for (EventChange change : changes) {
+            head++;
+            ring[slot(head)] = new EventChange(change.getType(), change.getEvent(), cursor(head));
+        }
+        if (waiters.isEmpty()) {
+            return;
+        }
+        List<Waiter> woken = new ArrayList<>(waiters);
+        waiters.clear();
+        notifier.execute(() -> {
+            for (Waiter waiter : woken) {
+                waiter.timeout.cancel(false);
+                waiter.result.complete(read(waiter.since, waiter.limit));
+            }
+        });
+    }
+
+    /**
+     * Returns up to {@code limit} changes after {@code cursor}, oldest first. Without a cursor,
+     * returns none and the cursor of the newest change.
+     *
+     * @throws ValidationException if the cursor is malformed
+     */
+    EventChanges read(String cursor, int limit) throws ValidationException {
+        return read(parse(cursor), limit);
+    }
+
+    /**
+     * Like {@link #read(String, int)}, but if there are no changes after {@code cursor} yet,
+     * completes once the next one is appended or after {@code waitMillis} without changes.
+     *
+     * @throws ValidationException if the cursor is malformed
+     */
+    CompletableFuture<EventChanges> await(String cursor, int limit, long waitMillis) throws ValidationException {
+        long since = parse(cursor);
+        synchronized (this) {
+            if (since != head || waitMillis <= 0) {
+                return CompletableFuture.completedFuture(read(since, limit));
+            }
+            Waiter waiter = new Waiter(since, limit);
+            waiters.add(waiter);
+            waiter.timeout = notifier.schedule(() -> {
+                synchronized (this) {
+                    waiters.remove(waiter);
+                }
+                waiter.result.complete(read(since, limit));
+            }, waitMillis, TimeUnit.MILLISECONDS);
+            return waiter.result;
+        }
+    }
+
+    /**
+     * @return the number of readers waiting for a change
+     */
+    synchronized int waiting() {
+        return waiters.size();
+    }
+
+    /**
+     * @param since a parsed cursor, or -1 for an unknown one
+     */
+    private synchronized EventChanges read(long since, int limit) {
+        long oldest = Math.max(0L, head - ring.length);
+        if (since < oldest || since > head) {
+            return new EventChanges(cursor(head), true, false, Collections.<EventChange>emptyList());
+        }
+        long last = Math.min(head, since + limit);
+        List<EventChange> changes = new ArrayList<>((int) (last - since));
+        for (long seq = since + 1; seq <= last; seq++) {
+            changes.add(ring[slot(seq)]);
+        }
+        return new EventChanges(cursor(last), false, last < head, changes);
+    }
+
+    /**
+     * @return the sequence number in {@code cursor}, the newest one if it is {@code null}, or -1
+     *         if the cursor belongs to another epoch
+     */
+    private long parse(String cursor) throws ValidationException {
+        if (cursor == null || cursor.isEmpty()) {
+            synchronized (this) {
+                return head;
+            }
+        }
+        int dash = cursor.lastIndexOf('-');
+        long seq;
+        try {
+            seq = dash > 0 ? Long.parseLong(cursor.substring(dash + 1)) : -1L;
+        } catch (NumberFormatException e) {
+            seq = -1L;
+        }
+        if (seq < 0) {
+            throw new ValidationException("Invalid change cursor: " + cursor);
+        }
+        return cursor.substring(0, dash).equals(epoch) ? seq : -1L;
+    }
+
+    private String cursor(long seq) {
+        return epoch + "-" + seq;
+    }
+
+    private int slot(long seq) {
+        return (int) ((seq - 1) % ring.length);
+    }
+
+    private static final class Waiter {
+        final long since;
+        final int limit;
+        final CompletableFuture<EventChanges> result = new CompletableFuture<>();
+        ScheduledFuture<?> timeout;
+
+        Waiter(long since, int limit) {
+            this.since = since;
+            this.limit = limit;
+        }
+    }
+}
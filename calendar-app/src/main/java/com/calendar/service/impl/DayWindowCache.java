@@ -0,0 +1,262 @@
+package com.calendar.service.impl;
+
+import com.calendar.model.Event;
+import com.calendar.model.EventView;
+import com.calendar.storage.EventStorage;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Bounded cache of the events overlapping a time window, keyed by the UTC window a day in a
+ * time zone resolves to. Days that resolve to the same window share an entry.
+ *
+ * <p>Windows are evicted in least-recently-used order. Writes made through the service
+ * invalidate precisely: {@link #invalidate(long, long)} drops only the windows the new event
+ * overlaps. A load during which any invalidation happened is not cached, so a result read
+ * before a write can never be stored after it. Changes made to the storage in other ways are
+ * detected through its version by a {@link StorageVersionWatch} and drop every window.</p>
+ *
+ * <p>Concurrent misses on the same window share one storage read through a
+ * {@link SingleFlight}, so a burst of identical requests for a day that is not cached loads it
+ * once. Loads are only shared within one generation: a request that starts after an
+ * invalidation never receives a result read before it. A shared load only reads the events;
+ * each caller then consumes them on its own. A window with more than
+ * {@link #MAX_EVENTS_PER_WINDOW} events is remembered as too large, and its callers each read
+ * it from storage themselves.</p>
+ */
+class DayWindowCache {
+
+    static final int DEFAULT_MAX_WINDOWS = 256;
+
+    /** Windows with more events than this are served from storage every time. */
+    static final int MAX_EVENTS_PER_WINDOW = 10_000;
+
+    /** Cached in place of the events of a window that has too many to keep. */
+    private static final List<Event> OVERSIZED = Collections.unmodifiableList(new ArrayList<>(0));
+
+    private final EventStorage storage;
+    private final StorageVersionWatch watch;
+    private final int maxWindows;
+    private final LinkedHashMap<Window, List<Event>> windows;
+    /** Results are null when the window was too large to keep in memory. */
+    private final SingleFlight<Load, List<Event>> loads = new SingleFlight<>();
+
+    /** Incremented by every invalidation; a load only caches its result if it did not change. */
+    private long generation;
+    /** The watch's count of external changes when the windows were last dropped for one. */
+    private long externalChanges;
+    private long hits;
+    private long misses;
+    private long evictions;
+    private long invalidations;
+
+    DayWindowCache(EventStorage storage, int maxWindows) {
+        this(storage, new StorageVersionWatch(storage), maxWindows);
+    }
+
+    DayWindowCache(EventStorage storage, StorageVersionWatch watch, int maxWindows) {
+        if (maxWindows < 0) {
+            throw new IllegalArgumentException("Cache size must not be negative.");
+        }
+        this.storage = storage;
+        this.watch = watch;
+        this.maxWindows = maxWindows;
+        this.windows = new LinkedHashMap<Window, List<Event>>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Window, List<Event>> eldest) {
+                if (size() > DayWindowCache.this.maxWindows) {
+                    evictions++;
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * @return the events overlapping {@code [startMillis, endMillis)} ordered by start time, as
+     *         an unmodifiable list
+     */
+    List<Event> get(long startMillis, long endMillis) {
+        Window key = new Window(startMillis, endMillis);
+        long external = watch.externalChanges();
+        List<Event> cached;
+        long loadGeneration;
+        synchronized (this) {
+            dropIfChangedExternally(external);
+            cached = windows.get(key);
+            if (cached != null && cached != OVERSIZED) {
+                hits++;
+                return cached;
+            }
+            misses++;
+            loadGeneration = generation;
+        }
+        List<Event> events = cached == OVERSIZED ? null : loads.execute(new Load(key, loadGeneration),
+                () -> load(key, startMillis, endMillis, loadGeneration));
+        if (events == null) {
+            return Collections.unmodifiableList(storage.findOverlapping(startMillis, endMillis));
+        }
+        return events;
+    }
+
+    /**
+     * Passes the events overlapping {@code [startMillis, endMillis)} to {@code action} in start
+     * order. On a miss they are loaded into the cache first; callers that miss the same window
+     * meanwhile wait for that load instead of reading storage. Every caller then passes the
+     * events to its own action, so a slow action only holds up its own caller.
+     */
+    void forEach(long startMillis, long endMillis, Consumer<? super EventView> action) {
+        Window key = new Window(startMillis, endMillis);
+        long external = watch.externalChanges();
+        List<Event> cached;
+        long loadGeneration;
+        synchronized (this) {
+            dropIfChangedExternally(external);
+            cached = windows.get(key);
+            if (cached != null && cached != OVERSIZED) {
+                hits++;
+            } else {
+                misses++;
+            }
+            loadGeneration = generation;
+        }
+        if (cached == null) {
+            cached = loads.execute(new Load(key, loadGeneration),
+                    () -> load(key, startMillis, endMillis, loadGeneration));
+        }
+        if (cached != null && cached != OVERSIZED) {
+            // Outside the lock: the action may be writing to a slow client.
+            cached.forEach(action);
+            return;
+        }
+        storage.scanOverlapping(startMillis, endMillis, e -> {
+            action.accept(e);
+            return true;
+        });
+    }
+
+    /**
+     * Drops every cached window that overlaps {@code [startMillis, endMillis)}.
+     */
+    synchronized void invalidate(long startMillis, long endMillis) {
+        generation++;
+        Iterator<Window> it = windows.keySet().iterator();
+        while (it.hasNext()) {
+            Window window = it.next();
+            if (window.startMillis < endMillis && window.endMillis > startMillis) {
+                it.remove();
+                invalidations++;
+            }
+        }
+    }
+
+    synchronized Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("size", windows.size());
+        stats.put("maxSize", maxWindows);
+        stats.put("hits", hits);
+        stats.put("misses", misses);
+        stats.put("evictions", evictions);
+        stats.put("invalidations", invalidations);
+        stats.put("coalesced", loads.sharedCount());
+        return stats;
+    }
+
+    /**
+     * Drops every window if the storage changed other than through the service since the last
+     * check. Must hold this cache's lock.
+     */
+    private void dropIfChangedExternally(long external) {
+        if (external > externalChanges) {
+            externalChanges = external;
+            generation++;
+            invalidations += windows.size();
+            windows.clear();
+        }
+    }
+
+    /**
+     * Reads a window into an unmodifiable list and caches it, unless it has more than
+     * {@link #MAX_EVENTS_PER_WINDOW} events: then the read stops there, the window is marked
+     * as too large and the result is {@code null}.
+     */
+    private List<Event> load(Window key, long startMillis, long endMillis, long loadGeneration) {
+        List<Event> collected = new ArrayList<>();
+        boolean[] oversized = {false};
+        storage.scanOverlapping(startMillis, endMillis, e -> {
+            if (collected.size() == MAX_EVENTS_PER_WINDOW) {
+                oversized[0] = true;
+                return false;
+            }
+            collected.add(e.toEvent());
+            return true;
+        });
+        if (oversized[0]) {
+            put(key, OVERSIZED, loadGeneration);
+            return null;
+        }
+        List<Event> loaded = Collections.unmodifiableList(collected);
+        put(key, loaded, loadGeneration);
+        return loaded;
+    }
+
+    private synchronized void put(Window key, List<Event> events, long loadGeneration) {
+        if (generation == loadGeneration) {
+            windows.put(key, events);
+        }
+    }
+
+    private static final class Window {
+        final long startMillis;
+        final long endMillis;
+
+        Window(long startMillis, long endMillis) {
+            this.startMillis = startMillis;
+            this.endMillis = endMillis;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Window)) return false;
+            Window window = (Window) o;
+            return startMillis == window.startMillis && endMillis == window.endMillis;
+        }
+
+        @Override
+        public int hashCode() {
+            return Long.hashCode(startMillis) * 31 + Long.hashCode(endMillis);
+        }
+    }
+
+    /** A load of one window, shared only by callers that saw the same generation. */
+    private static final class Load {
+        final Window window;
+        final long generation;
+
+        Load(Window window, long generation) {
+            this.window = window;
+            this.generation = generation;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Load)) return false;
+            Load load = (Load) o;
+            return generation == load.generation && window.equals(load.window);
+        }
+
+        @Override
+        public int hashCode() {
+            return window.hashCode() * 31 + Long.hashCode(generation);
+        }
+    }
+}
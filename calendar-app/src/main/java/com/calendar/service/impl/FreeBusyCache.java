@@ -0,0 +1,210 @@
+package com.calendar.service.impl;
+
+import com.calendar.index.FreeBusyBitmap;
+import com.calendar.model.Event;
+import com.calendar.storage.EventStorage;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.LongConsumer;
+
+/**
+ * Per-UTC-day {@link FreeBusyBitmap}s used to find free slots without scanning events.
+ *
+ * <p>A day's bitmap is built from storage the first time it is needed and then kept up to
+ * date by {@link #markBusy(Event)} as events are added. Building and updating the same day
+ * are serialized by the map, so an update is never lost to a concurrent build. Before cached
+ * days are used, the storage version is checked through a {@link StorageVersionWatch}; a change
+ * not made through the service drops them all.</p>
+ *
+ * <p>{@link #prefetch(long, long)} builds all missing days of a longer range from a single
+ * range query instead of one per day. It holds this cache's lock, as do the update methods,
+ * so no update can slip in between its scan and publishing its days.</p>
+ */
+class FreeBusyCache {
+
+    /** Upper bound on cached days; the cache is simply cleared when it is exceeded. */
+    private static final int MAX_DAYS = 1024;
+
+    private final EventStorage storage;
+    private final StorageVersionWatch watch;
+    private final long slotMillis;
+    private final ConcurrentMap<Long, FreeBusyBitmap> days = new ConcurrentHashMap<>();
+
+    /** The watch's count of external changes when the days were last dropped for one. */
+    private long externalChanges;
+
+    FreeBusyCache(EventStorage storage, long slotMillis) {
+        this(storage, new StorageVersionWatch(storage), slotMillis);
+    }
+
+    FreeBusyCache(EventStorage storage, StorageVersionWatch watch, long slotMillis) {
+        FreeBusyBitmap.empty(0L, slotMillis);  // validates the slot length
+        this.storage = storage;
+        this.watch = watch;
+        this.slotMillis = slotMillis;
+    }
+
+    /**
+     * Receives free intervals from {@link #scanFree(long, long, long, FreeIntervalVisitor)}.
+     */
+    interface FreeIntervalVisitor {
+        /**
+         * @return false to stop the scan
+         */
+        boolean visit(long startMillis, long endMillis);
+    }
+
+    /**
+     * Finds the earliest {@code durationMillis} long free interval within {@code [fromMillis, toMillis)}.
+     * A slot only counts as free if no event touches any part of it.
+     *
+     * @return the start of the interval, or -1 if there is none
+     */
+    long findFreeSlot(long fromMillis, long toMillis, long durationMillis) {
+        long[] found = {-1};
+        scanFree(fromMillis, toMillis, durationMillis, (start, end) -> {
+            found[0] = start;
+            return false;
+        });
+        return found[0];
+    }
+
+    /**
+     * Passes each maximal free interval within {@code [fromMillis, toMillis)} that is at least
+     * {@code minDurationMillis} long to the visitor, in order, until it returns false. Days are
+     * only built as the scan reaches them.
+     */
+    void scanFree(long fromMillis, long toMillis, long minDurationMillis, FreeIntervalVisitor visitor) {
+        dropIfChangedExternally();
+        long position = fromMillis;
+        while (position < toMillis) {
+            long freeStart = Math.max(position, next(position, toMillis, false));
+            if (freeStart >= toMillis) {
+                return;
+            }
+            long freeEnd = next(freeStart, toMillis, true);
+            if (freeEnd - freeStart >= minDurationMillis && !visitor.visit(freeStart, freeEnd)) {
+                return;
+            }
+            position = freeEnd;
+        }
+    }
+
+    /**
+     * Builds every uncached day overlapping {@code [fromMillis, toMillis)} from one range query.
+     * Ranges longer than the cache can hold are left to be built day by day.
+     */
+    synchronized void prefetch(long fromMillis, long toMillis) {
+        if (fromMillis >= toMillis) {
+            return;
+        }
+        dropIfChangedExternally();
+        long first = Math.floorDiv(fromMillis, FreeBusyBitmap.DAY_MILLIS);
+        long last = Math.floorDiv(toMillis - 1, FreeBusyBitmap.DAY_MILLIS);
+        if (last - first + 1 > MAX_DAYS) {
+            return;
+        }
+        Map<Long, FreeBusyBitmap> missing = new HashMap<>();
+        long scanFrom = Long.MAX_VALUE;
+        long scanTo = Long.MIN_VALUE;
+        for (long day = first; day <= last; day++) {
+            if (!days.containsKey(day)) {
+                long dayStart = day * FreeBusyBitmap.DAY_MILLIS;
+                missing.put(day, FreeBusyBitmap.empty(dayStart, slotMillis));
+                scanFrom = Math.min(scanFrom, dayStart);
+                scanTo = Math.max(scanTo, dayStart + FreeBusyBitmap.DAY_MILLIS);
+            }
+        }
+        if (missing.isEmpty()) {
+            return;
+        }
+        storage.scanOverlapping(scanFrom, scanTo, e -> {
+            long start = e.getStartEpochMillis();
+            long end = e.getEndEpochMillis();
+            forEachDay(start, end, day -> missing.computeIfPresent(day, (key, bitmap) -> bitmap.withBusy(start, end)));
+            return true;
+        });
+        if (days.size() + missing.size() > MAX_DAYS) {
+            days.clear();
+        }
+        missing.forEach(days::putIfAbsent);
+    }
+
+    /**
+     * Marks the event's time busy in the days that are already cached.
+     */
+    synchronized void markBusy(Event event) {
+        forEachDay(event.getStartEpochMillis(), event.getEndEpochMillis(), day -> days.computeIfPresent(day,
+                (key, bitmap) -> bitmap.withBusy(event.getStartEpochMillis(), event.getEndEpochMillis())));
+    }
+
+    /**
+     * Drops the cached days the event touches, e.g. after its write failed.
+     */
+    synchronized void invalidate(Event event) {
+        forEachDay(event.getStartEpochMillis(), event.getEndEpochMillis(), days::remove);
+    }
+
+    /**
+     * Drops every cached day if the storage changed other than through the service since the
+     * last check.
+     */
+    private synchronized void dropIfChangedExternally() {
+        long external = watch.externalChanges();
+        if (external > externalChanges) {
+            externalChanges = external;
+            days.clear();
+        }
+    }
+
+    /**
+     * Returns the start of the first slot at or after the one containing {@code position}
+     * that is busy (or free), capped at {@code limit}.
+     */
+    private long next(long position, long limit, boolean busy) {
+        while (position < limit) {
+            long day = Math.floorDiv(position, FreeBusyBitmap.DAY_MILLIS);
+            long dayStart = day * FreeBusyBitmap.DAY_MILLIS;
+            FreeBusyBitmap bitmap = day(day);
+            int slot = (int) ((position - dayStart) / slotMillis);
+            int found = busy ? bitmap.nextBusy(slot) : bitmap.nextFree(slot);
+            if (found >= 0) {
+                return Math.min(limit, dayStart + found * slotMillis);
+            }
+            position = dayStart + FreeBusyBitmap.DAY_MILLIS;
+        }
+        return limit;
+    }
+
+    private FreeBusyBitmap day(long day) {
+        FreeBusyBitmap bitmap = days.get(day);
+        if (bitmap != null) {
+            return bitmap;
+        }
+        if (days.size() >= MAX_DAYS) {
+            days.clear();
+        }
+        return days.computeIfAbsent(day, this::build);
+    }
+
+    private FreeBusyBitmap build(long day) {
+        long dayStart = day * FreeBusyBitmap.DAY_MILLIS;
+        FreeBusyBitmap[] bitmap = {FreeBusyBitmap.empty(dayStart, slotMillis)};
+        storage.scanOverlapping(dayStart, dayStart + FreeBusyBitmap.DAY_MILLIS, e -> {
+            bitmap[0] = bitmap[0].withBusy(e.getStartEpochMillis(), e.getEndEpochMillis());
+            return true;
+        });
+        return bitmap[0];
+    }
+
+    private static void forEachDay(long startMillis, long endMillis, LongConsumer action) {
+        long first = Math.floorDiv(startMillis, FreeBusyBitmap.DAY_MILLIS);
+        long last = Math.floorDiv(endMillis - 1, FreeBusyBitmap.DAY_MILLIS);
+        for (long day = first; day <= last; day++) {
+            action.accept(day);
+        }
+    }
+}
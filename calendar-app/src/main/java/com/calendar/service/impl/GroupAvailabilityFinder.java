@@ -0,0 +1,162 @@
+package com.calendar.service.impl;
+
+import com.calendar.exception.EventStorageException;
+import com.calendar.exception.ValidationException;
+import com.calendar.storage.EventStorage;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+
+/**
+ * Finds the windows in which every one of a group of calendars is free.
+ *
+ * <p>Each calendar's busy intervals in the search range are read with one range query, in
+ * parallel when an {@link Executor} is given, as start-sorted {@code long} pairs. They are then
+ * merged with a heap holding one cursor per calendar: the sweep always takes the earliest
+ * remaining start, so a common free window opens wherever that start lies beyond the latest
+ * end seen so far. The merge is O(E log N) for E events across N calendars, and stops as soon
+ * as enough windows are found.</p>
+ */
+public class GroupAvailabilityFinder {
+
+    private static final Logger log = LoggerFactory.getLogger(GroupAvailabilityFinder.class);
+
+    private final List<EventStorage> calendars;
+    private final Executor executor;
+
+    /**
+     * Reads the calendars one after another on the calling thread.
+     */
+    public GroupAvailabilityFinder(List<EventStorage> calendars) {
+        this(calendars, null);
+    }
+
+    /**
+     * @param executor runs the per-calendar range queries; null to read them on the calling thread
+     */
+    public GroupAvailabilityFinder(List<EventStorage> calendars, Executor executor) {
+        this.calendars = new ArrayList<>(calendars);
+        this.executor = executor;
+    }
+
+    /**
+     * Finds up to {@code limit} maximal windows within {@code [fromMillis, toMillis)} that are at
+     * least {@code minDurationMillis} long and in which no calendar has an event.
+     *
+     * @return maps containing start and end epoch millis of each window, in chronological order
+     * @throws ValidationException if the range, duration or limit is invalid
+     * @throws EventStorageException if reading a calendar fails
+     */
+    public List<Map<String, Object>> findCommonFreeWindows(long fromMillis, long toMillis,
+                                                           long minDurationMillis, int limit)
+            throws ValidationException, EventStorageException {
+        if (fromMillis >= toMillis) {
+            throw new ValidationException("Search range is empty.");
+        }
+        if (minDurationMillis <= 0) {
+            throw new ValidationException("Duration must be positive.");
+        }
+        if (limit <= 0) {
+            throw new ValidationException("Limit must be positive.");
+        }
+
+        List<long[]> busy = readAll(fromMillis, toMillis);
+
+        // Cursor i points at calendar i's next unread interval; ordered by that interval's start.
+        int[] positions = new int[busy.size()];
+        PriorityQueue<Integer> heap = new PriorityQueue<>(Math.max(1, busy.size()),
+                (a, b) -> Long.compare(busy.get(a)[positions[a]], busy.get(b)[positions[b]]));
+        for (int i = 0; i < busy.size(); i++) {
+            if (busy.get(i).length > 0) {
+                heap.add(i);
+            }
+        }
+
+        List<Map<String, Object>> windows = new ArrayList<>();
+        long busyUntil = fromMillis;
+        while (!heap.isEmpty() && busyUntil < toMillis) {
+            int calendar = heap.poll();
+            long[] intervals = busy.get(calendar);
+            long start = intervals[positions[calendar]];
+            long end = intervals[positions[calendar] + 1];
+
+            if (start - busyUntil >= minDurationMillis) {
+                windows.add(makeWindow(busyUntil, start));
+                if (windows.size() == limit) {
+                    return windows;
+                }
+            }
+            busyUntil = Math.max(busyUntil, end);
+
+            positions[calendar] += 2;
+            if (positions[calendar] < intervals.length) {
+                heap.add(calendar);
+            }
+        }
+        if (toMillis - busyUntil >= minDurationMillis) {
+            windows.add(makeWindow(busyUntil, toMillis));
+        }
+        return windows;
+    }
+
+    private List<long[]> readAll(long fromMillis, long toMillis) {
+        if (executor == null) {
+            List<long[]> busy = new ArrayList<>(calendars.size());
+            for (EventStorage calendar : calendars) {
+                busy.add(read(calendar, fromMillis, toMillis));
+            }
+            return busy;
+        }
+
+        List<CompletableFuture<long[]>> reads = new ArrayList<>(calendars.size());
+        for (EventStorage calendar : calendars) {
+            reads.add(CompletableFuture.supplyAsync(() -> read(calendar, fromMillis, toMillis), executor));
+        }
+        List<long[]> busy = new ArrayList<>(calendars.size());
+        try {
+            for (CompletableFuture<long[]> read : reads) {
+                busy.add(read.join());
+            }
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof EventStorageException) {
+                throw (EventStorageException) e.getCause();
+            }
+            log.error("Failed to read calendar", e.getCause());
+            throw new EventStorageException("Unable to access event storage.", e.getCause());
+        }
+        return busy;
+    }
+
+    /**
+     * @return the calendar's intervals overlapping the range as start, end pairs sorted by start
+     */
+    private static long[] read(EventStorage calendar, long fromMillis, long toMillis) {
+        long[][] pairs = {new long[32]};
+        int[] size = {0};
+        calendar.scanOverlapping(fromMillis, toMillis, e -> {
+            if (size[0] == pairs[0].length) {
+                pairs[0] = Arrays.copyOf(pairs[0], size[0] * 2);
+            }
+            pairs[0][size[0]++] = e.getStartEpochMillis();
+            pairs[0][size[0]++] = e.getEndEpochMillis();
+            return true;
+        });
+        return Arrays.copyOf(pairs[0], size[0]);
+    }
+
+    private static Map<String, Object> makeWindow(long start, long end) {
+        Map<String, Object> window = new HashMap<>();
+        window.put("startEpochMillis", start);
+        window.put("endEpochMillis", end);
+        return window;
+    }
+}
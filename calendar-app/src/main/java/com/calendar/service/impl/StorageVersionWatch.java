@@ -0,0 +1,59 @@
+package com.calendar.service.impl;
+
+import com.calendar.storage.EventStorage;
+
+/**
+ * Detects changes to the storage that were not made through the service, e.g. seed data
+ * written to the events file by another process, so that caches kept up to date by the
+ * service's own writes know when to start over.
+ *
+ * <p>The service reports each write with {@link #writeStarted()} before submitting it and
+ * {@link #writeFinished()} once it is durable or has failed. Version changes while no write
+ * is in flight are counted as external; while writes are in flight, the version is expected to
+ * move and is only taken as the new baseline once the last of them finishes, so an external
+ * change that lands in exactly that time goes unnoticed. Unversioned storages are never
+ * reported as changed.</p>
+ */
+class StorageVersionWatch {
+
+    private final EventStorage storage;
+
+    private long knownVersion;
+    private int writesInFlight;
+    private long externalChanges;
+
+    StorageVersionWatch(EventStorage storage) {
+        this.storage = storage;
+        this.knownVersion = storage.getVersion();
+    }
+
+    /**
+     * Checks the storage version.
+     *
+     * @return the number of external changes detected so far; caches drop everything they hold
+     *         whenever it differs from the value they last saw
+     */
+    long externalChanges() {
+        long version = storage.getVersion();
+        synchronized (this) {
+            if (version != knownVersion && writesInFlight == 0) {
+                knownVersion = version;
+                externalChanges++;
+            }
+            return externalChanges;
+        }
+    }
+
+    synchronized void writeStarted() {
+        writesInFlight++;
+    }
+
+    void writeFinished() {
+        long version = storage.getVersion();
+        synchronized (this) {
+            if (--writesInFlight == 0) {
+                knownVersion = version;
+            }
+        }
+    }
+}
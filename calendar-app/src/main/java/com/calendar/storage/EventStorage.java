@@ -2,8 +2,16 @@ package com.calendar.storage;
 
 import com.calendar.exception.EventStorageException;
 import com.calendar.model.Event;
+import com.calendar.model.EventView;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
 
 /**
  * Abstraction for storing and retrieving calendar events.
@@ -13,6 +21,9 @@ import java.util.List;
  */
 public interface EventStorage {
 
+    /** Version of a storage that does not track changes. */
+    long UNVERSIONED = -1L;
+
     /**
      * Loads all calendar events from the underlying storage.
      *
@@ -28,4 +39,174 @@ public interface EventStorage {
      * @throws EventStorageException if an error occurs while writing to storage
      */
     void saveEvents(List<Event> events) throws EventStorageException;
+
+    /**
+     * Submits the given list of events to be persisted and returns without waiting for
+     * the write, so that implementations can batch writes from concurrent callers.
+     *
+     * <p>Each submitted list is a complete new state; callers must submit states in the
+     * order they were produced. Once submitted, the list is what {@link #loadEvents()}
+     * returns. The default implementation saves synchronously.</p>
+     *
+     * @param events the list of {@link Event} objects to be saved
+     * @return a future that completes once the events are durable, or completes
+     *         exceptionally with an {@link EventStorageException} if the write fails
+     */
+    default CompletableFuture<Void> saveEventsAsync(List<Event> events) {
+        CompletableFuture<Void> result = new CompletableFuture<>();
+        try {
+            saveEvents(events);
+            result.complete(null);
+        } catch (RuntimeException e) {
+            result.completeExceptionally(e);
+        }
+        return result;
+    }
+
+    /**
+     * Finds the events overlapping the half-open window {@code [startMillis, endMillis)}.
+     *
+     * <p>The default implementation filters {@link #loadEvents()}; indexed storages answer
+     * without touching events outside the window.</p>
+     *
+     * @return the overlapping events ordered by start time
+     * @throws EventStorageException if an error occurs while accessing the data
+     */
+    default List<Event> findOverlapping(long startMillis, long endMillis) throws EventStorageException {
+        List<Event> result = new ArrayList<>();
+        for (Event e : loadEvents()) {
+            if (e.getStartEpochMillis() < endMillis && e.getEndEpochMillis() > startMillis) {
+                result.add(e);
+            }
+        }
+        result.sort(Comparator.comparingLong(Event::getStartEpochMillis));
+        return result;
+    }
+
+    /**
+     * Visits the events overlapping {@code [startMillis, endMillis)} in start order without
+     * necessarily creating {@link Event} objects. The view passed to {@code visitor} may be a
+     * flyweight that is only valid during the call.
+     *
+     * @param visitor returns {@code false} to stop the scan
+     * @throws EventStorageException if an error occurs while accessing the data
+     */
+    default void scanOverlapping(long startMillis, long endMillis, Predicate<? super EventView> visitor)
+            throws EventStorageException {
+        for (Event e : findOverlapping(startMillis, endMillis)) {
+            if (!visitor.test(e)) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Adds a single event to the stored events. Checking for conflicts is up to the caller,
+     * although a storage may also reject an overlapping event itself.
+     *
+     * <p>The default implementation loads all events and saves them again with the new one;
+     * storages that can write one event on its own override it.</p>
+     *
+     * @param event the event to add
+     * @throws EventStorageException if an error occurs while writing to storage
+     * @throws com.calendar.exception.EventConflictException if the storage rejects an overlapping event
+     */
+    default void insertEvent(Event event) throws EventStorageException {
+        saveEvents(withEvent(loadEvents(), event));
+    }
+
+    /**
+     * Submits a single event to be added and returns without waiting for the write, with
+     * the same visibility rules as {@link #saveEventsAsync(List)}.
+     *
+     * @param event the event to add
+     * @return a future that completes once the event is durable
+     */
+    default CompletableFuture<Void> insertEventAsync(Event event) {
+        CompletableFuture<Void> result = new CompletableFuture<>();
+        try {
+            insertEvent(event);
+            result.complete(null);
+        } catch (RuntimeException e) {
+            result.completeExceptionally(e);
+        }
+        return result;
+    }
+
+    /**
+     * Adds several events with a single write. Checking for conflicts, with stored events and
+     * among the new ones, is up to the caller; a storage that rejects an overlapping event
+     * rejects the whole batch.
+     *
+     * <p>The default implementation loads all events and saves them again with the new ones.</p>
+     *
+     * @param events the events to add
+     * @throws EventStorageException if an error occurs while writing to storage
+     * @throws com.calendar.exception.EventConflictException if the storage rejects an overlapping event
+     */
+    default void insertEvents(List<Event> events) throws EventStorageException {
+        saveEvents(withEvents(loadEvents(), events));
+    }
+
+    /**
+     * Submits several events to be added with a single write and returns without waiting for
+     * it, with the same visibility rules as {@link #saveEventsAsync(List)}.
+     *
+     * @param events the events to add
+     * @return a future that completes once all the events are durable
+     */
+    default CompletableFuture<Void> insertEventsAsync(List<Event> events) {
+        CompletableFuture<Void> result = new CompletableFuture<>();
+        try {
+            insertEvents(events);
+            result.complete(null);
+        } catch (RuntimeException e) {
+            result.completeExceptionally(e);
+        }
+        return result;
+    }
+
+    /**
+     * Passes every stored event to {@code action}, in no particular order. Storages that can
+     * decode events one at a time do so without building the full list.
+     *
+     * @param action receives each event
+     * @throws EventStorageException if an error occurs while accessing the data
+     */
+    default void forEachEvent(Consumer<? super Event> action) throws EventStorageException {
+        loadEvents().forEach(action);
+    }
+
+    /**
+     * Returns the version of the stored events: a number that grows whenever what this storage
+     * returns may have changed, so that callers can tell cheaply whether something derived from
+     * an earlier read is still current. A write is counted no earlier than it becomes visible
+     * to reads. Versions start again in every new storage object, and changes made by other
+     * processes are only counted by storages that detect them.
+     *
+     * <p>The default implementation returns {@link #UNVERSIONED}.</p>
+     *
+     * @return the version, or {@link #UNVERSIONED} if this storage does not track changes
+     */
+    default long getVersion() {
+        return UNVERSIONED;
+    }
+
+    /**
+     * Returns a copy of {@code events} with {@code event} added, ordered by start time.
+     */
+    static List<Event> withEvent(List<Event> events, Event event) {
+        return withEvents(events, Collections.singletonList(event));
+    }
+
+    /**
+     * Returns a copy of {@code events} with {@code added} added, ordered by start time.
+     */
+    static List<Event> withEvents(List<Event> events, Collection<Event> added) {
+        List<Event> result = new ArrayList<>(events.size() + added.size());
+        result.addAll(events);
+        result.addAll(added);
+        result.sort(Comparator.comparingLong(Event::getStartEpochMillis));
+        return result;
+    }
 }
@@ -0,0 +1,211 @@
+package com.calendar.storage.impl;
+
+import com.calendar.exception.EventStorageException;
+import com.calendar.index.IntervalIndex;
+import com.calendar.model.Event;
+import com.calendar.storage.EventStorage;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * {@link EventStorage} decorator that keeps the parsed events resident in memory.
+ *
+ * <p>The delegate is only read again when the backing file really changes on disk
+ * (its modification time or size differs from the last load), e.g. when the seed data
+ * generator overwrites it. Writes made through this storage update the cached copy in
+ * place, so the next read does not re-parse the file the application just wrote.</p>
+ *
+ * <p>Reads take no lock while the cache is current: they only compare the file stamp with
+ * an immutable, volatile snapshot. Loads after an external change and all writes are
+ * serialized.</p>
+ *
+ * <p>Range queries are answered from an {@link IntervalIndex} built over the cached events the
+ * first time they are queried. Inserts made through this storage extend that index instead
+ * of rebuilding it.</p>
+ *
+ * <p>Every snapshot gets a new {@linkplain #getVersion() version}, so reloads after an external
+ * change are counted as well as writes.</p>
+ */
+public class CachingEventStorage implements EventStorage {
+
+    private static final Logger log = LoggerFactory.getLogger(CachingEventStorage.class);
+
+    private final EventStorage delegate;
+    private final Path file;
+
+    private volatile Snapshot snapshot;
+
+    /** Version of the newest snapshot; only changed under this storage's lock. */
+    private long version;
+
+    public CachingEventStorage(EventStorage delegate, String filePath) {
+        this.delegate = delegate;
+        this.file = Paths.get(filePath);
+    }
+
+    /**
+     * Returns the cached events, reloading them from the delegate only if the backing
+     * file has changed since the last load or save.
+     *
+     * <p>The returned list is read-only and is shared between callers until the next change.</p>
+     */
+    @Override
+    public List<Event> loadEvents() throws EventStorageException {
+        return current().events;
+    }
+
+    @Override
+    public List<Event> findOverlapping(long startMillis, long endMillis) throws EventStorageException {
+        return current().index().findOverlapping(startMillis, endMillis);
+    }
+
+    @Override
+    public synchronized void saveEvents(List<Event> events) throws EventStorageException {
+        write(Collections.unmodifiableList(new ArrayList<>(events)), null);
+    }
+
+    @Override
+    public synchronized void insertEvent(Event event) throws EventStorageException {
+        Snapshot current = current();
+        IntervalIndex index = current.index;
+        write(Collections.unmodifiableList(EventStorage.withEvent(current.events, event)),
+                index != null ? index.insert(event) : null);
+    }
+
+    @Override
+    public synchronized void insertEvents(List<Event> events) throws EventStorageException {
+        Snapshot current = current();
+        IntervalIndex index = current.index;
+        if (index != null) {
+            for (Event e : events) {
+                index = index.insert(e);
+            }
+        }
+        write(Collections.unmodifiableList(EventStorage.withEvents(current.events, events)), index);
+    }
+
+    /**
+     * Returns the version of the current snapshot, first reloading it if the backing file has
+     * changed since the last load or save.
+     */
+    @Override
+    public long getVersion() {
+        return current().version;
+    }
+
+    /**
+     * Drops the cached events so that the next read goes to the delegate.
+     */
+    public synchronized void invalidate() {
+        snapshot = null;
+    }
+
+    private void write(List<Event> events, IntervalIndex index) {
+        try {
+            delegate.saveEvents(events);
+        } catch (EventStorageException e) {
+            invalidate();
+            throw e;
+        }
+        snapshot = new Snapshot(events, FileStamp.of(file), index, ++version);
+    }
+
+    private Snapshot current() {
+        Snapshot current = snapshot;
+        if (current != null && current.stamp.equals(FileStamp.of(file))) {
+            return current;
+        }
+        return reload();
+    }
+
+    private synchronized Snapshot reload() {
+        FileStamp stamp = FileStamp.of(file);
+        Snapshot current = snapshot;
+        if (current != null && current.stamp.equals(stamp)) {
+            return current;
+        }
+        log.debug("Loading events into cache [file={} stamp={}]", file, stamp);
+        List<Event> events = Collections.unmodifiableList(new ArrayList<>(delegate.loadEvents()));
+        current = new Snapshot(events, stamp, null, ++version);
+        snapshot = current;
+        return current;
+    }
+
+    private static final class Snapshot {
+        final List<Event> events;
+        final FileStamp stamp;
+        final long version;
+        volatile IntervalIndex index;
+
+        Snapshot(List<Event> events, FileStamp stamp, IntervalIndex index, long version) {
+            this.events = events;
+            this.stamp = stamp;
+            this.index = index;
+            this.version = version;
+        }
+
+        /**
+         * Builds the index on first use. Racing readers may each build one; they are equal.
+         */
+        IntervalIndex index() {
+            IntervalIndex current = index;
+            if (current == null) {
+                current = IntervalIndex.of(events);
+                index = current;
+            }
+            return current;
+        }
+    }
+
+    /**
+     * Modification time and size of the backing file, used to detect external changes.
+     */
+    private static final class FileStamp {
+
+        private static final FileStamp MISSING = new FileStamp(-1L, -1L);
+
+        private final long lastModifiedMillis;
+        private final long size;
+
+        private FileStamp(long lastModifiedMillis, long size) {
+            this.lastModifiedMillis = lastModifiedMillis;
+            this.size = size;
+        }
+
+        static FileStamp of(Path file) {
+            try {
+                BasicFileAttributes attrs = Files.readAttributes(file, BasicFileAttributes.class);
+                return new FileStamp(attrs.lastModifiedTime().toMillis(), attrs.size());
+            } catch (IOException e) {
+                return MISSING;
+            }
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            FileStamp that = (FileStamp) o;
+            return lastModifiedMillis == that.lastModifiedMillis && size == that.size;
+        }
+
+        @Override
+        public int hashCode() {
+            return Long.hashCode(lastModifiedMillis) * 31 + Long.hashCode(size);
+        }
+
+        @Override
+        public String toString() {
+            return lastModifiedMillis + "/" + size;
+        }
+    }
+}
@@ -0,0 +1,160 @@
+package com.calendar.storage.impl;
+
+import com.calendar.model.Event;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * Immutable list of events sorted by start time, held in chunks of at most
+ * {@link #CHUNK_SIZE} events.
+ *
+ * <p>{@link #with(Event)} returns a new list that shares every chunk but one with this list:
+ * the chunk the event lands in is copied, or split in two when it is full, and only the small
+ * array of chunk references is copied besides. Adding an event therefore costs one chunk plus
+ * one reference per {@link #CHUNK_SIZE} events instead of a copy and sort of the whole list.</p>
+ */
+final class ChunkedEventList extends AbstractList<Event> implements RandomAccess {
+
+    static final int CHUNK_SIZE = 512;
+
+    static final ChunkedEventList EMPTY = new ChunkedEventList(new Event[0][]);
+
+    private final Event[][] chunks;
+    /** Index of the first event of each chunk. */
+    private final int[] firstIndex;
+    private final int size;
+
+    private ChunkedEventList(Event[][] chunks) {
+        this.chunks = chunks;
+        this.firstIndex = new int[chunks.length];
+        int index = 0;
+        for (int c = 0; c < chunks.length; c++) {
+            firstIndex[c] = index;
+            index += chunks[c].length;
+        }
+        this.size = index;
+    }
+
+    /**
+     * @return the events sorted by start time, keeping the order of events that start together
+     */
+    static ChunkedEventList of(List<Event> events) {
+        List<Event> sorted = new ArrayList<>(events);
+        sorted.sort(Comparator.comparingLong(Event::getStartEpochMillis));
+        Event[][] chunks = new Event[(sorted.size() + CHUNK_SIZE - 1) / CHUNK_SIZE][];
+        for (int c = 0; c < chunks.length; c++) {
+            int from = c * CHUNK_SIZE;
+            chunks[c] = sorted.subList(from, Math.min(sorted.size(), from + CHUNK_SIZE)).toArray(new Event[0]);
+        }
+        return new ChunkedEventList(chunks);
+    }
+
+    /**
+     * Returns a list with {@code event} added after all events starting at or before it.
+     */
+    ChunkedEventList with(Event event) {
+        long start = event.getStartEpochMillis();
+        if (chunks.length == 0) {
+            return new ChunkedEventList(new Event[][]{{event}});
+        }
+        int c = chunkFor(start);
+        Event[] chunk = chunks[c];
+        int slot = slotAfter(chunk, start);
+        if (c == chunks.length - 1 && slot == chunk.length && chunk.length == CHUNK_SIZE) {
+            // Past the last full chunk: start a new one.
+            Event[][] newChunks = Arrays.copyOf(chunks, chunks.length + 1);
+            newChunks[chunks.length] = new Event[]{event};
+            return new ChunkedEventList(newChunks);
+        }
+        Event[] inserted = new Event[chunk.length + 1];
+        System.arraycopy(chunk, 0, inserted, 0, slot);
+        inserted[slot] = event;
+        System.arraycopy(chunk, slot, inserted, slot + 1, chunk.length - slot);
+        if (inserted.length <= CHUNK_SIZE) {
+            Event[][] newChunks = chunks.clone();
+            newChunks[c] = inserted;
+            return new ChunkedEventList(newChunks);
+        }
+        int half = inserted.length / 2;
+        Event[][] newChunks = new Event[chunks.length + 1][];
+        System.arraycopy(chunks, 0, newChunks, 0, c);
+        newChunks[c] = Arrays.copyOfRange(inserted, 0, half);
+        newChunks[c + 1] = Arrays.copyOfRange(inserted, half, inserted.length);
+        System.arraycopy(chunks, c + 1, newChunks, c + 2, chunks.length - c - 1);
+        return new ChunkedEventList(newChunks);
+    }
+
+    /**
+     * Returns a list with {@code events} added, each as by {@link #with(Event)}.
+     */
+    ChunkedEventList withAll(List<Event> events) {
+        ChunkedEventList result = this;
+        for (Event event : events) {
+            result = result.with(event);
+        }
+        return result;
+    }
+
+    @Override
+    public Event get(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+        int low = 0;
+        int high = chunks.length - 1;
+        while (low < high) {
+            int mid = (low + high + 1) >>> 1;
+            if (firstIndex[mid] <= index) {
+                low = mid;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return chunks[low][index - firstIndex[low]];
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return the first chunk whose last event starts after {@code start}, or the last chunk
+     */
+    private int chunkFor(long start) {
+        int low = 0;
+        int high = chunks.length - 1;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            Event[] chunk = chunks[mid];
+            if (chunk[chunk.length - 1].getStartEpochMillis() <= start) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * @return the position in {@code chunk} after every event starting at or before {@code start}
+     */
+    private static int slotAfter(Event[] chunk, long start) {
+        int low = 0;
+        int high = chunk.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (chunk[mid].getStartEpochMillis() <= start) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+}
@@ -0,0 +1,388 @@
+package com.calendar.storage.impl;
+
+import com.calendar.exception.EventStorageException;
+import com.calendar.model.Event;
+import com.calendar.storage.EventStorage;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
+import java.util.function.Consumer;
+
+/**
+ * {@link EventStorage} decorator that keeps the events resident in memory as primitive columns.
+ *
+ * <p>Start and end times are held in parallel {@code long[]} columns sorted by start, and
+ * titles are dictionary-encoded into an {@code int[]} of ids into a shared string table.
+ * A third column holds the running maximum of the end times, which is non-decreasing, so a
+ * range query binary-searches both ends of the candidate range and scans only that.
+ * {@link Event} objects are created only for the events a caller actually receives.</p>
+ *
+ * <p>The columns are loaded once from the delegate, streamed through
+ * {@link EventStorage#forEachEvent(Consumer)}, so this storage must be the only writer. Every
+ * change publishes a new immutable set of columns; readers never lock. Writes pass the delegate
+ * a list view over the new columns, which creates events only while it is being iterated.</p>
+ */
+public class ColumnarEventStorage implements EventStorage {
+
+    private static final Logger log = LoggerFactory.getLogger(ColumnarEventStorage.class);
+
+    private static final int NO_TITLE = -1;
+
+    private final EventStorage delegate;
+
+    private volatile Columns columns;
+    private volatile long version;
+
+    /** Title table shared by all columns; only ever appended to, under this storage's lock. */
+    private String[] titles = new String[16];
+    private int titleCount;
+    private Map<String, Integer> titleIds = new HashMap<>();
+
+    public ColumnarEventStorage(EventStorage delegate) {
+        this.delegate = delegate;
+    }
+
+    /**
+     * Returns a read-only list view over the current columns. Events are created on access.
+     */
+    @Override
+    public List<Event> loadEvents() throws EventStorageException {
+        return columns().view;
+    }
+
+    @Override
+    public List<Event> findOverlapping(long startMillis, long endMillis) throws EventStorageException {
+        Columns current = columns();
+        int from = current.firstEndingAfter(startMillis);
+        int to = current.firstStartingAtOrAfter(endMillis);
+        List<Event> result = new ArrayList<>(Math.max(0, to - from));
+        for (int i = from; i < to; i++) {
+            if (current.ends[i] > startMillis) {
+                result.add(current.event(i));
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public void forEachEvent(Consumer<? super Event> action) throws EventStorageException {
+        Columns current = columns();
+        for (int i = 0; i < current.size; i++) {
+            action.accept(current.event(i));
+        }
+    }
+
+    @Override
+    public synchronized void saveEvents(List<Event> events) throws EventStorageException {
+        delegate.saveEvents(events);
+        resetTitles();
+        ColumnsBuilder builder = new ColumnsBuilder(events.size());
+        for (Event e : events) {
+            builder.add(e);
+        }
+        columns = builder.build();
+        version++;
+    }
+
+    /**
+     * Inserts the event into a copy of the columns at its start-time position and saves the
+     * result through the delegate before publishing it.
+     */
+    @Override
+    public synchronized void insertEvent(Event event) throws EventStorageException {
+        Columns current = columns();
+        Columns updated = current.insert(current.firstStartingAtOrAfter(event.getStartEpochMillis() + 1),
+                event.getStartEpochMillis(), event.getEndEpochMillis(), titleId(event.getTitle()), titles);
+        delegate.saveEvents(updated.view);
+        columns = updated;
+        version++;
+    }
+
+    /**
+     * Merges the events, sorted by start, into one copy of the columns and saves the result
+     * through the delegate once before publishing it. Each event goes after the stored events
+     * starting at or before it, as with {@link #insertEvent(Event)}.
+     */
+    @Override
+    public synchronized void insertEvents(List<Event> events) throws EventStorageException {
+        if (events.isEmpty()) {
+            return;
+        }
+        Columns current = columns();
+        List<Event> sorted = new ArrayList<>(events);
+        sorted.sort(Comparator.comparingLong(Event::getStartEpochMillis));
+        int[] addedTitleIds = new int[sorted.size()];
+        for (int i = 0; i < addedTitleIds.length; i++) {
+            addedTitleIds[i] = titleId(sorted.get(i).getTitle());
+        }
+        Columns updated = current.merge(sorted, addedTitleIds, titles);
+        delegate.saveEvents(updated.view);
+        columns = updated;
+        version++;
+    }
+
+    /**
+     * Counts the writes made through this object; changes the delegate picks up by itself are
+     * not counted.
+     */
+    @Override
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * @return the number of distinct titles in the string table
+     */
+    public synchronized int distinctTitles() {
+        columns();
+        return titleCount;
+    }
+
+    private Columns columns() {
+        Columns current = columns;
+        if (current == null) {
+            synchronized (this) {
+                current = columns;
+                if (current == null) {
+                    current = load();
+                    columns = current;
+                }
+            }
+        }
+        return current;
+    }
+
+    private Columns load() {
+        resetTitles();
+        ColumnsBuilder builder = new ColumnsBuilder(16);
+        delegate.forEachEvent(builder::add);
+        Columns loaded = builder.build();
+        log.info("Loaded events into columns [events={} titles={}]", loaded.size, titleCount);
+        return loaded;
+    }
+
+    private void resetTitles() {
+        titles = new String[16];
+        titleCount = 0;
+        titleIds = new HashMap<>();
+    }
+
+    private int titleId(String title) {
+        if (title == null) {
+            return NO_TITLE;
+        }
+        Integer id = titleIds.get(title);
+        if (id == null) {
+            if (titleCount == titles.length) {
+                titles = Arrays.copyOf(titles, titleCount * 2);
+            }
+            id = titleCount;
+            titles[titleCount++] = title;
+            titleIds.put(title, id);
+        }
+        return id;
+    }
+
+    /**
+     * Collects events into growable columns and sorts them by start once at the end.
+     */
+    private final class ColumnsBuilder {
+        private long[] starts;
+        private long[] ends;
+        private int[] titleIdColumn;
+        private int size;
+        private boolean sorted = true;
+
+        ColumnsBuilder(int capacity) {
+            int initial = Math.max(capacity, 16);
+            starts = new long[initial];
+            ends = new long[initial];
+            titleIdColumn = new int[initial];
+        }
+
+        void add(Event event) {
+            if (size == starts.length) {
+                starts = Arrays.copyOf(starts, size * 2);
+                ends = Arrays.copyOf(ends, size * 2);
+                titleIdColumn = Arrays.copyOf(titleIdColumn, size * 2);
+            }
+            if (size > 0 && event.getStartEpochMillis() < starts[size - 1]) {
+                sorted = false;
+            }
+            starts[size] = event.getStartEpochMillis();
+            ends[size] = event.getEndEpochMillis();
+            titleIdColumn[size] = titleId(event.getTitle());
+            size++;
+        }
+
+        Columns build() {
+            long[] s = Arrays.copyOf(starts, size);
+            long[] e = Arrays.copyOf(ends, size);
+            int[] t = Arrays.copyOf(titleIdColumn, size);
+            if (!sorted) {
+                // Rare (files are written sorted), so a boxed permutation sort is good enough.
+                Integer[] order = new Integer[size];
+                for (int i = 0; i < size; i++) {
+                    order[i] = i;
+                }
+                Arrays.sort(order, Comparator.comparingLong(i -> starts[i]));
+                for (int i = 0; i < size; i++) {
+                    s[i] = starts[order[i]];
+                    e[i] = ends[order[i]];
+                    t[i] = titleIdColumn[order[i]];
+                }
+            }
+            return new Columns(s, e, t, size, titles);
+        }
+    }
+
+    /**
+     * One immutable version of the columns.
+     */
+    private static final class Columns {
+        final long[] starts;
+        final long[] ends;
+        final long[] maxEnds;
+        final int[] titleIds;
+        final int size;
+        final String[] titles;
+        final List<Event> view;
+
+        Columns(long[] starts, long[] ends, int[] titleIds, int size, String[] titles) {
+            this.starts = starts;
+            this.ends = ends;
+            this.titleIds = titleIds;
+            this.size = size;
+            this.titles = titles;
+            this.maxEnds = new long[size];
+            long max = Long.MIN_VALUE;
+            for (int i = 0; i < size; i++) {
+                max = Math.max(max, ends[i]);
+                maxEnds[i] = max;
+            }
+            this.view = new ColumnsView(this);
+        }
+
+        Event event(int i) {
+            int id = titleIds[i];
+            return new Event(id == NO_TITLE ? null : titles[id], starts[i], ends[i]);
+        }
+
+        Columns insert(int at, long start, long end, int titleId, String[] currentTitles) {
+            return new Columns(
+                    insertAt(starts, size, at, start),
+                    insertAt(ends, size, at, end),
+                    insertAt(titleIds, size, at, titleId),
+                    size + 1,
+                    currentTitles);
+        }
+
+        /**
+         * @param added events sorted by start, each placed after the events starting at or
+         *              before it
+         */
+        Columns merge(List<Event> added, int[] addedTitleIds, String[] currentTitles) {
+            int mergedSize = size + added.size();
+            long[] s = new long[mergedSize];
+            long[] e = new long[mergedSize];
+            int[] t = new int[mergedSize];
+            int i = 0;
+            int j = 0;
+            for (int k = 0; k < mergedSize; k++) {
+                if (j == added.size() || (i < size && starts[i] <= added.get(j).getStartEpochMillis())) {
+                    s[k] = starts[i];
+                    e[k] = ends[i];
+                    t[k] = titleIds[i];
+                    i++;
+                } else {
+                    Event event = added.get(j);
+                    s[k] = event.getStartEpochMillis();
+                    e[k] = event.getEndEpochMillis();
+                    t[k] = addedTitleIds[j];
+                    j++;
+                }
+            }
+            return new Columns(s, e, t, mergedSize, currentTitles);
+        }
+
+        /**
+         * @return the index of the first event whose start is at or after {@code millis}
+         */
+        int firstStartingAtOrAfter(long millis) {
+            int low = 0;
+            int high = size;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (starts[mid] < millis) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+
+        /**
+         * @return the index of the first event such that it or an earlier event ends after
+         *         {@code millis}; no event before it can overlap a window starting there
+         */
+        int firstEndingAfter(long millis) {
+            int low = 0;
+            int high = size;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (maxEnds[mid] <= millis) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+
+        private static long[] insertAt(long[] column, int size, int at, long value) {
+            long[] result = new long[size + 1];
+            System.arraycopy(column, 0, result, 0, at);
+            result[at] = value;
+            System.arraycopy(column, at, result, at + 1, size - at);
+            return result;
+        }
+
+        private static int[] insertAt(int[] column, int size, int at, int value) {
+            int[] result = new int[size + 1];
+            System.arraycopy(column, 0, result, 0, at);
+            result[at] = value;
+            System.arraycopy(column, at, result, at + 1, size - at);
+            return result;
+        }
+    }
+
+    private static final class ColumnsView extends AbstractList<Event> implements RandomAccess {
+        private final Columns columns;
+
+        ColumnsView(Columns columns) {
+            this.columns = columns;
+        }
+
+        @Override
+        public Event get(int index) {
+            if (index < 0 || index >= columns.size) {
+                throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + columns.size);
+            }
+            return columns.event(index);
+        }
+
+        @Override
+        public int size() {
+            return columns.size;
+        }
+    }
+}
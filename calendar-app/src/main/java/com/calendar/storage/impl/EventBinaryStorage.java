@@ -0,0 +1,635 @@
+package com.calendar.storage.impl;
+
+import com.calendar.exception.EventStorageException;
+import com.calendar.model.Event;
+import com.calendar.model.EventView;
+import com.calendar.storage.EventStorage;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.zip.CRC32;
+
+/**
+ * Compact binary implementation of {@link EventStorage} read through a memory-mapped file.
+ *
+ * <p>Events are stored sorted by start time in fixed-size records, with titles kept in a
+ * separate string heap:</p>
+ * <pre>
+ *   header : int magic, int formatVersion, int count, int heapSize, long maxDurationMillis
+ *   record : long startEpochMillis, long endEpochMillis, int titleOffset, int titleLength
+ *   heap   : UTF-8 title bytes
+ *   append : int payloadLength, int crc32(payload), payload
+ *   payload: long startEpochMillis, long endEpochMillis, UTF-8 title bytes
+ * </pre>
+ *
+ * <p>After a restart the file is only mapped, not parsed. {@link #scanOverlapping(long, long,
+ * Predicate)} binary-searches the records in place (the longest event duration bounds how far
+ * back an overlapping event can start) and passes a flyweight view over the matches, so only
+ * the events a caller keeps are decoded.</p>
+ *
+ * <p>{@link #insertEvents(List)} appends the new events after the heap with a single write
+ * and keeps them, sorted, in memory next to the mapping; neither the records nor the heap are
+ * read or rewritten. Appended records are checksummed like those of {@link EventLogStorage}; on
+ * the next start everything from the first incomplete or damaged one on is discarded. Once more than
+ * {@link #MAX_APPENDED} events have been appended, the next insert folds them into the sorted
+ * records by replacing the whole file atomically. The fold copies the stored records and heap
+ * from the mapping instead of decoding them, so at no point are all events on the Java heap. JSON
+ * remains available through {@link #importJson(String)} and {@link #exportJson(String)}.</p>
+ */
+public class EventBinaryStorage implements EventStorage {
+
+    private static final Logger log = LoggerFactory.getLogger(EventBinaryStorage.class);
+
+    private static final int MAGIC = 0x43414C42;  // "CALB"
+    private static final int FORMAT_VERSION = 2;
+    private static final int HEADER_SIZE = 4 + 4 + 4 + 4 + 8;
+    private static final int RECORD_SIZE = 8 + 8 + 4 + 4;
+    private static final int APPENDED_HEADER_SIZE = 4 + 4;
+    private static final int APPENDED_FIXED_PAYLOAD_SIZE = 8 + 8;
+
+    private static final int WRITE_BUFFER_SIZE = 64 * 1024;
+
+    /** Appended events kept in memory before the next insert rewrites the file. */
+    static final int MAX_APPENDED = 4096;
+
+    private final Path file;
+
+    private volatile Mapping mapping;
+    private volatile long version;
+
+    public EventBinaryStorage(String filePath) {
+        this.file = Paths.get(filePath);
+    }
+
+    /**
+     * Decodes every event from the mapped file. The list is decoded once per file version
+     * and then shared, read-only, between callers.
+     */
+    @Override
+    public List<Event> loadEvents() throws EventStorageException {
+        Mapping current = mapping();
+        List<Event> events = current.decoded;
+        if (events == null) {
+            List<Event> decoded = new ArrayList<>(current.count + current.appended.size());
+            for (int i = 0; i < current.count; i++) {
+                decoded.add(current.event(i));
+            }
+            if (!current.appended.isEmpty()) {
+                decoded = EventStorage.withEvents(decoded, current.appended);
+            }
+            events = Collections.unmodifiableList(decoded);
+            current.decoded = events;
+        }
+        return events;
+    }
+
+    /**
+     * Finds the events overlapping {@code [startMillis, endMillis)} directly in the mapped file.
+     *
+     * @return the overlapping events ordered by start time
+     */
+    @Override
+    public List<Event> findOverlapping(long startMillis, long endMillis) throws EventStorageException {
+        List<Event> result = new ArrayList<>();
+        scanOverlapping(startMillis, endMillis, view -> result.add(view.toEvent()));
+        return result;
+    }
+
+    /**
+     * Merges the matching records of the mapped file with the matching appended events. The
+     * records are passed as one flyweight view that decodes its title only when asked.
+     */
+    @Override
+    public void scanOverlapping(long startMillis, long endMillis, Predicate<? super EventView> visitor)
+            throws EventStorageException {
+        Mapping current = mapping();
+        long earliestStart = startMillis < Long.MIN_VALUE + current.maxDuration
+                ? Long.MIN_VALUE : startMillis - current.maxDuration;
+        List<Event> appended = current.appended;
+        int i = current.firstStartAtOrAfter(earliestStart);
+        int j = firstStartAtOrAfter(appended, earliestStart);
+        Flyweight view = new Flyweight(current);
+        while (true) {
+            long recordStart = i < current.count ? current.start(i) : Long.MAX_VALUE;
+            long appendedStart = j < appended.size() ? appended.get(j).getStartEpochMillis() : Long.MAX_VALUE;
+            if (Math.min(recordStart, appendedStart) >= endMillis) {
+                return;
+            }
+            if (recordStart <= appendedStart) {
+                if (current.end(i) > startMillis && !visitor.test(view.moveTo(i))) {
+                    return;
+                }
+                i++;
+            } else {
+                Event e = appended.get(j);
+                if (e.getEndEpochMillis() > startMillis && !visitor.test(e)) {
+                    return;
+                }
+                j++;
+            }
+        }
+    }
+
+    /**
+     * Decodes records one at a time straight from the mapped file, followed by the appended
+     * events.
+     */
+    @Override
+    public void forEachEvent(Consumer<? super Event> action) throws EventStorageException {
+        Mapping current = mapping();
+        List<Event> decoded = current.decoded;
+        if (decoded != null) {
+            decoded.forEach(action);
+            return;
+        }
+        for (int i = 0; i < current.count; i++) {
+            action.accept(current.event(i));
+        }
+        current.appended.forEach(action);
+    }
+
+    @Override
+    public synchronized void saveEvents(List<Event> events) throws EventStorageException {
+        List<Event> sorted = new ArrayList<>(events);
+        sorted.sort(Comparator.comparingLong(Event::getStartEpochMillis));
+        try {
+            ByteBuffer content = encode(sorted);
+            writeAtomically(channel -> writeFully(channel, content));
+            mapping = map();
+        } catch (IOException e) {
+            mapping = null;
+            throw new EventStorageException("Failed to save events to binary file", e);
+        } finally {
+            version++;
+        }
+    }
+
+    @Override
+    public void insertEvent(Event event) throws EventStorageException {
+        insertEvents(Collections.singletonList(event));
+    }
+
+    /**
+     * Appends the events to the end of the file with one write. A file that does not exist
+     * yet is created instead, and once {@link #MAX_APPENDED} events have been appended, the
+     * file is rewritten with all of them folded into the records.
+     */
+    @Override
+    public synchronized void insertEvents(List<Event> events) throws EventStorageException {
+        if (events.isEmpty()) {
+            return;
+        }
+        Mapping current = mapping();
+        if (current.length == 0) {
+            saveEvents(events);
+            return;
+        }
+        try {
+            if (current.appended.size() + events.size() > MAX_APPENDED) {
+                fold(current, events);
+                mapping = map();
+            } else {
+                append(current.length, encodeAppended(events));
+                mapping = current.withAppended(events);
+            }
+        } catch (IOException e) {
+            mapping = null;
+            throw new EventStorageException("Failed to add events to binary file", e);
+        } finally {
+            version++;
+        }
+    }
+
+    /**
+     * Counts the saves and inserts made through this object, including failed ones.
+     */
+    @Override
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * Replaces the stored events with the contents of a JSON events file.
+     *
+     * @param jsonPath path of a JSON array of events
+     * @return the number of imported events
+     */
+    public int importJson(String jsonPath) throws EventStorageException {
+        List<Event> events = new EventFileStorage(jsonPath).loadEvents();
+        saveEvents(events);
+        log.info("Imported events from JSON [from={} to={} events={}]", jsonPath, file, events.size());
+        return events.size();
+    }
+
+    /**
+     * Writes the stored events to a JSON events file.
+     *
+     * @param jsonPath path of the JSON file to write
+     */
+    public void exportJson(String jsonPath) throws EventStorageException {
+        new EventFileStorage(jsonPath).saveEvents(loadEvents());
+    }
+
+    private Mapping mapping() {
+        Mapping current = mapping;
+        if (current == null) {
+            synchronized (this) {
+                current = mapping;
+                if (current == null) {
+                    try {
+                        current = map();
+                    } catch (IOException e) {
+                        throw new EventStorageException("Failed to load events from binary file", e);
+                    }
+                    mapping = current;
+                }
+            }
+        }
+        return current;
+    }
+
+    private Mapping map() throws IOException {
+        if (!Files.exists(file)) {
+            return Mapping.EMPTY;
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            return Mapping.of(buffer, file);
+        }
+    }
+
+    private static ByteBuffer encode(List<Event> sorted) {
+        List<byte[]> titles = new ArrayList<>(sorted.size());
+        int heapSize = 0;
+        long maxDuration = 0L;
+        for (Event e : sorted) {
+            byte[] title = titleBytes(e);
+            titles.add(title);
+            heapSize += title.length;
+            maxDuration = Math.max(maxDuration, e.getEndEpochMillis() - e.getStartEpochMillis());
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_SIZE + sorted.size() * RECORD_SIZE + heapSize);
+        buffer.putInt(MAGIC).putInt(FORMAT_VERSION).putInt(sorted.size()).putInt(heapSize).putLong(maxDuration);
+        int titleOffset = 0;
+        for (int i = 0; i < sorted.size(); i++) {
+            Event e = sorted.get(i);
+            buffer.putLong(e.getStartEpochMillis()).putLong(e.getEndEpochMillis())
+                    .putInt(titleOffset).putInt(titles.get(i).length);
+            titleOffset += titles.get(i).length;
+        }
+        for (byte[] title : titles) {
+            buffer.put(title);
+        }
+        ((Buffer) buffer).flip();
+        return buffer;
+    }
+
+    private static ByteBuffer encodeAppended(List<Event> events) {
+        List<byte[]> titles = new ArrayList<>(events.size());
+        int size = 0;
+        for (Event e : events) {
+            byte[] title = titleBytes(e);
+            titles.add(title);
+            size += APPENDED_HEADER_SIZE + APPENDED_FIXED_PAYLOAD_SIZE + title.length;
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(size);
+        for (int i = 0; i < events.size(); i++) {
+            Event e = events.get(i);
+            ByteBuffer payload = ByteBuffer.allocate(APPENDED_FIXED_PAYLOAD_SIZE + titles.get(i).length);
+            payload.putLong(e.getStartEpochMillis()).putLong(e.getEndEpochMillis()).put(titles.get(i));
+            byte[] bytes = payload.array();
+            buffer.putInt(bytes.length).putInt(crc32(bytes)).put(bytes);
+        }
+        ((Buffer) buffer).flip();
+        return buffer;
+    }
+
+    /**
+     * Writes {@code content} at {@code offset}, cutting off whatever a torn earlier append
+     * left behind it.
+     */
+    private void append(long offset, ByteBuffer content) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            if (channel.size() > offset) {
+                channel.truncate(offset);
+            }
+            long position = offset;
+            while (content.hasRemaining()) {
+                position += channel.write(content, position);
+            }
+            channel.force(false);
+        }
+    }
+
+    private static int crc32(byte[] bytes) {
+        CRC32 crc = new CRC32();
+        crc.update(bytes, 0, bytes.length);
+        return (int) crc.getValue();
+    }
+
+    /**
+     * @return the index of the first event in {@code sorted} starting at or after {@code millis}
+     */
+    private static int firstStartAtOrAfter(List<Event> sorted, long millis) {
+        int low = 0;
+        int high = sorted.size();
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (sorted.get(mid).getStartEpochMillis() < millis) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Writes a new file with the records of {@code current}, its appended events and
+     * {@code events} merged in start order. Stored records are copied as they are and the
+     * heap is copied in one piece with the new titles after it, so their title offsets stay
+     * valid.
+     */
+    private void fold(Mapping current, List<Event> events) throws IOException {
+        List<Event> added = EventStorage.withEvents(current.appended, events);
+        List<byte[]> titles = new ArrayList<>(added.size());
+        int addedHeapSize = 0;
+        long longest = current.maxDuration;
+        for (Event e : added) {
+            byte[] title = titleBytes(e);
+            titles.add(title);
+            addedHeapSize += title.length;
+            longest = Math.max(longest, e.getEndEpochMillis() - e.getStartEpochMillis());
+        }
+        int heapSize = current.heapSize + addedHeapSize;
+        long maxDuration = longest;
+        writeAtomically(channel -> {
+            ByteBuffer out = ByteBuffer.allocate(WRITE_BUFFER_SIZE);
+            out.putInt(MAGIC).putInt(FORMAT_VERSION).putInt(current.count + added.size()).putInt(heapSize)
+                    .putLong(maxDuration);
+            int titleOffset = current.heapSize;
+            int i = 0;
+            int j = 0;
+            while (i < current.count || j < added.size()) {
+                if (out.remaining() < RECORD_SIZE) {
+                    flush(channel, out);
+                }
+                boolean record = j == added.size()
+                        || (i < current.count && current.start(i) <= added.get(j).getStartEpochMillis());
+                if (record) {
+                    int offset = HEADER_SIZE + i * RECORD_SIZE;
+                    out.putLong(current.buffer.getLong(offset)).putLong(current.buffer.getLong(offset + 8))
+                            .putInt(current.buffer.getInt(offset + 16)).putInt(current.buffer.getInt(offset + 20));
+                    i++;
+                } else {
+                    Event e = added.get(j);
+                    out.putLong(e.getStartEpochMillis()).putLong(e.getEndEpochMillis())
+                            .putInt(titleOffset).putInt(titles.get(j).length);
+                    titleOffset += titles.get(j).length;
+                    j++;
+                }
+            }
+            flush(channel, out);
+            ByteBuffer heap = current.buffer.duplicate();
+            ((Buffer) heap).position(current.heapStart);
+            ((Buffer) heap).limit(current.heapStart + current.heapSize);
+            writeFully(channel, heap);
+            for (byte[] title : titles) {
+                if (out.remaining() < title.length) {
+                    flush(channel, out);
+                }
+                if (out.remaining() < title.length) {
+                    writeFully(channel, ByteBuffer.wrap(title));
+                } else {
+                    out.put(title);
+                }
+            }
+            flush(channel, out);
+        });
+        log.debug("Folded appended events into binary records [file={} events={}]", file,
+                current.count + added.size());
+    }
+
+    private void writeAtomically(Content content) throws IOException {
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            content.writeTo(channel);
+            channel.force(true);
+        }
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static void flush(FileChannel channel, ByteBuffer buffer) throws IOException {
+        ((Buffer) buffer).flip();
+        writeFully(channel, buffer);
+        ((Buffer) buffer).clear();
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer content) throws IOException {
+        while (content.hasRemaining()) {
+            channel.write(content);
+        }
+    }
+
+    private static byte[] titleBytes(Event event) {
+        return event.getTitle() == null ? new byte[0] : event.getTitle().getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Writes the content of a new file.
+     */
+    private interface Content {
+        void writeTo(FileChannel channel) throws IOException;
+    }
+
+    /**
+     * A read-only view of one version of the file: the mapped records and heap, plus the
+     * appended events sorted by start time. Only absolute reads are used, so a mapping can be
+     * shared between threads.
+     */
+    private static final class Mapping {
+
+        static final Mapping EMPTY = new Mapping(ByteBuffer.allocate(0), 0, 0L, 0, 0, 0L,
+                Collections.<Event>emptyList());
+
+        final ByteBuffer buffer;
+        final int count;
+        /** Longest duration of a record or an appended event. */
+        final long maxDuration;
+        final int heapStart;
+        final int heapSize;
+        /** Length of the file up to the end of the last complete append. */
+        final long length;
+        final List<Event> appended;
+        volatile List<Event> decoded;
+
+        private Mapping(ByteBuffer buffer, int count, long maxDuration, int heapStart, int heapSize, long length,
+                        List<Event> appended) {
+            this.buffer = buffer;
+            this.count = count;
+            this.maxDuration = maxDuration;
+            this.heapStart = heapStart;
+            this.heapSize = heapSize;
+            this.length = length;
+            this.appended = appended;
+        }
+
+        static Mapping of(ByteBuffer buffer, Path file) throws IOException {
+            if (buffer.capacity() < HEADER_SIZE || buffer.getInt(0) != MAGIC) {
+                throw new IOException("Not a binary events file: " + file);
+            }
+            int version = buffer.getInt(4);
+            if (version != FORMAT_VERSION && version != 1) {
+                throw new IOException("Unsupported binary events format version " + version + " in " + file);
+            }
+            int count = buffer.getInt(8);
+            int heapSize = buffer.getInt(12);
+            long maxDuration = buffer.getLong(16);
+            int heapStart = HEADER_SIZE + count * RECORD_SIZE;
+            long heapEnd = (long) heapStart + heapSize;
+            if (count < 0 || heapSize < 0 || heapEnd > buffer.capacity()
+                    || (version == 1 && heapEnd != buffer.capacity())) {
+                throw new IOException("Binary events file is truncated or damaged: " + file);
+            }
+            List<Event> appended = new ArrayList<>();
+            int position = (int) heapEnd;
+            while (buffer.capacity() - position >= APPENDED_HEADER_SIZE) {
+                int length = buffer.getInt(position);
+                int checksum = buffer.getInt(position + 4);
+                if (length < APPENDED_FIXED_PAYLOAD_SIZE
+                        || buffer.capacity() - position - APPENDED_HEADER_SIZE < length) {
+                    break;
+                }
+                byte[] payload = new byte[length];
+                ByteBuffer view = buffer.duplicate();
+                ((Buffer) view).position(position + APPENDED_HEADER_SIZE);
+                view.get(payload);
+                if (crc32(payload) != checksum) {
+                    break;
+                }
+                ByteBuffer record = ByteBuffer.wrap(payload);
+                String title = new String(payload, APPENDED_FIXED_PAYLOAD_SIZE, length - APPENDED_FIXED_PAYLOAD_SIZE,
+                        StandardCharsets.UTF_8);
+                Event e = new Event(title, record.getLong(0), record.getLong(8));
+                appended.add(e);
+                maxDuration = Math.max(maxDuration, e.getEndEpochMillis() - e.getStartEpochMillis());
+                position += APPENDED_HEADER_SIZE + length;
+            }
+            if (position < buffer.capacity()) {
+                log.warn("Ignoring torn or damaged append at end of binary events file [file={} offset={} bytes={}]",
+                        file, position, buffer.capacity() - position);
+            }
+            appended.sort(Comparator.comparingLong(Event::getStartEpochMillis));
+            return new Mapping(buffer, count, maxDuration, heapStart, heapSize, position, appended);
+        }
+
+        /**
+         * @return a mapping of the same records with {@code events} appended after this one's
+         *         appended events
+         */
+        Mapping withAppended(List<Event> events) {
+            long added = 0L;
+            long duration = maxDuration;
+            for (Event e : events) {
+                byte[] title = titleBytes(e);
+                added += APPENDED_HEADER_SIZE + APPENDED_FIXED_PAYLOAD_SIZE + title.length;
+                duration = Math.max(duration, e.getEndEpochMillis() - e.getStartEpochMillis());
+            }
+            return new Mapping(buffer, count, duration, heapStart, heapSize, length + added,
+                    Collections.unmodifiableList(EventStorage.withEvents(appended, events)));
+        }
+
+        long start(int i) {
+            return buffer.getLong(HEADER_SIZE + i * RECORD_SIZE);
+        }
+
+        long end(int i) {
+            return buffer.getLong(HEADER_SIZE + i * RECORD_SIZE + 8);
+        }
+
+        String title(int i) {
+            int record = HEADER_SIZE + i * RECORD_SIZE;
+            return decode(buffer, heapStart + buffer.getInt(record + 16), buffer.getInt(record + 20));
+        }
+
+        Event event(int i) {
+            return new Event(title(i), start(i), end(i));
+        }
+
+        private static String decode(ByteBuffer buffer, int offset, int length) {
+            byte[] bytes = new byte[length];
+            ByteBuffer view = buffer.duplicate();
+            ((Buffer) view).position(offset);
+            view.get(bytes);
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+
+        /**
+         * @return the index of the first record starting at or after {@code millis}
+         */
+        int firstStartAtOrAfter(long millis) {
+            int low = 0;
+            int high = count;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (start(mid) < millis) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+    }
+
+    /**
+     * A single view moved from record to record during a scan.
+     */
+    private static final class Flyweight implements EventView {
+
+        private final Mapping mapping;
+        private int index;
+
+        Flyweight(Mapping mapping) {
+            this.mapping = mapping;
+        }
+
+        Flyweight moveTo(int index) {
+            this.index = index;
+            return this;
+        }
+
+        @Override
+        public String getTitle() {
+            return mapping.title(index);
+        }
+
+        @Override
+        public long getStartEpochMillis() {
+            return mapping.start(index);
+        }
+
+        @Override
+        public long getEndEpochMillis() {
+            return mapping.end(index);
+        }
+    }
+}
@@ -4,19 +4,54 @@ import com.calendar.exception.EventStorageException;
 import com.calendar.model.Event;
 import com.calendar.storage.EventStorage;
 import com.calendar.util.JsonUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
-import java.io.File;
+import java.io.BufferedInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
-import java.util.Collections;
+import java.util.Comparator;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
 
+/**
+ * JSON file implementation of {@link EventStorage}.
+ *
+ * <p>Saves never write over the live file. The new content is written to a temporary file
+ * and forced to disk, the current file is linked (or copied) to the previous generation
+ * ({@code <file>.prev}), and the temporary file is atomically renamed over the current one,
+ * so the live file is never missing. The checksum file ({@code <file>.sum}) holds the CRC32
+ * and length of the current generation on its first line and of the previous one on its
+ * second, and is replaced before the data file: whichever of the two data files a crash leaves
+ * in place, one of them matches. If the current file is missing, fails its checksum or cannot
+ * be parsed, loading falls back to the previous generation.</p>
+ */
 public class EventFileStorage implements EventStorage {
 
+    private static final Logger log = LoggerFactory.getLogger(EventFileStorage.class);
+
+    private static final String PREVIOUS_SUFFIX = ".prev";
+    private static final String CHECKSUM_SUFFIX = ".sum";
+    private static final String TEMP_SUFFIX = ".tmp";
+    private static final int READ_BUFFER_SIZE = 64 * 1024;
+
     private final String filePath;
 
+    /** Counts saves, including failed ones: they may have replaced some of the files. */
+    private final AtomicLong version = new AtomicLong();
+
     public EventFileStorage(String filePath) {
 
         this.filePath = filePath;
@@ -24,31 +59,223 @@ public class EventFileStorage implements EventStorage {
 
     @Override
     public List<Event> loadEvents() throws EventStorageException {
+        Path current = Paths.get(filePath);
+        Path previous = Paths.get(filePath + PREVIOUS_SUFFIX);
         try {
-            File file = new File(filePath);
-            if (!file.exists()) {
-                return new ArrayList<>();
-            }
-            String content = new String(Files.readAllBytes(Paths.get(filePath)));
-            if (content.trim().isEmpty()) {
-                return new ArrayList<>();
-            }
-            Event[] events = JsonUtil.fromJson(content, Event[].class);
-            List<Event> list = new ArrayList<>();
-            Collections.addAll(list, events);
-            return list;
+            if (Files.exists(current)) {
+                return readGeneration(current, 0);
+            }
+        } catch (IOException | com.calendar.exception.JsonProcessingException e) {
+            if (!Files.exists(previous)) {
+                throw new EventStorageException("Failed to load events from file", e);
+            }
+            log.warn("Events file is damaged, falling back to previous generation [file={}]", current, e);
+        }
+        if (!Files.exists(previous)) {
+            return new ArrayList<>();
+        }
+        try {
+            return readGeneration(previous, 1);
         } catch (IOException | com.calendar.exception.JsonProcessingException e) {
             throw new EventStorageException("Failed to load events from file", e);
         }
     }
 
+    /**
+     * Streams the current generation and keeps only the overlapping events, so the whole
+     * file is never materialized. If the current generation cannot be read, falls back to
+     * {@link #loadEvents()}, which handles the previous generation.
+     */
+    @Override
+    public List<Event> findOverlapping(long startMillis, long endMillis) throws EventStorageException {
+        Path current = Paths.get(filePath);
+        if (Files.exists(current)) {
+            List<Event> result = new ArrayList<>();
+            try {
+                readGeneration(current, 0, e -> {
+                    if (e.getStartEpochMillis() < endMillis && e.getEndEpochMillis() > startMillis) {
+                        result.add(e);
+                    }
+                });
+                result.sort(Comparator.comparingLong(Event::getStartEpochMillis));
+                return result;
+            } catch (IOException | com.calendar.exception.JsonProcessingException e) {
+                log.warn("Streaming read failed, loading all generations [file={}]", current, e);
+            }
+        }
+        return EventStorage.super.findOverlapping(startMillis, endMillis);
+    }
+
     @Override
     public void saveEvents(List<Event> events) throws EventStorageException {
+        Path current = Paths.get(filePath);
+        Path previous = Paths.get(filePath + PREVIOUS_SUFFIX);
+        Path temp = Paths.get(filePath + TEMP_SUFFIX);
+        Path checksum = checksumFile(current);
         try {
-            String json = JsonUtil.toJson(events);
-            Files.write(Paths.get(filePath), json.getBytes());
+            byte[] json = JsonUtil.toJson(events).getBytes(StandardCharsets.UTF_8);
+            writeDurably(temp, json);
+
+            String sums = Checksum.of(json).toString();
+            if (Files.exists(current)) {
+                keepAsPrevious(current, previous);
+                String currentSum = recordedChecksum(current, 0);
+                if (currentSum != null) {
+                    sums += "\n" + currentSum;
+                }
+            }
+            Path checksumTemp = Paths.get(filePath + CHECKSUM_SUFFIX + TEMP_SUFFIX);
+            writeDurably(checksumTemp, sums.getBytes(StandardCharsets.UTF_8));
+            move(checksumTemp, checksum);
+            move(temp, current);
+            syncDirectory(current);
         } catch (IOException e) {
             throw new EventStorageException("Failed to save events to file", e);
+        } finally {
+            version.incrementAndGet();
+        }
+    }
+
+    /**
+     * Counts the saves made through this object; changes made to the file by others are not
+     * counted.
+     */
+    @Override
+    public long getVersion() {
+        return version.get();
+    }
+
+    /**
+     * Returns the recorded checksum of the current generation without reading the events,
+     * so callers can cheaply tell whether the file changed.
+     *
+     * @return the checksum, or {@code null} if the file has none
+     */
+    String currentChecksum() throws IOException {
+        return recordedChecksum(Paths.get(filePath), 0);
+    }
+
+    /**
+     * Streams one generation straight into the result list, computing its checksum on the
+     * way, so the file content is never held in memory as bytes or a String.
+     */
+    private List<Event> readGeneration(Path file, int generation) throws IOException {
+        List<Event> events = new ArrayList<>();
+        readGeneration(file, generation, events::add);
+        return events;
+    }
+
+    /**
+     * Streams one generation to {@code consumer}. The checksum is only verified once the
+     * whole file has been read, so the consumer must not publish anything before this returns.
+     *
+     * @param generation 0 for the current generation, 1 for the previous one
+     */
+    private void readGeneration(Path file, int generation, Consumer<Event> consumer) throws IOException {
+        long size = Files.size(file);
+        CRC32 crc32 = new CRC32();
+        try (InputStream in = new CheckedInputStream(
+                new BufferedInputStream(Files.newInputStream(file), READ_BUFFER_SIZE), crc32)) {
+            JsonUtil.readArray(in, Event.class, consumer);
+            byte[] rest = new byte[READ_BUFFER_SIZE];
+            while (in.read(rest) >= 0) {
+                // consume trailing whitespace so the checksum covers the whole file
+            }
+        }
+        String expected = recordedChecksum(Paths.get(filePath), generation);
+        if (expected != null) {
+            String actual = new Checksum(crc32.getValue(), size).toString();
+            if (!expected.equals(actual)) {
+                throw new IOException("Checksum mismatch for " + file + " [expected=" + expected + " actual=" + actual + "]");
+            }
+        }
+    }
+
+    private static void writeDurably(Path file, byte[] content) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer buffer = ByteBuffer.wrap(content);
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(true);
+        }
+    }
+
+    /**
+     * Returns the checksum recorded for one generation of {@code current}.
+     *
+     * @param generation 0 for the current generation, 1 for the previous one
+     * @return the checksum, or {@code null} if none is recorded
+     */
+    private static String recordedChecksum(Path current, int generation) throws IOException {
+        Path checksumFile = checksumFile(current);
+        if (!Files.exists(checksumFile)) {
+            return null;
+        }
+        String[] lines = new String(Files.readAllBytes(checksumFile), StandardCharsets.UTF_8).trim().split("\n");
+        return generation < lines.length ? lines[generation].trim() : null;
+    }
+
+    /**
+     * Makes {@code previous} a second name for the current file's content. A hard link costs
+     * nothing; where links are not supported the file is copied.
+     */
+    private static void keepAsPrevious(Path current, Path previous) throws IOException {
+        Path temp = previous.resolveSibling(previous.getFileName() + TEMP_SUFFIX);
+        Files.deleteIfExists(temp);
+        try {
+            Files.createLink(temp, current);
+        } catch (UnsupportedOperationException | IOException e) {
+            Files.copy(current, temp, StandardCopyOption.REPLACE_EXISTING);
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+                channel.force(true);
+            }
+        }
+        move(temp, previous);
+    }
+
+    private static void move(Path source, Path target) throws IOException {
+        Files.move(source, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Forces the directory entry changes made by the renames to disk where the platform allows it.
+     */
+    private static void syncDirectory(Path file) {
+        Path dir = file.toAbsolutePath().getParent();
+        try (FileChannel channel = FileChannel.open(dir, StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException e) {
+            log.trace("Directory sync not supported [dir={}]", dir);
+        }
+    }
+
+    private static Path checksumFile(Path file) {
+        return file.resolveSibling(file.getFileName() + CHECKSUM_SUFFIX);
+    }
+
+    /**
+     * CRC32 and length of a file's content, stored as {@code crc32:<hex> length:<bytes>}.
+     */
+    private static final class Checksum {
+        private final long crc;
+        private final long length;
+
+        private Checksum(long crc, long length) {
+            this.crc = crc;
+            this.length = length;
+        }
+
+        static Checksum of(byte[] bytes) {
+            CRC32 crc32 = new CRC32();
+            crc32.update(bytes, 0, bytes.length);
+            return new Checksum(crc32.getValue(), bytes.length);
+        }
+
+        @Override
+        public String toString() {
+            return "crc32:" + Long.toHexString(crc) + " length:" + length;
         }
     }
 }
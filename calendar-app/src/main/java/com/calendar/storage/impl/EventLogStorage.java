@@ -0,0 +1,410 @@
+package com.calendar.storage.impl;
+
+import com.calendar.exception.EventStorageException;
+import com.calendar.model.Event;
+import com.calendar.storage.EventStorage;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only, write-ahead log implementation of {@link EventStorage}.
+ *
+ * <p>Events are kept resident in memory, sorted by start time, and handed out as a shared,
+ * read-only {@link ChunkedEventList} that is replaced on every change. {@link #insertEvent(Event)}
+ * and {@link #insertEvents(List)} append only the new events to the log as length-prefixed,
+ * CRC32-checksummed records and add them to a copy of the list that shares all chunks but
+ * the ones they land in, so neither the file write nor the in-memory update copies the
+ * calendar. When {@link #saveEvents(List)} is given the current events plus some new ones,
+ * it also appends just the new events, after comparing the two lists. Any other change (e.g.
+ * an event disappearing) is written as a full snapshot.</p>
+ *
+ * <p>On startup the latest snapshot is read and the log is replayed on top of it. A torn
+ * record at the end of the log (e.g. from a crash mid-append) is discarded. Every
+ * {@code snapshotInterval} appended records a new snapshot is written and the log is
+ * restarted, which bounds replay time.</p>
+ *
+ * <p>File layout, shared by the log and the snapshot:</p>
+ * <pre>
+ *   header : int magic, int formatVersion, long generation
+ *   record : int payloadLength, int crc32(payload), payload
+ *   payload: long startEpochMillis, long endEpochMillis, UTF-8 title bytes
+ * </pre>
+ * The snapshot's generation is the last log generation it contains; a log whose generation is
+ * not newer than the snapshot is skipped during replay.
+ */
+public class EventLogStorage implements EventStorage, Closeable {
+
+    private static final Logger log = LoggerFactory.getLogger(EventLogStorage.class);
+
+    public static final int DEFAULT_SNAPSHOT_INTERVAL = 1000;
+
+    private static final int LOG_MAGIC = 0x43414C47;       // "CALG"
+    private static final int SNAPSHOT_MAGIC = 0x43414C53;  // "CALS"
+    private static final int FORMAT_VERSION = 1;
+    private static final int HEADER_SIZE = 4 + 4 + 8;
+    private static final int RECORD_HEADER_SIZE = 4 + 4;
+    private static final int FIXED_PAYLOAD_SIZE = 8 + 8;
+
+    private final Path logFile;
+    private final Path snapshotFile;
+    private final int snapshotInterval;
+
+    private ChunkedEventList events;
+    private FileChannel logChannel;
+    private long generation;
+    private int recordsSinceSnapshot;
+    private volatile long version;
+
+    public EventLogStorage(String logFilePath) {
+        this(logFilePath, DEFAULT_SNAPSHOT_INTERVAL);
+    }
+
+    public EventLogStorage(String logFilePath, int snapshotInterval) {
+        if (snapshotInterval <= 0) {
+            throw new IllegalArgumentException("Snapshot interval must be positive.");
+        }
+        this.logFile = Paths.get(logFilePath);
+        this.snapshotFile = Paths.get(logFilePath + ".snapshot");
+        this.snapshotInterval = snapshotInterval;
+    }
+
+    @Override
+    public synchronized List<Event> loadEvents() throws EventStorageException {
+        open();
+        return events;
+    }
+
+    @Override
+    public synchronized void saveEvents(List<Event> newEvents) throws EventStorageException {
+        open();
+        List<Event> appended = diffAppended(events, newEvents);
+        try {
+            if (appended == null) {
+                writeSnapshot(newEvents);
+            } else if (!appended.isEmpty()) {
+                append(appended);
+                if (recordsSinceSnapshot >= snapshotInterval) {
+                    writeSnapshot(newEvents);
+                }
+            }
+        } catch (IOException e) {
+            // The in-memory state may be ahead of the files now; re-read them on next access.
+            closeQuietly();
+            version++;
+            throw new EventStorageException("Failed to write events to log", e);
+        }
+        events = ChunkedEventList.of(newEvents);
+        version++;
+    }
+
+    /**
+     * Appends a single record for {@code event} without comparing the stored events.
+     */
+    @Override
+    public synchronized void insertEvent(Event event) throws EventStorageException {
+        open();
+        ChunkedEventList updated = events.with(event);
+        try {
+            append(Collections.singletonList(event));
+            if (recordsSinceSnapshot >= snapshotInterval) {
+                writeSnapshot(updated);
+            }
+        } catch (IOException e) {
+            closeQuietly();
+            version++;
+            throw new EventStorageException("Failed to write events to log", e);
+        }
+        events = updated;
+        version++;
+    }
+
+    /**
+     * Appends one record per event in a single write.
+     */
+    @Override
+    public synchronized void insertEvents(List<Event> newEvents) throws EventStorageException {
+        open();
+        ChunkedEventList updated = events.withAll(newEvents);
+        try {
+            append(newEvents);
+            if (recordsSinceSnapshot >= snapshotInterval) {
+                writeSnapshot(updated);
+            }
+        } catch (IOException e) {
+            closeQuietly();
+            version++;
+            throw new EventStorageException("Failed to write events to log", e);
+        }
+        events = updated;
+        version++;
+    }
+
+    /**
+     * Counts the writes made through this object, including failed ones; not synchronized, so
+     * it does not wait for a write in progress.
+     */
+    @Override
+    public long getVersion() {
+        return version;
+    }
+
+    @Override
+    public synchronized void close() {
+        closeQuietly();
+    }
+
+    /**
+     * Returns the events of {@code updated} that are not in {@code current}, or {@code null}
+     * if {@code updated} is not a superset of {@code current} and needs a full snapshot.
+     */
+    private static List<Event> diffAppended(List<Event> current, List<Event> updated) {
+        Map<Event, Integer> remaining = new HashMap<>();
+        for (Event e : current) {
+            remaining.merge(e, 1, Integer::sum);
+        }
+        List<Event> appended = new ArrayList<>();
+        for (Event e : updated) {
+            Integer count = remaining.get(e);
+            if (count == null) {
+                appended.add(e);
+            } else if (count == 1) {
+                remaining.remove(e);
+            } else {
+                remaining.put(e, count - 1);
+            }
+        }
+        return remaining.isEmpty() ? appended : null;
+    }
+
+    private void open() {
+        if (logChannel != null) {
+            return;
+        }
+        try {
+            List<Event> loaded = new ArrayList<>();
+            long snapshotGeneration = readSnapshot(loaded);
+            generation = snapshotGeneration;
+            recordsSinceSnapshot = 0;
+
+            if (Files.exists(logFile)) {
+                long logGeneration = readGeneration(logFile, LOG_MAGIC);
+                if (logGeneration > snapshotGeneration) {
+                    recordsSinceSnapshot = replayLog(loaded);
+                    generation = logGeneration;
+                }
+            }
+            if (generation == snapshotGeneration) {
+                startNewLog(snapshotGeneration + 1);
+            } else {
+                logChannel = FileChannel.open(logFile, StandardOpenOption.WRITE);
+                logChannel.position(logChannel.size());
+            }
+            events = ChunkedEventList.of(loaded);
+            log.info("Opened event log [file={} generation={} events={} replayed={}]",
+                    logFile, generation, events.size(), recordsSinceSnapshot);
+        } catch (IOException e) {
+            closeQuietly();
+            throw new EventStorageException("Failed to open event log", e);
+        }
+    }
+
+    private long readSnapshot(List<Event> into) throws IOException {
+        if (!Files.exists(snapshotFile)) {
+            return 0L;
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(snapshotFile));
+        long snapshotGeneration = readHeader(buffer, SNAPSHOT_MAGIC, snapshotFile);
+        while (buffer.hasRemaining()) {
+            Event event = readRecord(buffer);
+            if (event == null) {
+                throw new IOException("Corrupt record in snapshot " + snapshotFile);
+            }
+            into.add(event);
+        }
+        return snapshotGeneration;
+    }
+
+    private int replayLog(List<Event> into) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(logFile));
+        readHeader(buffer, LOG_MAGIC, logFile);
+        int replayed = 0;
+        int validEnd = buffer.position();
+        while (buffer.hasRemaining()) {
+            Event event = readRecord(buffer);
+            if (event == null) {
+                break;
+            }
+            into.add(event);
+            replayed++;
+            validEnd = buffer.position();
+        }
+        if (validEnd < buffer.limit()) {
+            log.warn("Discarding torn tail of event log [file={} offset={} bytes={}]",
+                    logFile, validEnd, buffer.limit() - validEnd);
+            try (FileChannel channel = FileChannel.open(logFile, StandardOpenOption.WRITE)) {
+                channel.truncate(validEnd);
+                channel.force(true);
+            }
+        }
+        return replayed;
+    }
+
+    private void append(List<Event> appended) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(encodedSize(appended));
+        for (Event e : appended) {
+            writeRecord(buffer, e);
+        }
+        ((Buffer) buffer).flip();
+        while (buffer.hasRemaining()) {
+            logChannel.write(buffer);
+        }
+        logChannel.force(false);
+        recordsSinceSnapshot += appended.size();
+    }
+
+    private void writeSnapshot(List<Event> snapshot) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_SIZE + encodedSize(snapshot));
+        writeHeader(buffer, SNAPSHOT_MAGIC, generation);
+        for (Event e : snapshot) {
+            writeRecord(buffer, e);
+        }
+        ((Buffer) buffer).flip();
+        writeAtomically(snapshotFile, buffer);
+        startNewLog(generation + 1);
+        log.debug("Wrote event snapshot [file={} events={}]", snapshotFile, snapshot.size());
+    }
+
+    private void startNewLog(long newGeneration) throws IOException {
+        closeQuietly();
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        writeHeader(header, LOG_MAGIC, newGeneration);
+        ((Buffer) header).flip();
+        writeAtomically(logFile, header);
+        logChannel = FileChannel.open(logFile, StandardOpenOption.WRITE);
+        logChannel.position(logChannel.size());
+        generation = newGeneration;
+        recordsSinceSnapshot = 0;
+    }
+
+    private static void writeAtomically(Path target, ByteBuffer content) throws IOException {
+        Path dir = target.toAbsolutePath().getParent();
+        Path temp = Files.createTempFile(dir, target.getFileName().toString(), ".tmp");
+        try {
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+                while (content.hasRemaining()) {
+                    channel.write(content);
+                }
+                channel.force(true);
+            }
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    private static long readGeneration(Path file, int magic) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            while (header.hasRemaining() && channel.read(header) >= 0) {
+                // keep reading until the header is complete or the file ends
+            }
+            ((Buffer) header).flip();
+            return readHeader(header, magic, file);
+        }
+    }
+
+    private static long readHeader(ByteBuffer buffer, int magic, Path file) throws IOException {
+        if (buffer.remaining() < HEADER_SIZE || buffer.getInt() != magic) {
+            throw new IOException("Not an event log file: " + file);
+        }
+        int version = buffer.getInt();
+        if (version != FORMAT_VERSION) {
+            throw new IOException("Unsupported event log format version " + version + " in " + file);
+        }
+        return buffer.getLong();
+    }
+
+    private static void writeHeader(ByteBuffer buffer, int magic, long generation) {
+        buffer.putInt(magic).putInt(FORMAT_VERSION).putLong(generation);
+    }
+
+    /**
+     * Reads one record, or returns {@code null} (leaving the position unspecified) if the
+     * remaining bytes do not hold a complete record with a matching checksum.
+     */
+    private static Event readRecord(ByteBuffer buffer) {
+        if (buffer.remaining() < RECORD_HEADER_SIZE) {
+            return null;
+        }
+        int length = buffer.getInt();
+        int checksum = buffer.getInt();
+        if (length < FIXED_PAYLOAD_SIZE || length > buffer.remaining()) {
+            return null;
+        }
+        byte[] payload = new byte[length];
+        buffer.get(payload);
+        if (crc32(payload) != checksum) {
+            return null;
+        }
+        ByteBuffer record = ByteBuffer.wrap(payload);
+        long start = record.getLong();
+        long end = record.getLong();
+        String title = new String(payload, FIXED_PAYLOAD_SIZE, length - FIXED_PAYLOAD_SIZE, StandardCharsets.UTF_8);
+        return new Event(title, start, end);
+    }
+
+    private static void writeRecord(ByteBuffer buffer, Event event) {
+        byte[] title = titleBytes(event);
+        ByteBuffer payload = ByteBuffer.allocate(FIXED_PAYLOAD_SIZE + title.length);
+        payload.putLong(event.getStartEpochMillis()).putLong(event.getEndEpochMillis()).put(title);
+        byte[] bytes = payload.array();
+        buffer.putInt(bytes.length).putInt(crc32(bytes)).put(bytes);
+    }
+
+    private static int encodedSize(List<Event> events) {
+        int size = 0;
+        for (Event e : events) {
+            size += RECORD_HEADER_SIZE + FIXED_PAYLOAD_SIZE + titleBytes(e).length;
+        }
+        return size;
+    }
+
+    private static byte[] titleBytes(Event event) {
+        return event.getTitle() == null ? new byte[0] : event.getTitle().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static int crc32(byte[] bytes) {
+        CRC32 crc = new CRC32();
+        crc.update(bytes, 0, bytes.length);
+        return (int) crc.getValue();
+    }
+
+    private void closeQuietly() {
+        if (logChannel != null) {
+            try {
+                logChannel.close();
+            } catch (IOException e) {
+                log.warn("Failed to close event log [file={}]", logFile, e);
+            }
+            logChannel = null;
+        }
+    }
+}
@@ -0,0 +1,398 @@
+package com.calendar.storage.impl;
+
+import com.calendar.exception.EventConflictException;
+import com.calendar.exception.EventStorageException;
+import com.calendar.model.Event;
+import com.calendar.model.EventView;
+import com.calendar.storage.EventStorage;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+/**
+ * {@link EventStorage} decorator that group-commits concurrent writes.
+ *
+ * <p>Writes submitted through the async methods are queued and a single writer thread
+ * persists them in batches of up to {@code maxBatchSize}, waiting at most
+ * {@code lingerMillis} for a batch to fill. The inserts of a batch reach the delegate with one
+ * {@link EventStorage#insertEvents(List)} call, so storages that append or touch only the
+ * affected part of their data keep doing so. A batch containing a full
+ * {@link #saveEventsAsync(List) save} is written as one save of its newest state instead.</p>
+ *
+ * <p>Submitted writes are visible to reads immediately, so writers building on each other's
+ * changes do not have to wait for the disk: reads are answered by the delegate with the
+ * pending writes laid over the result. If a write fails, its batch and every write queued
+ * behind it fail too and reads fall back to the delegate.</p>
+ */
+public class GroupCommitEventStorage implements EventStorage, Closeable {
+
+    private static final Logger log = LoggerFactory.getLogger(GroupCommitEventStorage.class);
+
+    public static final int DEFAULT_MAX_BATCH_SIZE = 64;
+    public static final long DEFAULT_LINGER_MILLIS = 0L;
+
+    private static final Comparator<Event> BY_START = Comparator.comparingLong(Event::getStartEpochMillis);
+
+    private final EventStorage delegate;
+    private final int maxBatchSize;
+    private final long lingerMillis;
+    private final BlockingQueue<PendingWrite> queue = new LinkedBlockingQueue<>();
+    private final Thread writer;
+
+    /**
+     * Submitted writes that are not durable yet, oldest first. Replaced, never modified, under
+     * this storage's lock.
+     */
+    private volatile List<PendingWrite> pending = Collections.emptyList();
+
+    private volatile boolean closed;
+
+    /** Submitted writes and failed batches; only changed under this storage's lock. */
+    private volatile long version;
+
+    public GroupCommitEventStorage(EventStorage delegate) {
+        this(delegate, DEFAULT_MAX_BATCH_SIZE, DEFAULT_LINGER_MILLIS);
+    }
+
+    public GroupCommitEventStorage(EventStorage delegate, int maxBatchSize, long lingerMillis) {
+        if (maxBatchSize <= 0) {
+            throw new IllegalArgumentException("Max batch size must be positive.");
+        }
+        if (lingerMillis < 0) {
+            throw new IllegalArgumentException("Linger time must not be negative.");
+        }
+        this.delegate = delegate;
+        this.maxBatchSize = maxBatchSize;
+        this.lingerMillis = lingerMillis;
+        this.writer = new Thread(this::runWriter, "event-group-commit");
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    @Override
+    public List<Event> loadEvents() throws EventStorageException {
+        List<PendingWrite> writes = pending;
+        if (writes.isEmpty()) {
+            return delegate.loadEvents();
+        }
+        int save = lastSave(writes);
+        List<Event> base = save >= 0 ? writes.get(save).events : delegate.loadEvents();
+        List<Event> inserted = new ArrayList<>();
+        for (int i = save + 1; i < writes.size(); i++) {
+            for (Event e : writes.get(i).events) {
+                if (save >= 0 || !base.contains(e)) {
+                    inserted.add(e);
+                }
+            }
+        }
+        return Collections.unmodifiableList(EventStorage.withEvents(base, inserted));
+    }
+
+    @Override
+    public List<Event> findOverlapping(long startMillis, long endMillis) throws EventStorageException {
+        List<PendingWrite> writes = pending;
+        if (writes.isEmpty()) {
+            return delegate.findOverlapping(startMillis, endMillis);
+        }
+        int save = lastSave(writes);
+        List<Event> result;
+        if (save >= 0) {
+            result = new ArrayList<>();
+            addOverlapping(writes.get(save).events, startMillis, endMillis, result);
+        } else {
+            result = new ArrayList<>(delegate.findOverlapping(startMillis, endMillis));
+        }
+        int found = result.size();
+        for (int i = save + 1; i < writes.size(); i++) {
+            for (Event e : writes.get(i).events) {
+                // A write committed while the delegate was being read is in both.
+                if (e.getStartEpochMillis() < endMillis && e.getEndEpochMillis() > startMillis
+                        && (save >= 0 || !result.subList(0, found).contains(e))) {
+                    result.add(e);
+                }
+            }
+        }
+        if (save >= 0 || result.size() > found) {
+            result.sort(BY_START);
+        }
+        return result;
+    }
+
+    @Override
+    public void scanOverlapping(long startMillis, long endMillis, Predicate<? super EventView> visitor)
+            throws EventStorageException {
+        if (pending.isEmpty()) {
+            delegate.scanOverlapping(startMillis, endMillis, visitor);
+            return;
+        }
+        EventStorage.super.scanOverlapping(startMillis, endMillis, visitor);
+    }
+
+    @Override
+    public void forEachEvent(Consumer<? super Event> action) throws EventStorageException {
+        if (pending.isEmpty()) {
+            delegate.forEachEvent(action);
+            return;
+        }
+        loadEvents().forEach(action);
+    }
+
+    @Override
+    public void insertEvent(Event event) throws EventStorageException {
+        await(insertEventAsync(event));
+    }
+
+    @Override
+    public CompletableFuture<Void> insertEventAsync(Event event) {
+        return submit(new PendingWrite(false, Collections.singletonList(event)));
+    }
+
+    @Override
+    public void insertEvents(List<Event> events) throws EventStorageException {
+        await(insertEventsAsync(events));
+    }
+
+    /**
+     * Queues the events as one write, so they reach the delegate together with any concurrent
+     * inserts.
+     */
+    @Override
+    public CompletableFuture<Void> insertEventsAsync(List<Event> events) {
+        return submit(new PendingWrite(false, Collections.unmodifiableList(new ArrayList<>(events))));
+    }
+
+    @Override
+    public void saveEvents(List<Event> events) throws EventStorageException {
+        await(saveEventsAsync(events));
+    }
+
+    @Override
+    public CompletableFuture<Void> saveEventsAsync(List<Event> events) {
+        return submit(new PendingWrite(true, Collections.unmodifiableList(new ArrayList<>(events))));
+    }
+
+    @Override
+    public long getVersion() {
+        long delegateVersion = delegate.getVersion();
+        return version + Math.max(delegateVersion, 0L);
+    }
+
+    /**
+     * Stops the writer thread after the queued writes have been flushed.
+     */
+    @Override
+    public void close() {
+        synchronized (this) {
+            closed = true;
+            queue.add(PendingWrite.POISON);
+        }
+        try {
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private synchronized CompletableFuture<Void> submit(PendingWrite write) {
+        if (closed) {
+            write.done.completeExceptionally(new EventStorageException("Event storage is closed", null));
+            return write.done;
+        }
+        List<PendingWrite> writes = new ArrayList<>(pending.size() + 1);
+        writes.addAll(pending);
+        writes.add(write);
+        pending = Collections.unmodifiableList(writes);
+        version++;
+        queue.add(write);
+        return write.done;
+    }
+
+    private void runWriter() {
+        List<PendingWrite> batch = new ArrayList<>(maxBatchSize);
+        while (true) {
+            try {
+                batch.clear();
+                batch.add(queue.take());
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(lingerMillis);
+                while (batch.size() < maxBatchSize && batch.get(batch.size() - 1) != PendingWrite.POISON) {
+                    long remaining = deadline - System.nanoTime();
+                    PendingWrite next = remaining > 0 ? queue.poll(remaining, TimeUnit.NANOSECONDS) : queue.poll();
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+
+            boolean stop = batch.get(batch.size() - 1) == PendingWrite.POISON;
+            if (stop) {
+                batch.remove(batch.size() - 1);
+            }
+            if (!batch.isEmpty()) {
+                flush(batch);
+            }
+            if (stop) {
+                return;
+            }
+        }
+    }
+
+    private void flush(List<PendingWrite> batch) {
+        int save = lastSave(batch);
+        List<Event> inserted = new ArrayList<>();
+        for (int i = save + 1; i < batch.size(); i++) {
+            inserted.addAll(batch.get(i).events);
+        }
+        try {
+            if (save >= 0) {
+                delegate.saveEvents(EventStorage.withEvents(batch.get(save).events, inserted));
+            } else {
+                delegate.insertEvents(inserted);
+            }
+        } catch (EventConflictException e) {
+            if (batch.size() > 1) {
+                // One caller's conflict must not fail the others: write them one by one.
+                flushSeparately(batch);
+                return;
+            }
+            committed(1);
+            batch.get(0).done.completeExceptionally(e);
+            return;
+        } catch (RuntimeException e) {
+            log.error("Group commit of {} write(s) failed", batch.size(), e);
+            failQueued(batch, e);
+            return;
+        }
+        committed(batch.size());
+        for (PendingWrite write : batch) {
+            write.done.complete(null);
+        }
+        log.debug("Group-committed {} write(s) [events={}]", batch.size(), save >= 0 ? -1 : inserted.size());
+    }
+
+    /**
+     * Writes each write of the batch on its own, in order, so that a conflict fails only the
+     * write that caused it.
+     */
+    private void flushSeparately(List<PendingWrite> batch) {
+        for (int i = 0; i < batch.size(); i++) {
+            PendingWrite write = batch.get(i);
+            try {
+                if (write.save) {
+                    delegate.saveEvents(write.events);
+                } else {
+                    delegate.insertEvents(write.events);
+                }
+            } catch (EventConflictException e) {
+                committed(1);
+                write.done.completeExceptionally(e);
+                continue;
+            } catch (RuntimeException e) {
+                log.error("Group commit of {} write(s) failed", batch.size() - i, e);
+                failQueued(batch.subList(i, batch.size()), e);
+                return;
+            }
+            committed(1);
+            write.done.complete(null);
+        }
+    }
+
+    /**
+     * Removes the oldest {@code count} writes from the pending ones once the delegate holds them
+     * (or rejected them).
+     */
+    private synchronized void committed(int count) {
+        pending = Collections.unmodifiableList(new ArrayList<>(pending.subList(count, pending.size())));
+    }
+
+    private void failQueued(List<PendingWrite> batch, RuntimeException cause) {
+        List<PendingWrite> failed = new ArrayList<>(batch);
+        boolean stop = false;
+        synchronized (this) {
+            List<PendingWrite> queued = new ArrayList<>();
+            queue.drainTo(queued);
+            for (PendingWrite write : queued) {
+                if (write == PendingWrite.POISON) {
+                    stop = true;
+                } else {
+                    failed.add(write);
+                }
+            }
+            if (stop) {
+                queue.add(PendingWrite.POISON);
+            }
+            pending = Collections.emptyList();
+            // Reads fall back to the delegate, without the failed writes.
+            version++;
+        }
+        EventStorageException error = cause instanceof EventStorageException
+                ? (EventStorageException) cause
+                : new EventStorageException("Failed to save events", cause);
+        for (PendingWrite write : failed) {
+            write.done.completeExceptionally(error);
+        }
+    }
+
+    /**
+     * @return the index of the newest full save in {@code writes}, or -1 if there is none
+     */
+    private static int lastSave(List<PendingWrite> writes) {
+        for (int i = writes.size() - 1; i >= 0; i--) {
+            if (writes.get(i).save) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static void addOverlapping(List<Event> events, long startMillis, long endMillis, List<Event> result) {
+        for (Event e : events) {
+            if (e.getStartEpochMillis() < endMillis && e.getEndEpochMillis() > startMillis) {
+                result.add(e);
+            }
+        }
+    }
+
+    private static void await(CompletableFuture<Void> done) {
+        try {
+            done.join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new EventStorageException("Failed to save events", cause);
+        }
+    }
+
+    /**
+     * Either a complete new list of events ({@code save}) or events to add to the stored ones.
+     */
+    private static final class PendingWrite {
+        static final PendingWrite POISON = new PendingWrite(false, Collections.<Event>emptyList());
+
+        final boolean save;
+        final List<Event> events;
+        final CompletableFuture<Void> done = new CompletableFuture<>();
+
+        PendingWrite(boolean save, List<Event> events) {
+            this.save = save;
+            this.events = events;
+        }
+    }
+}
@@ -0,0 +1,282 @@
+package com.calendar.storage.impl;
+
+import com.calendar.exception.EventConflictException;
+import com.calendar.exception.EventStorageException;
+import com.calendar.model.Event;
+import com.calendar.storage.EventStorage;
+import org.h2.jdbcx.JdbcConnectionPool;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * {@link EventStorage} backed by an embedded, in-process H2 database file.
+ *
+ * <p>Events live in a single table indexed on start and on end time. Range queries are
+ * answered in SQL: the longest stored event duration is tracked, which bounds how far before
+ * the window an overlapping event can start, so the start index limits the scan to the
+ * window plus that margin.</p>
+ *
+ * <p>{@link #insertEvent(Event)} and {@link #insertEvents(List)} write only the new rows. The
+ * overlap checks and the inserts run in the same transaction, so an overlapping event is
+ * rejected with an {@link EventConflictException} even if it was not checked by the caller.
+ * Writes are serialized within the process; reads use their own connections and run
+ * concurrently with them.</p>
+ *
+ * <p>Connections come from a small pool that is created on first use. Its idle connections
+ * also keep the embedded database open between calls, until {@link #close()}.</p>
+ */
+public class JdbcEventStorage implements EventStorage, Closeable {
+
+    private static final Logger log = LoggerFactory.getLogger(JdbcEventStorage.class);
+
+    private static final String[] SCHEMA = {
+            "CREATE TABLE IF NOT EXISTS events ("
+                    + "id BIGINT AUTO_INCREMENT PRIMARY KEY, "
+                    + "title VARCHAR, "
+                    + "start_millis BIGINT NOT NULL, "
+                    + "end_millis BIGINT NOT NULL)",
+            "CREATE INDEX IF NOT EXISTS events_start ON events (start_millis, end_millis)",
+            "CREATE INDEX IF NOT EXISTS events_end ON events (end_millis)"
+    };
+    private static final String SELECT_ALL = "SELECT title, start_millis, end_millis FROM events "
+            + "ORDER BY start_millis, id";
+    private static final String SELECT_OVERLAPPING = "SELECT title, start_millis, end_millis FROM events "
+            + "WHERE start_millis >= ? AND start_millis < ? AND end_millis > ? ORDER BY start_millis, id";
+    private static final String SELECT_MAX_DURATION =
+            "SELECT COALESCE(MAX(end_millis - start_millis), 0) FROM events";
+    private static final String INSERT = "INSERT INTO events (title, start_millis, end_millis) VALUES (?, ?, ?)";
+    private static final String DELETE_ALL = "DELETE FROM events";
+    private static final int FETCH_SIZE = 1000;
+    private static final int MAX_CONNECTIONS = 8;
+
+    private final String url;
+    private final Object writeLock = new Object();
+
+    /** Pool of connections to the database, or {@code null} before it is opened. */
+    private volatile JdbcConnectionPool pool;
+
+    /** Longest duration of any stored event, or -1 before the database is opened. */
+    private volatile long maxDuration = -1L;
+
+    /** Counts the transactions committed through this object. */
+    private volatile long version;
+
+    /**
+     * @param url JDBC URL of the embedded database, e.g. {@code jdbc:h2:./events-db/events}
+     */
+    public JdbcEventStorage(String url) {
+        this.url = url;
+    }
+
+    @Override
+    public List<Event> loadEvents() throws EventStorageException {
+        List<Event> events = new ArrayList<>();
+        forEachEvent(events::add);
+        return events;
+    }
+
+    /**
+     * Streams the rows in start order without building a list.
+     */
+    @Override
+    public void forEachEvent(Consumer<? super Event> action) throws EventStorageException {
+        try (Connection connection = connect();
+             PreparedStatement select = connection.prepareStatement(SELECT_ALL)) {
+            select.setFetchSize(FETCH_SIZE);
+            try (ResultSet rows = select.executeQuery()) {
+                while (rows.next()) {
+                    action.accept(toEvent(rows));
+                }
+            }
+        } catch (SQLException e) {
+            throw new EventStorageException("Failed to load events from database", e);
+        }
+    }
+
+    @Override
+    public List<Event> findOverlapping(long startMillis, long endMillis) throws EventStorageException {
+        try (Connection connection = connect()) {
+            return findOverlapping(connection, startMillis, endMillis, Integer.MAX_VALUE);
+        } catch (SQLException e) {
+            throw new EventStorageException("Failed to query events from database", e);
+        }
+    }
+
+    /**
+     * Replaces all stored events in one transaction.
+     */
+    @Override
+    public void saveEvents(List<Event> events) throws EventStorageException {
+        synchronized (writeLock) {
+            try (Connection connection = connect()) {
+                connection.setAutoCommit(false);
+                try (Statement delete = connection.createStatement();
+                     PreparedStatement insert = connection.prepareStatement(INSERT)) {
+                    delete.executeUpdate(DELETE_ALL);
+                    long longest = 0L;
+                    for (Event e : events) {
+                        bind(insert, e);
+                        insert.addBatch();
+                        longest = Math.max(longest, e.getEndEpochMillis() - e.getStartEpochMillis());
+                    }
+                    insert.executeBatch();
+                    // Widen the bound before the rows become visible, narrow it only after.
+                    maxDuration = Math.max(maxDuration, longest);
+                    connection.commit();
+                    maxDuration = longest;
+                    version++;
+                } catch (SQLException e) {
+                    connection.rollback();
+                    throw e;
+                }
+            } catch (SQLException e) {
+                throw new EventStorageException("Failed to save events to database", e);
+            }
+        }
+    }
+
+    /**
+     * Inserts a single row after checking, in the same transaction, that no stored event
+     * overlaps it.
+     *
+     * @throws EventConflictException if a stored event overlaps {@code event}
+     */
+    @Override
+    public void insertEvent(Event event) throws EventStorageException {
+        insertEvents(Collections.singletonList(event));
+    }
+
+    /**
+     * Inserts the rows in one transaction, checking each against the stored events and the
+     * rows inserted before it. Nothing is inserted if any of them overlaps.
+     *
+     * @throws EventConflictException if an event overlaps a stored one or another in the batch
+     */
+    @Override
+    public void insertEvents(List<Event> events) throws EventStorageException {
+        synchronized (writeLock) {
+            try (Connection connection = connect()) {
+                connection.setAutoCommit(false);
+                try (PreparedStatement insert = connection.prepareStatement(INSERT)) {
+                    long longest = maxDuration;
+                    for (Event event : events) {
+                        List<Event> existing = findOverlapping(connection,
+                                event.getStartEpochMillis(), event.getEndEpochMillis(), 1);
+                        if (!existing.isEmpty()) {
+                            connection.rollback();
+                            throw new EventConflictException(
+                                    "Event conflicts with an existing event - " + existing.get(0).getTitle());
+                        }
+                        bind(insert, event);
+                        insert.executeUpdate();
+                        // Later rows are checked against this one, so widen the bound right away.
+                        longest = Math.max(longest, event.getEndEpochMillis() - event.getStartEpochMillis());
+                        maxDuration = longest;
+                    }
+                    connection.commit();
+                    version++;
+                } catch (SQLException e) {
+                    connection.rollback();
+                    throw e;
+                }
+            } catch (SQLException e) {
+                throw new EventStorageException("Failed to insert events into database", e);
+            }
+        }
+    }
+
+    /**
+     * Counts the writes committed through this object; rows changed by other connections to
+     * the database are not counted.
+     */
+    @Override
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * Closes the pooled connections, and with them the database once no other connection is
+     * using it. The next call opens it again.
+     */
+    @Override
+    public synchronized void close() {
+        if (pool != null) {
+            pool.dispose();
+            pool = null;
+            maxDuration = -1L;
+        }
+    }
+
+    private List<Event> findOverlapping(Connection connection, long startMillis, long endMillis, int limit)
+            throws SQLException {
+        List<Event> result = new ArrayList<>();
+        try (PreparedStatement select = connection.prepareStatement(SELECT_OVERLAPPING)) {
+            select.setLong(1, startMillis - maxDuration);
+            select.setLong(2, endMillis);
+            select.setLong(3, startMillis);
+            select.setMaxRows(limit);
+            try (ResultSet rows = select.executeQuery()) {
+                while (rows.next()) {
+                    result.add(toEvent(rows));
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Takes a connection from the pool, creating the pool and the schema on first use.
+     */
+    private Connection connect() throws SQLException {
+        JdbcConnectionPool current = pool;
+        if (current == null) {
+            current = open();
+        }
+        return current.getConnection();
+    }
+
+    private synchronized JdbcConnectionPool open() throws SQLException {
+        if (pool != null) {
+            return pool;
+        }
+        JdbcConnectionPool created = JdbcConnectionPool.create(url, "", "");
+        created.setMaxConnections(MAX_CONNECTIONS);
+        try (Connection connection = created.getConnection();
+             Statement statement = connection.createStatement()) {
+            for (String ddl : SCHEMA) {
+                statement.execute(ddl);
+            }
+            try (ResultSet rows = statement.executeQuery(SELECT_MAX_DURATION)) {
+                rows.next();
+                maxDuration = rows.getLong(1);
+            }
+        } catch (SQLException e) {
+            created.dispose();
+            throw e;
+        }
+        pool = created;
+        log.info("Opened event database [url={} maxDurationMillis={}]", url, maxDuration);
+        return created;
+    }
+
+    private static void bind(PreparedStatement insert, Event event) throws SQLException {
+        insert.setString(1, event.getTitle());
+        insert.setLong(2, event.getStartEpochMillis());
+        insert.setLong(3, event.getEndEpochMillis());
+    }
+
+    private static Event toEvent(ResultSet rows) throws SQLException {
+        return new Event(rows.getString(1), rows.getLong(2), rows.getLong(3));
+    }
+}
@@ -0,0 +1,536 @@
+package com.calendar.storage.impl;
+
+import com.calendar.exception.EventStorageException;
+import com.calendar.model.Event;
+import com.calendar.model.EventView;
+import com.calendar.storage.EventStorage;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.RandomAccess;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+/**
+ * {@link EventStorage} decorator that keeps the events outside the Java heap.
+ *
+ * <p>Events are fixed-size records in direct {@link ByteBuffer} chunks of
+ * {@link #CHUNK_RECORDS} records, sorted by start time across the chunks, with titles appended
+ * as UTF-8 to a separate direct buffer:</p>
+ * <pre>
+ *   record : long startEpochMillis, long endEpochMillis, long maxEndSoFar, int titleOffset, int titleLength
+ * </pre>
+ * <p>The start column is the index: lookups binary-search it in place. {@code maxEndSoFar} is
+ * the running maximum of the end times within the chunk; together with the maximum of the
+ * earlier chunks, kept per chunk, a range query also binary-searches where overlapping events
+ * can begin. {@link #scanOverlapping(long, long, Predicate)} passes a single flyweight
+ * {@link EventView} over the matching records, so a scan allocates nothing per event and the
+ * heap footprint does not grow with the calendar.</p>
+ *
+ * <p>The records are loaded once, so this storage must be the only writer. They are packed
+ * into the chunks straight from the delegate's {@link EventStorage#scanOverlapping(long, long,
+ * Predicate)}, without building a list of events first. Readers work on an immutable snapshot
+ * (chunks plus record counts) and never lock. An insert that lands after the last record of a
+ * chunk writes past the end of the chunk in the current snapshot in place; any other insert
+ * copies just that one chunk, splitting it in two when it is full, so an insert costs at most
+ * one chunk no matter where it lands.</p>
+ *
+ * <p>Inserts reach the delegate through its own {@link EventStorage#insertEvents(List)}. What
+ * that costs, and whether the delegate keeps a copy of the events on the heap, depends on the
+ * delegate: {@link EventBinaryStorage} appends to its memory-mapped file and only keeps the
+ * events appended since its last rewrite, while {@link EventLogStorage} appends to its log but
+ * keeps every event resident.</p>
+ */
+public class OffHeapEventStorage implements EventStorage {
+
+    private static final Logger log = LoggerFactory.getLogger(OffHeapEventStorage.class);
+
+    /** Records per chunk: 16 KB of direct memory. */
+    static final int CHUNK_RECORDS = 512;
+
+    private static final int RECORD_SIZE = 8 + 8 + 8 + 4 + 4;
+    private static final int END_OFFSET = 8;
+    private static final int MAX_END_OFFSET = 16;
+    private static final int TITLE_OFFSET = 24;
+    private static final int TITLE_LENGTH_OFFSET = 28;
+    private static final int NO_TITLE = -1;
+    private static final int INITIAL_TITLE_CAPACITY = 16 * 1024;
+
+    private final EventStorage delegate;
+
+    private volatile Snapshot snapshot;
+    private volatile long version;
+
+    public OffHeapEventStorage(EventStorage delegate) {
+        this.delegate = delegate;
+    }
+
+    /**
+     * Returns a read-only list view over the current records. Events are created on access.
+     */
+    @Override
+    public List<Event> loadEvents() throws EventStorageException {
+        return new SnapshotView(snapshot());
+    }
+
+    @Override
+    public List<Event> findOverlapping(long startMillis, long endMillis) throws EventStorageException {
+        List<Event> result = new ArrayList<>();
+        scanOverlapping(startMillis, endMillis, view -> result.add(view.toEvent()));
+        return result;
+    }
+
+    @Override
+    public void scanOverlapping(long startMillis, long endMillis, Predicate<? super EventView> visitor)
+            throws EventStorageException {
+        Snapshot current = snapshot();
+        int from = current.firstEndingAfter(startMillis);
+        int to = current.firstStartingAtOrAfter(endMillis);
+        if (from >= to) {
+            return;
+        }
+        Flyweight view = new Flyweight(current);
+        int chunk = current.chunkOf(from);
+        int slot = from - current.firstIndex[chunk];
+        for (int i = from; i < to; i++, slot++) {
+            if (slot == current.counts[chunk]) {
+                chunk++;
+                slot = 0;
+            }
+            if (end(current.chunks[chunk], slot) > startMillis && !visitor.test(view.moveTo(chunk, slot))) {
+                return;
+            }
+        }
+    }
+
+    @Override
+    public void forEachEvent(Consumer<? super Event> action) throws EventStorageException {
+        Snapshot current = snapshot();
+        for (int c = 0; c < current.chunks.length; c++) {
+            for (int slot = 0; slot < current.counts[c]; slot++) {
+                action.accept(current.event(c, slot));
+            }
+        }
+    }
+
+    @Override
+    public synchronized void saveEvents(List<Event> events) throws EventStorageException {
+        delegate.saveEvents(events);
+        snapshot = Snapshot.build(events);
+        version++;
+    }
+
+    @Override
+    public void insertEvent(Event event) throws EventStorageException {
+        insertEvents(Collections.singletonList(event));
+    }
+
+    /**
+     * Adds the events to the records and passes them on to the delegate's insert, without
+     * handing it the other events.
+     */
+    @Override
+    public synchronized void insertEvents(List<Event> events) throws EventStorageException {
+        Snapshot updated = snapshot();
+        for (Event event : events) {
+            updated = updated.insert(event);
+        }
+        delegate.insertEvents(events);
+        snapshot = updated;
+        version++;
+    }
+
+    /**
+     * Counts the writes made through this object; changes the delegate picks up by itself are
+     * not counted.
+     */
+    @Override
+    public long getVersion() {
+        return version;
+    }
+
+    private Snapshot snapshot() {
+        Snapshot current = snapshot;
+        if (current == null) {
+            synchronized (this) {
+                current = snapshot;
+                if (current == null) {
+                    Snapshot.Builder builder = new Snapshot.Builder();
+                    delegate.scanOverlapping(Long.MIN_VALUE, Long.MAX_VALUE, view -> {
+                        builder.add(view);
+                        return true;
+                    });
+                    current = builder.build();
+                    snapshot = current;
+                    log.info("Loaded events off-heap [events={} chunks={} titleBytes={}]",
+                            current.count, current.chunks.length, current.titlesUsed);
+                }
+            }
+        }
+        return current;
+    }
+
+    private static long start(ByteBuffer chunk, int slot) {
+        return chunk.getLong(slot * RECORD_SIZE);
+    }
+
+    private static long end(ByteBuffer chunk, int slot) {
+        return chunk.getLong(slot * RECORD_SIZE + END_OFFSET);
+    }
+
+    private static long localMaxEnd(ByteBuffer chunk, int slot) {
+        return chunk.getLong(slot * RECORD_SIZE + MAX_END_OFFSET);
+    }
+
+    /**
+     * One version of the data: the first {@code counts[c]} records of each chunk and
+     * {@code titlesUsed} title bytes. Bytes past those limits may belong to newer snapshots
+     * and are never read.
+     */
+    private static final class Snapshot {
+        final ByteBuffer[] chunks;
+        final int[] counts;
+        /** Index of the first record of each chunk. */
+        final int[] firstIndex;
+        /** Latest end of the records in all earlier chunks. */
+        final long[] maxEndBefore;
+        final int count;
+        final ByteBuffer titles;
+        final int titlesUsed;
+
+        Snapshot(ByteBuffer[] chunks, int[] counts, ByteBuffer titles, int titlesUsed) {
+            this.chunks = chunks;
+            this.counts = counts;
+            this.firstIndex = new int[chunks.length];
+            this.maxEndBefore = new long[chunks.length];
+            int index = 0;
+            long maxEnd = Long.MIN_VALUE;
+            for (int c = 0; c < chunks.length; c++) {
+                firstIndex[c] = index;
+                maxEndBefore[c] = maxEnd;
+                index += counts[c];
+                maxEnd = Math.max(maxEnd, localMaxEnd(chunks[c], counts[c] - 1));
+            }
+            this.count = index;
+            this.titles = titles;
+            this.titlesUsed = titlesUsed;
+        }
+
+        /**
+         * Packs the events into full chunks in start order.
+         */
+        static Snapshot build(List<Event> events) {
+            List<Event> sorted = new ArrayList<>(events);
+            sorted.sort(Comparator.comparingLong(Event::getStartEpochMillis));
+            Builder builder = new Builder();
+            sorted.forEach(builder::add);
+            return builder.build();
+        }
+
+        /**
+         * Packs events, added in start order, into full chunks as they arrive.
+         */
+        static final class Builder {
+            private final List<ByteBuffer> chunks = new ArrayList<>();
+            private int count;
+            private ByteBuffer titles = ByteBuffer.allocateDirect(INITIAL_TITLE_CAPACITY);
+            private int titlesUsed;
+
+            void add(EventView event) {
+                int c = count / CHUNK_RECORDS;
+                if (c == chunks.size()) {
+                    chunks.add(allocateChunk());
+                }
+                byte[] title = titleBytes(event);
+                if (title != null && titlesUsed + title.length > titles.capacity()) {
+                    titles = grow(titles, titlesUsed, titlesUsed + title.length);
+                }
+                titlesUsed = write(chunks.get(c), count % CHUNK_RECORDS, event, titles, titlesUsed, title);
+                count++;
+            }
+
+            Snapshot build() {
+                int[] counts = new int[chunks.size()];
+                for (int c = 0; c < counts.length; c++) {
+                    counts[c] = Math.min(CHUNK_RECORDS, count - c * CHUNK_RECORDS);
+                    updateMaxEnd(chunks.get(c), 0, counts[c]);
+                }
+                return new Snapshot(chunks.toArray(new ByteBuffer[0]), counts, titles, titlesUsed);
+            }
+        }
+
+        int chunkOf(int index) {
+            int low = 0;
+            int high = chunks.length - 1;
+            while (low < high) {
+                int mid = (low + high + 1) >>> 1;
+                if (firstIndex[mid] <= index) {
+                    low = mid;
+                } else {
+                    high = mid - 1;
+                }
+            }
+            return low;
+        }
+
+        long start(int i) {
+            int c = chunkOf(i);
+            return OffHeapEventStorage.start(chunks[c], i - firstIndex[c]);
+        }
+
+        long maxEnd(int i) {
+            int c = chunkOf(i);
+            return Math.max(maxEndBefore[c], localMaxEnd(chunks[c], i - firstIndex[c]));
+        }
+
+        String title(int chunk, int slot) {
+            ByteBuffer records = chunks[chunk];
+            int offset = records.getInt(slot * RECORD_SIZE + TITLE_OFFSET);
+            if (offset == NO_TITLE) {
+                return null;
+            }
+            byte[] bytes = new byte[records.getInt(slot * RECORD_SIZE + TITLE_LENGTH_OFFSET)];
+            ByteBuffer view = titles.duplicate();
+            ((Buffer) view).position(offset);
+            view.get(bytes);
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+
+        Event event(int chunk, int slot) {
+            return new Event(title(chunk, slot), OffHeapEventStorage.start(chunks[chunk], slot),
+                    end(chunks[chunk], slot));
+        }
+
+        Event event(int i) {
+            int c = chunkOf(i);
+            return event(c, i - firstIndex[c]);
+        }
+
+        /**
+         * Returns a snapshot with {@code event} added after all events starting at or before it.
+         * Writes in place when the event goes after the last record of a chunk with room;
+         * otherwise copies that chunk, or splits it if it is full.
+         */
+        Snapshot insert(Event event) {
+            byte[] title = titleBytes(event);
+            ByteBuffer newTitles = titles;
+            if (title != null && titlesUsed + title.length > titles.capacity()) {
+                newTitles = grow(titles, titlesUsed, titlesUsed + title.length);
+            }
+
+            int at = firstStartingAtOrAfter(event.getStartEpochMillis() + 1);
+            int c = at == 0 ? 0 : chunkOf(at - 1);
+            int slot = chunks.length == 0 ? 0 : at - firstIndex[c];
+            ByteBuffer[] newChunks;
+            int[] newCounts;
+            int newTitlesUsed;
+            if (chunks.length == 0 || (at == count && counts[c] == CHUNK_RECORDS)) {
+                // Past the last full chunk: start a new one.
+                newChunks = Arrays.copyOf(chunks, chunks.length + 1);
+                newCounts = Arrays.copyOf(counts, counts.length + 1);
+                c = chunks.length;
+                newChunks[c] = allocateChunk();
+                newTitlesUsed = write(newChunks[c], 0, event, newTitles, titlesUsed, title);
+                newCounts[c] = 1;
+                updateMaxEnd(newChunks[c], 0, 1);
+            } else if (counts[c] < CHUNK_RECORDS) {
+                newChunks = chunks.clone();
+                newCounts = counts.clone();
+                if (slot < counts[c]) {
+                    newChunks[c] = allocateChunk();
+                    copy(chunks[c], 0, newChunks[c], 0, slot * RECORD_SIZE);
+                    copy(chunks[c], slot * RECORD_SIZE, newChunks[c], (slot + 1) * RECORD_SIZE,
+                            (counts[c] - slot) * RECORD_SIZE);
+                }
+                newTitlesUsed = write(newChunks[c], slot, event, newTitles, titlesUsed, title);
+                newCounts[c]++;
+                updateMaxEnd(newChunks[c], slot, newCounts[c]);
+            } else {
+                ByteBuffer merged = ByteBuffer.allocateDirect((CHUNK_RECORDS + 1) * RECORD_SIZE);
+                copy(chunks[c], 0, merged, 0, slot * RECORD_SIZE);
+                copy(chunks[c], slot * RECORD_SIZE, merged, (slot + 1) * RECORD_SIZE,
+                        (CHUNK_RECORDS - slot) * RECORD_SIZE);
+                newTitlesUsed = write(merged, slot, event, newTitles, titlesUsed, title);
+                int half = (CHUNK_RECORDS + 1) / 2;
+                ByteBuffer left = allocateChunk();
+                ByteBuffer right = allocateChunk();
+                copy(merged, 0, left, 0, half * RECORD_SIZE);
+                copy(merged, half * RECORD_SIZE, right, 0, (CHUNK_RECORDS + 1 - half) * RECORD_SIZE);
+                updateMaxEnd(left, 0, half);
+                updateMaxEnd(right, 0, CHUNK_RECORDS + 1 - half);
+
+                newChunks = new ByteBuffer[chunks.length + 1];
+                newCounts = new int[chunks.length + 1];
+                System.arraycopy(chunks, 0, newChunks, 0, c);
+                System.arraycopy(counts, 0, newCounts, 0, c);
+                newChunks[c] = left;
+                newCounts[c] = half;
+                newChunks[c + 1] = right;
+                newCounts[c + 1] = CHUNK_RECORDS + 1 - half;
+                System.arraycopy(chunks, c + 1, newChunks, c + 2, chunks.length - c - 1);
+                System.arraycopy(counts, c + 1, newCounts, c + 2, chunks.length - c - 1);
+            }
+            return new Snapshot(newChunks, newCounts, newTitles, newTitlesUsed);
+        }
+
+        /**
+         * @return the index of the first record whose start is at or after {@code millis}
+         */
+        int firstStartingAtOrAfter(long millis) {
+            int low = 0;
+            int high = count;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (start(mid) < millis) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+
+        /**
+         * @return the index of the first record such that it or an earlier one ends after
+         *         {@code millis}; no record before it can overlap a window starting there
+         */
+        int firstEndingAfter(long millis) {
+            int low = 0;
+            int high = count;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (maxEnd(mid) <= millis) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+
+        private static ByteBuffer allocateChunk() {
+            return ByteBuffer.allocateDirect(CHUNK_RECORDS * RECORD_SIZE);
+        }
+
+        private static byte[] titleBytes(EventView event) {
+            return event.getTitle() == null ? null : event.getTitle().getBytes(StandardCharsets.UTF_8);
+        }
+
+        /**
+         * Writes the record at {@code slot} and its title at {@code titlesUsed}.
+         *
+         * @return the title bytes used afterwards
+         */
+        private static int write(ByteBuffer chunk, int slot, EventView event, ByteBuffer titles, int titlesUsed,
+                byte[] title) {
+            int titleOffset = NO_TITLE;
+            int titleLength = 0;
+            if (title != null) {
+                ByteBuffer target = titles.duplicate();
+                ((Buffer) target).position(titlesUsed);
+                target.put(title);
+                titleOffset = titlesUsed;
+                titleLength = title.length;
+            }
+            int base = slot * RECORD_SIZE;
+            chunk.putLong(base, event.getStartEpochMillis());
+            chunk.putLong(base + END_OFFSET, event.getEndEpochMillis());
+            chunk.putInt(base + TITLE_OFFSET, titleOffset);
+            chunk.putInt(base + TITLE_LENGTH_OFFSET, titleLength);
+            return titlesUsed + titleLength;
+        }
+
+        /**
+         * Recomputes the running maximum end of the chunk's records from {@code from} on.
+         */
+        private static void updateMaxEnd(ByteBuffer chunk, int from, int count) {
+            long maxEnd = from == 0 ? Long.MIN_VALUE : localMaxEnd(chunk, from - 1);
+            for (int i = from; i < count; i++) {
+                maxEnd = Math.max(maxEnd, end(chunk, i));
+                chunk.putLong(i * RECORD_SIZE + MAX_END_OFFSET, maxEnd);
+            }
+        }
+
+        private static ByteBuffer grow(ByteBuffer buffer, int used, int required) {
+            ByteBuffer grown = ByteBuffer.allocateDirect(Math.max(required, buffer.capacity() * 2));
+            copy(buffer, 0, grown, 0, used);
+            return grown;
+        }
+
+        private static void copy(ByteBuffer from, int fromOffset, ByteBuffer to, int toOffset, int length) {
+            if (length == 0) {
+                return;
+            }
+            ByteBuffer source = from.duplicate();
+            ((Buffer) source).position(fromOffset);
+            ((Buffer) source).limit(fromOffset + length);
+            ByteBuffer target = to.duplicate();
+            ((Buffer) target).position(toOffset);
+            target.put(source);
+        }
+    }
+
+    /**
+     * Reusable view positioned on one record at a time. The title is only decoded on request.
+     */
+    private static final class Flyweight implements EventView {
+        private final Snapshot snapshot;
+        private int chunk;
+        private int slot;
+
+        Flyweight(Snapshot snapshot) {
+            this.snapshot = snapshot;
+        }
+
+        Flyweight moveTo(int chunk, int slot) {
+            this.chunk = chunk;
+            this.slot = slot;
+            return this;
+        }
+
+        @Override
+        public String getTitle() {
+            return snapshot.title(chunk, slot);
+        }
+
+        @Override
+        public long getStartEpochMillis() {
+            return start(snapshot.chunks[chunk], slot);
+        }
+
+        @Override
+        public long getEndEpochMillis() {
+            return end(snapshot.chunks[chunk], slot);
+        }
+    }
+
+    private static final class SnapshotView extends AbstractList<Event> implements RandomAccess {
+        private final Snapshot snapshot;
+
+        SnapshotView(Snapshot snapshot) {
+            this.snapshot = snapshot;
+        }
+
+        @Override
+        public Event get(int index) {
+            if (index < 0 || index >= snapshot.count) {
+                throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + snapshot.count);
+            }
+            return snapshot.event(index);
+        }
+
+        @Override
+        public int size() {
+            return snapshot.count;
+        }
+    }
+}
@@ -0,0 +1,396 @@
+package com.calendar.storage.impl;
+
+import com.calendar.exception.EventStorageException;
+import com.calendar.model.Event;
+import com.calendar.storage.EventStorage;
+import com.calendar.util.JsonUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Consumer;
+
+/**
+ * Time-partitioned implementation of {@link EventStorage}.
+ *
+ * <p>Events are split into segment files by the UTC month (or day, or year) in which they
+ * start. Each segment is a JSON events file managed by {@link EventFileStorage}, so it keeps
+ * its crash-safety and checksum. A small manifest records, per segment, its event count,
+ * content hash, checksum and the earliest start and latest end of its events.</p>
+ *
+ * <p>{@link #findOverlapping(long, long)} only opens segments whose {@code [minStart, maxEnd)}
+ * range overlaps the window. Because {@code maxEnd} covers events that run past the end of
+ * their partition, an event crossing a boundary is still found from the later partition.
+ * Saving rewrites only the segments whose content changed, followed by the manifest. If the
+ * manifest is stale after a crash, segments whose checksum no longer matches are re-read
+ * when the storage is opened.</p>
+ */
+public class PartitionedEventStorage implements EventStorage {
+
+    private static final Logger log = LoggerFactory.getLogger(PartitionedEventStorage.class);
+
+    private static final String MANIFEST_FILE_NAME = "manifest.json";
+    private static final String SEGMENT_PREFIX = "segment-";
+    private static final String SEGMENT_SUFFIX = ".json";
+    private static final int SEGMENT_CACHE_SIZE = 16;
+    private static final Comparator<Event> BY_START = Comparator.comparingLong(Event::getStartEpochMillis);
+
+    private final Path directory;
+    private final ChronoUnit granularity;
+
+    private TreeMap<String, Segment> segments;
+    private volatile List<Event> allEvents;
+    private volatile long version;
+    private final Map<String, List<Event>> segmentCache = new LinkedHashMap<String, List<Event>>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, List<Event>> eldest) {
+            return size() > SEGMENT_CACHE_SIZE;
+        }
+    };
+
+    public PartitionedEventStorage(String directory) {
+        this(directory, ChronoUnit.MONTHS);
+    }
+
+    /**
+     * @param directory   the directory holding the manifest and segment files
+     * @param granularity partition size; one of {@code DAYS}, {@code MONTHS} or {@code YEARS}
+     */
+    public PartitionedEventStorage(String directory, ChronoUnit granularity) {
+        if (granularity != ChronoUnit.DAYS && granularity != ChronoUnit.MONTHS && granularity != ChronoUnit.YEARS) {
+            throw new IllegalArgumentException("Unsupported partition granularity: " + granularity);
+        }
+        this.directory = Paths.get(directory);
+        this.granularity = granularity;
+    }
+
+    @Override
+    public List<Event> loadEvents() throws EventStorageException {
+        List<Event> events = allEvents;
+        if (events != null) {
+            return events;
+        }
+        synchronized (this) {
+            if (allEvents == null) {
+                List<Event> loaded = new ArrayList<>();
+                for (String key : segments().keySet()) {
+                    loaded.addAll(segment(key));
+                }
+                allEvents = Collections.unmodifiableList(loaded);
+            }
+            return allEvents;
+        }
+    }
+
+    /**
+     * Finds the events overlapping {@code [startMillis, endMillis)}, reading only the segments
+     * whose time range overlaps the window.
+     *
+     * @return the overlapping events ordered by start time
+     */
+    @Override
+    public synchronized List<Event> findOverlapping(long startMillis, long endMillis) throws EventStorageException {
+        List<Event> result = new ArrayList<>();
+        for (Segment info : segments().values()) {
+            if (info.minStart < endMillis && info.maxEnd > startMillis) {
+                for (Event e : segment(info.key)) {
+                    if (e.getStartEpochMillis() < endMillis && e.getEndEpochMillis() > startMillis) {
+                        result.add(e);
+                    }
+                }
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public synchronized void saveEvents(List<Event> events) throws EventStorageException {
+        TreeMap<String, Segment> current = segments();
+        TreeMap<String, List<Event>> partitioned = new TreeMap<>();
+        for (Event e : events) {
+            partitioned.computeIfAbsent(keyOf(e.getStartEpochMillis()), k -> new ArrayList<>()).add(e);
+        }
+
+        TreeMap<String, Segment> updated = new TreeMap<>();
+        allEvents = null;
+        try {
+            for (Map.Entry<String, List<Event>> entry : partitioned.entrySet()) {
+                String key = entry.getKey();
+                List<Event> content = entry.getValue();
+                content.sort(BY_START);
+                Segment existing = current.get(key);
+                if (existing != null && existing.mayMatch(content) && segment(key).equals(content)) {
+                    updated.put(key, existing);
+                    continue;
+                }
+                EventFileStorage file = segmentStorage(key);
+                file.saveEvents(content);
+                segmentCache.put(key, Collections.unmodifiableList(content));
+                updated.put(key, Segment.of(key, content, file.currentChecksum()));
+                log.debug("Wrote event segment [key={} events={}]", key, content.size());
+            }
+            for (String key : current.keySet()) {
+                if (!updated.containsKey(key)) {
+                    deleteSegment(key);
+                }
+            }
+            writeManifest(updated);
+            segments = updated;
+        } catch (IOException e) {
+            segments = null;
+            segmentCache.clear();
+            throw new EventStorageException("Failed to save partitioned events", e);
+        } catch (EventStorageException e) {
+            segments = null;
+            segmentCache.clear();
+            throw e;
+        } finally {
+            // Also after a failure: some segments may have been rewritten.
+            version++;
+        }
+    }
+
+    /**
+     * Rewrites only the segment the event starts in, followed by the manifest.
+     */
+    @Override
+    public void insertEvent(Event event) throws EventStorageException {
+        insertEvents(Collections.singletonList(event));
+    }
+
+    /**
+     * Rewrites only the segments the events start in, followed by the manifest once.
+     */
+    @Override
+    public synchronized void insertEvents(List<Event> events) throws EventStorageException {
+        Map<String, List<Event>> byKey = new TreeMap<>();
+        for (Event e : events) {
+            byKey.computeIfAbsent(keyOf(e.getStartEpochMillis()), k -> new ArrayList<>()).add(e);
+        }
+        TreeMap<String, Segment> updated = new TreeMap<>(segments());
+        allEvents = null;
+        try {
+            for (Map.Entry<String, List<Event>> entry : byKey.entrySet()) {
+                String key = entry.getKey();
+                List<Event> content = updated.containsKey(key) ? segment(key) : Collections.<Event>emptyList();
+                content = EventStorage.withEvents(content, entry.getValue());
+                EventFileStorage file = segmentStorage(key);
+                file.saveEvents(content);
+                segmentCache.put(key, Collections.unmodifiableList(content));
+                updated.put(key, Segment.of(key, content, file.currentChecksum()));
+            }
+            writeManifest(updated);
+            segments = updated;
+        } catch (IOException | EventStorageException e) {
+            segments = null;
+            segmentCache.clear();
+            throw e instanceof EventStorageException
+                    ? (EventStorageException) e
+                    : new EventStorageException("Failed to save partitioned events", e);
+        } finally {
+            version++;
+        }
+    }
+
+    /**
+     * Counts the writes made through this object, including failed ones.
+     */
+    @Override
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * Visits the segments one after another rather than concatenating them first.
+     */
+    @Override
+    public synchronized void forEachEvent(Consumer<? super Event> action) throws EventStorageException {
+        for (String key : segments().keySet()) {
+            segment(key).forEach(action);
+        }
+    }
+
+    private TreeMap<String, Segment> segments() {
+        if (segments == null) {
+            try {
+                segments = openManifest();
+            } catch (IOException e) {
+                throw new EventStorageException("Failed to load partition manifest", e);
+            }
+        }
+        return segments;
+    }
+
+    private List<Event> segment(String key) {
+        List<Event> events = segmentCache.get(key);
+        if (events == null) {
+            List<Event> loaded = new ArrayList<>(segmentStorage(key).loadEvents());
+            loaded.sort(BY_START);
+            events = Collections.unmodifiableList(loaded);
+            segmentCache.put(key, events);
+        }
+        return events;
+    }
+
+    /**
+     * Reads the manifest and reconciles it with the segment files on disk, which only
+     * differ if a save was interrupted before the manifest was written.
+     */
+    private TreeMap<String, Segment> openManifest() throws IOException {
+        TreeMap<String, Segment> result = new TreeMap<>();
+        Path manifestFile = directory.resolve(MANIFEST_FILE_NAME);
+        if (Files.exists(manifestFile)) {
+            Manifest manifest = JsonUtil.fromJson(
+                    new String(Files.readAllBytes(manifestFile), StandardCharsets.UTF_8), Manifest.class);
+            if (manifest.granularity != granularity) {
+                throw new IOException("Partition manifest uses " + manifest.granularity + ", expected " + granularity);
+            }
+            for (Segment segment : manifest.segments) {
+                result.put(segment.key, segment);
+            }
+        }
+        if (!Files.isDirectory(directory)) {
+            return result;
+        }
+
+        boolean repaired = false;
+        Map<String, Segment> onDisk = new TreeMap<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, SEGMENT_PREFIX + "*" + SEGMENT_SUFFIX)) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                String key = name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length());
+                Segment known = result.get(key);
+                String checksum = segmentStorage(key).currentChecksum();
+                if (known == null || checksum == null || !checksum.equals(known.checksum)) {
+                    log.warn("Partition manifest is stale, re-reading segment [key={}]", key);
+                    List<Event> content = new ArrayList<>(segmentStorage(key).loadEvents());
+                    content.sort(BY_START);
+                    known = Segment.of(key, content, checksum);
+                    repaired = true;
+                }
+                onDisk.put(key, known);
+            }
+        }
+        if (repaired || onDisk.size() != result.size()) {
+            result = new TreeMap<>(onDisk);
+            writeManifest(result);
+        }
+        return result;
+    }
+
+    private void writeManifest(TreeMap<String, Segment> content) throws IOException {
+        Manifest manifest = new Manifest();
+        manifest.granularity = granularity;
+        manifest.segments = new ArrayList<>(content.values());
+        Files.createDirectories(directory);
+        Path manifestFile = directory.resolve(MANIFEST_FILE_NAME);
+        Path temp = directory.resolve(MANIFEST_FILE_NAME + ".tmp");
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer buffer = ByteBuffer.wrap(JsonUtil.toJson(manifest).getBytes(StandardCharsets.UTF_8));
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(true);
+        }
+        Files.move(temp, manifestFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private void deleteSegment(String key) throws IOException {
+        segmentCache.remove(key);
+        Path file = segmentFile(key);
+        for (String suffix : new String[]{"", ".sum", ".prev", ".prev.sum"}) {
+            Files.deleteIfExists(file.resolveSibling(file.getFileName() + suffix));
+        }
+    }
+
+    private EventFileStorage segmentStorage(String key) {
+        try {
+            Files.createDirectories(directory);
+        } catch (IOException e) {
+            throw new EventStorageException("Failed to create partition directory", e);
+        }
+        return new EventFileStorage(segmentFile(key).toString());
+    }
+
+    private Path segmentFile(String key) {
+        return directory.resolve(SEGMENT_PREFIX + key + SEGMENT_SUFFIX);
+    }
+
+    private String keyOf(long startMillis) {
+        ZonedDateTime time = Instant.ofEpochMilli(startMillis).atZone(ZoneOffset.UTC);
+        switch (granularity) {
+            case DAYS:
+                return String.format("%04d-%02d-%02d", time.getYear(), time.getMonthValue(), time.getDayOfMonth());
+            case YEARS:
+                return String.format("%04d", time.getYear());
+            default:
+                return String.format("%04d-%02d", time.getYear(), time.getMonthValue());
+        }
+    }
+
+    /**
+     * On-disk manifest listing every segment.
+     */
+    private static final class Manifest {
+        public ChronoUnit granularity;
+        public List<Segment> segments = new ArrayList<>();
+    }
+
+    /**
+     * Manifest entry describing one segment file.
+     */
+    private static final class Segment {
+        public String key;
+        public int count;
+        public int contentHash;
+        public String checksum;
+        public long minStart;
+        public long maxEnd;
+
+        static Segment of(String key, List<Event> sortedContent, String checksum) {
+            Segment segment = new Segment();
+            segment.key = key;
+            segment.count = sortedContent.size();
+            segment.contentHash = sortedContent.hashCode();
+            segment.checksum = checksum;
+            segment.minStart = Long.MAX_VALUE;
+            segment.maxEnd = Long.MIN_VALUE;
+            for (Iterator<Event> it = sortedContent.iterator(); it.hasNext(); ) {
+                Event e = it.next();
+                segment.minStart = Math.min(segment.minStart, e.getStartEpochMillis());
+                segment.maxEnd = Math.max(segment.maxEnd, e.getEndEpochMillis());
+            }
+            return segment;
+        }
+
+        /**
+         * Cheap pre-check before comparing the stored events: {@code false} means the content
+         * differs, {@code true} only that it may be the same.
+         */
+        boolean mayMatch(List<Event> sortedContent) {
+            return count == sortedContent.size() && contentHash == sortedContent.hashCode();
+        }
+    }
+}
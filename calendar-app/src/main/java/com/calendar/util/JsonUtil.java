@@ -1,9 +1,17 @@
 package com.calendar.util;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
 import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.SerializationFeature;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.function.Consumer;
+
 /**
  * Utility class for JSON serialization and deserialization using Jackson.
  */
@@ -21,6 +29,35 @@ public class JsonUtil {
         }
     }
 
+    /**
+     * Writes {@code obj} as compact JSON followed by a newline, as one line of newline-delimited
+     * JSON. The stream is neither flushed nor closed.
+     *
+     * @throws IOException if writing to the stream fails
+     */
+    public static void writeLine(OutputStream out, Object obj) throws IOException {
+        byte[] json;
+        try {
+            json = objectMapper.writeValueAsBytes(obj);
+        } catch (JsonProcessingException e) {
+            throw new com.calendar.exception.JsonProcessingException("Failed to serialize object to JSON", e);
+        }
+        out.write(json);
+        out.write('\n');
+    }
+
+    /**
+     * Creates a generator that writes compact JSON to {@code out}. Closing the generator
+     * flushes it but leaves the stream open.
+     *
+     * @throws IOException if the generator cannot be created
+     */
+    public static JsonGenerator createGenerator(OutputStream out) throws IOException {
+        JsonGenerator generator = objectMapper.getFactory().createGenerator(out);
+        generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        return generator;
+    }
+
     public static <T> T fromJson(String json, Class<T> clazz) {
         try {
             return objectMapper.readValue(json, clazz);
@@ -28,4 +65,35 @@ public class JsonUtil {
             throw new com.calendar.exception.JsonProcessingException("Failed to deserialize JSON to object", e);
         }
     }
+
+    /**
+     * Streams the elements of a top-level JSON array to the given consumer one at a time,
+     * without materializing the whole document. Empty input is treated as an empty array.
+     * The stream is not closed.
+     *
+     * @param in       the JSON input
+     * @param clazz    the element type
+     * @param consumer receives each element in document order
+     * @throws com.calendar.exception.JsonProcessingException if the input is not a valid array of {@code clazz}
+     */
+    public static <T> void readArray(InputStream in, Class<T> clazz, Consumer<? super T> consumer) {
+        try (JsonParser parser = objectMapper.getFactory().createParser(in)) {
+            parser.disable(JsonParser.Feature.AUTO_CLOSE_SOURCE);
+            JsonToken token = parser.nextToken();
+            if (token == null) {
+                return;
+            }
+            if (token != JsonToken.START_ARRAY) {
+                throw new com.calendar.exception.JsonProcessingException("Expected a JSON array", null);
+            }
+            while ((token = parser.nextToken()) != JsonToken.END_ARRAY) {
+                if (token == null) {
+                    throw new com.calendar.exception.JsonProcessingException("Unexpected end of JSON array", null);
+                }
+                consumer.accept(objectMapper.readValue(parser, clazz));
+            }
+        } catch (IOException e) {
+            throw new com.calendar.exception.JsonProcessingException("Failed to deserialize JSON to object", e);
+        }
+    }
 }
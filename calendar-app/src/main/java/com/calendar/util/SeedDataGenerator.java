@@ -1,10 +1,8 @@
 package com.calendar.util;
 
 import com.calendar.model.Event;
+import com.calendar.storage.impl.EventFileStorage;
 
-import java.io.IOException;
-import java.nio.file.Files;
-import java.nio.file.Paths;
 import java.time.Instant;
 import java.time.ZoneId;
 import java.time.ZonedDateTime;
@@ -35,12 +33,8 @@ public class SeedDataGenerator {
         events.add(createEvent("Parent-Teacher Conference", now.plusDays(2).withHour(11), 60));
         events.add(createEvent("Vacation Flight", now.plusDays(5).withHour(6), 120));
 
-        try {
-            String json = JsonUtil.toJson(events);
-            Files.write(Paths.get(OUTPUT_PATH), json.getBytes());
-        } catch (IOException e) {
-            throw new RuntimeException("Failed to write seed data to file", e);
-        }
+        // Written through the file storage so the checksum and previous generation stay consistent.
+        new EventFileStorage(OUTPUT_PATH).saveEvents(events);
     }
 
     private static Event createEvent(String title, ZonedDateTime startTime, int durationMinutes) {
@@ -0,0 +1,102 @@
+package com.calendar.api;
+
+import com.calendar.exception.ValidationException;
+import com.calendar.model.Event;
+import com.calendar.model.EventView;
+import com.calendar.util.JsonUtil;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EventArrayWriterTest {
+
+    @Test
+    void testWritesSameJsonAsSerializingTheList() throws IOException {
+        List<Event> events = Arrays.asList(new Event("Standup", 1000L, 2000L), new Event(null, 3000L, 4000L));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        EventArrayWriter.write(() -> out, action -> events.forEach(action));
+
+        String json = out.toString(StandardCharsets.UTF_8.name());
+        assertEquals(events, Arrays.asList(JsonUtil.fromJson(json, Event[].class)));
+        assertEquals("[{\"title\":\"Standup\",\"startEpochMillis\":1000,\"endEpochMillis\":2000},"
+                + "{\"title\":null,\"startEpochMillis\":3000,\"endEpochMillis\":4000}]", json);
+    }
+
+    @Test
+    void testWritesFlyweightViewsAsTheyArrive() throws IOException {
+        MutableView view = new MutableView();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        EventArrayWriter.write(() -> out, action -> {
+            for (long start = 0; start < 3; start++) {
+                view.start = start;
+                action.accept(view);
+            }
+        });
+
+        assertEquals(Arrays.asList(new Event("View", 0L, 1L), new Event("View", 1L, 2L), new Event("View", 2L, 3L)),
+                Arrays.asList(JsonUtil.fromJson(out.toString(StandardCharsets.UTF_8.name()), Event[].class)));
+    }
+
+    @Test
+    void testEmptySourceWritesEmptyArray() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        EventArrayWriter.write(() -> out, action -> { });
+        assertEquals("[]", out.toString(StandardCharsets.UTF_8.name()));
+    }
+
+    @Test
+    void testStreamIsNotOpenedIfSourceFailsFirst() {
+        boolean[] opened = {false};
+        assertThrows(ValidationException.class, () -> EventArrayWriter.write(() -> {
+            opened[0] = true;
+            return new ByteArrayOutputStream();
+        }, action -> {
+            throw new ValidationException("Invalid timezone: Mars/Base");
+        }));
+        assertFalse(opened[0]);
+    }
+
+    @Test
+    void testWriteFailureIsRethrownAsIOException() {
+        OutputStream broken = new OutputStream() {
+            @Override
+            public void write(int b) throws IOException {
+                throw new IOException("Connection reset");
+            }
+        };
+        EventView event = new Event("Big", 0L, 1L);
+        assertThrows(IOException.class, () -> EventArrayWriter.write(() -> broken, action -> {
+            for (int i = 0; i < 10_000; i++) {
+                action.accept(event);
+            }
+        }));
+    }
+
+    private static final class MutableView implements EventView {
+        long start;
+
+        @Override
+        public String getTitle() {
+            return "View";
+        }
+
+        @Override
+        public long getStartEpochMillis() {
+            return start;
+        }
+
+        @Override
+        public long getEndEpochMillis() {
+            return start + 1;
+        }
+    }
+}
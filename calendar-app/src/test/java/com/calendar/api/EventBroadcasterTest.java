@@ -0,0 +1,217 @@
+package com.calendar.api;
+
+import com.calendar.dto.EventChanges;
+import com.calendar.exception.ValidationException;
+import com.calendar.model.Event;
+import com.calendar.service.CalendarService;
+import com.calendar.service.impl.CalendarServiceImpl;
+import com.calendar.storage.EventStorage;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class EventBroadcasterTest {
+
+    private List<Event> stored;
+    private CalendarService service;
+    private EventBroadcaster broadcaster;
+
+    @BeforeEach
+    void setUp() {
+        stored = new ArrayList<>();
+        EventStorage storage = mock(EventStorage.class, CALLS_REAL_METHODS);
+        when(storage.loadEvents()).thenAnswer(invocation -> new ArrayList<>(stored));
+        doAnswer(invocation -> {
+            stored.clear();
+            stored.addAll(invocation.getArgument(0));
+            return null;
+        }).when(storage).saveEvents(anyList());
+        service = new CalendarServiceImpl(storage);
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (broadcaster != null) {
+            broadcaster.close();
+        }
+    }
+
+    @Test
+    void testSubscribersReceiveEventsOfTheirDay() throws Exception {
+        broadcaster = started(new EventBroadcaster(service));
+        RecordingSubscriber utc = new RecordingSubscriber();
+        RecordingSubscriber kolkata = new RecordingSubscriber();
+        RecordingSubscriber nextDay = new RecordingSubscriber();
+        broadcaster.subscribe("UTC", "2025-11-01", utc);
+        broadcaster.subscribe("Asia/Kolkata", "2025-11-02", kolkata);
+        broadcaster.subscribe("UTC", "2025-11-02", nextDay);
+
+        Event late = event("Late", "2025-11-01T20:00", "2025-11-01T21:00");
+        service.addEvent(late);
+        service.addEvent(event("Early", "2025-11-01T08:00", "2025-11-01T09:00"));
+
+        waitFor(() -> utc.received.size() == 2 && kolkata.received.size() == 1);
+        assertEquals(late, utc.received.get(0));
+        assertEquals(late, kolkata.received.get(0));
+        assertTrue(nextDay.received.isEmpty());
+        assertEquals(service.getChanges(null, 1).getCursor(), utc.lastId);
+    }
+
+    @Test
+    void testEachMessageCarriesCursorAfterItsChange() throws Exception {
+        broadcaster = started(new EventBroadcaster(service));
+        RecordingSubscriber subscriber = new RecordingSubscriber();
+        broadcaster.subscribe("UTC", "2025-11-01", subscriber);
+
+        service.addEvents(Arrays.asList(
+                event("Early", "2025-11-01T08:00", "2025-11-01T09:00"),
+                event("Late", "2025-11-01T20:00", "2025-11-01T21:00")));
+
+        waitFor(() -> subscriber.ids.size() == 2);
+        // A client that dropped after the first message resumes with exactly the second.
+        EventChanges rest = service.getChanges(subscriber.ids.get(0), 10);
+        assertEquals(1, rest.getChanges().size());
+        assertEquals(subscriber.received.get(1), rest.getChanges().get(0).getEvent());
+        assertEquals(rest.getCursor(), subscriber.ids.get(1));
+        assertEquals(subscriber.ids.get(1), subscriber.lastId);
+    }
+
+    @Test
+    void testCancelledSubscriptionReceivesNothing() throws Exception {
+        broadcaster = started(new EventBroadcaster(service));
+        RecordingSubscriber cancelled = new RecordingSubscriber();
+        RecordingSubscriber active = new RecordingSubscriber();
+        broadcaster.subscribe("UTC", "2025-11-01", cancelled).cancel();
+        broadcaster.subscribe("UTC", "2025-11-01", active);
+
+        service.addEvent(event("Late", "2025-11-01T20:00", "2025-11-01T21:00"));
+
+        waitFor(() -> active.received.size() == 1);
+        assertTrue(cancelled.received.isEmpty());
+        assertEquals(1, broadcaster.stats().get("subscribers"));
+    }
+
+    @Test
+    void testSlowSubscriberIsDisconnectedWithoutBlockingOthers() throws Exception {
+        broadcaster = started(new EventBroadcaster(service, 2, 2));
+        CountDownLatch release = new CountDownLatch(1);
+        RecordingSubscriber slow = new RecordingSubscriber() {
+            @Override
+            public void send(String name, Object data, String id) {
+                try {
+                    release.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        };
+        RecordingSubscriber fast = new RecordingSubscriber();
+        broadcaster.subscribe("UTC", "2025-11-01", slow);
+        broadcaster.subscribe("UTC", "2025-11-01", fast);
+
+        for (int hour = 0; hour < 6; hour++) {
+            service.addEvent(event("E" + hour, String.format("2025-11-01T%02d:00", hour),
+                    String.format("2025-11-01T%02d:30", hour)));
+            int expected = hour + 1;
+            waitFor(() -> fast.received.size() == expected);
+        }
+
+        assertTrue(slow.closed);
+        release.countDown();
+        assertEquals(1L, broadcaster.stats().get("disconnected"));
+        assertEquals(1, broadcaster.stats().get("subscribers"));
+    }
+
+    @Test
+    void testStalledWriteIsAbortedWithoutHoldingTheSender() throws Exception {
+        broadcaster = started(new EventBroadcaster(service, 16, 1, 100L));
+        CountDownLatch never = new CountDownLatch(1);
+        RecordingSubscriber stalled = new RecordingSubscriber() {
+            @Override
+            public void send(String name, Object data, String id) {
+                try {
+                    // Like a socket write to a client that stopped reading.
+                    never.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        };
+        RecordingSubscriber active = new RecordingSubscriber();
+        broadcaster.subscribe("UTC", "2025-11-01", stalled);
+        broadcaster.subscribe("UTC", "2025-11-01", active);
+
+        for (int hour = 0; hour < 3; hour++) {
+            service.addEvent(event("E" + hour, String.format("2025-11-01T%02d:00", hour),
+                    String.format("2025-11-01T%02d:30", hour)));
+        }
+
+        // The only sender thread gets past the stalled subscriber.
+        waitFor(() -> active.received.size() == 3 && stalled.closed);
+        assertEquals(1L, broadcaster.stats().get("disconnected"));
+        assertEquals(1, broadcaster.stats().get("subscribers"));
+    }
+
+    @Test
+    void testInvalidSubscriptionIsRejected() {
+        broadcaster = new EventBroadcaster(service);
+        assertThrows(ValidationException.class, () -> broadcaster.subscribe("Mars/Olympus", null, new RecordingSubscriber()));
+        assertThrows(ValidationException.class, () -> broadcaster.subscribe("UTC", "tomorrow", new RecordingSubscriber()));
+    }
+
+    private static EventBroadcaster started(EventBroadcaster broadcaster) {
+        broadcaster.start();
+        return broadcaster;
+    }
+
+    private static Event event(String title, String start, String end) {
+        return new Event(title, LocalDateTime.parse(start).toInstant(ZoneOffset.UTC).toEpochMilli(),
+                LocalDateTime.parse(end).toInstant(ZoneOffset.UTC).toEpochMilli());
+    }
+
+    private static void waitFor(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.nanoTime() < deadline, "Timed out waiting for subscribers");
+            Thread.sleep(5);
+        }
+    }
+
+    private static class RecordingSubscriber implements EventBroadcaster.Subscriber {
+        final List<Event> received = new CopyOnWriteArrayList<>();
+        final List<String> ids = new CopyOnWriteArrayList<>();
+        volatile String lastId;
+        volatile boolean closed;
+
+        @Override
+        public void send(String name, Object data, String id) {
+            if ("added".equals(name)) {
+                received.add((Event) data);
+                ids.add(id);
+            }
+            lastId = id;
+        }
+
+        @Override
+        public void heartbeat() {
+        }
+
+        @Override
+        public void close() {
+            closed = true;
+        }
+    }
+}
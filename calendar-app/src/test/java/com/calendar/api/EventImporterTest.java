@@ -0,0 +1,129 @@
+package com.calendar.api;
+
+import com.calendar.dto.EventBatchResult;
+import com.calendar.exception.EventStorageException;
+import com.calendar.model.Event;
+import com.calendar.service.CalendarService;
+import com.calendar.service.impl.CalendarServiceImpl;
+import com.calendar.storage.EventStorage;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class EventImporterTest {
+
+    private List<Event> stored;
+    private EventStorage storage;
+    private CalendarService service;
+
+    @BeforeEach
+    void setUp() {
+        stored = new ArrayList<>();
+        storage = mock(EventStorage.class, CALLS_REAL_METHODS);
+        when(storage.loadEvents()).thenAnswer(invocation -> new ArrayList<>(stored));
+        doAnswer(invocation -> {
+            stored.clear();
+            stored.addAll(invocation.getArgument(0));
+            return null;
+        }).when(storage).saveEvents(anyList());
+        service = spy(new CalendarServiceImpl(storage));
+    }
+
+    @Test
+    void testImportsInChunksAndReportsEveryLine() throws IOException {
+        String input = request("Standup", "09:00", "09:15") + "\n"
+                + "{not json\n"
+                + request("Overlap", "09:10", "09:30") + "\n"
+                + "\n"
+                + request("Backwards", "11:00", "10:00") + "\n"
+                + request("Lunch", "12:00", "13:00");
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        Map<EventBatchResult.Status, Integer> counts = new EventImporter(service, 2).importNdjson(stream(input), out);
+
+        List<JsonNode> lines = parse(out);
+        assertEquals(5, lines.size());
+        assertLine(lines.get(0), 1, "ADDED");
+        assertLine(lines.get(1), 2, "INVALID");
+        assertEquals("Invalid input format", lines.get(1).get("message").asText());
+        assertLine(lines.get(2), 3, "CONFLICT");
+        assertEquals("Overlap", lines.get(2).get("event").get("title").asText());
+        assertLine(lines.get(3), 5, "INVALID");
+        assertEquals("End time must be after start time.", lines.get(3).get("message").asText());
+        assertLine(lines.get(4), 6, "ADDED");
+
+        assertEquals(2, (int) counts.get(EventBatchResult.Status.ADDED));
+        assertEquals(1, (int) counts.get(EventBatchResult.Status.CONFLICT));
+        assertEquals(2, (int) counts.get(EventBatchResult.Status.INVALID));
+        assertEquals(2, stored.size());
+        // Chunks are lines 1-2, 3 and 5, and 6; the second adds nothing, so it is not saved.
+        verify(service, times(3)).addEvents(anyList());
+        verify(storage, times(2)).saveEvents(anyList());
+    }
+
+    @Test
+    void testStorageFailureStopsImportAfterEarlierChunks() throws IOException {
+        doAnswer(invocation -> {
+            List<Event> events = invocation.getArgument(0);
+            if (events.size() > 1) {
+                throw new EventStorageException("Disk full", null);
+            }
+            stored.clear();
+            stored.addAll(events);
+            return null;
+        }).when(storage).saveEvents(anyList());
+
+        String input = request("First", "09:00", "10:00") + "\n"
+                + request("Second", "10:00", "11:00") + "\n"
+                + request("Third", "11:00", "12:00") + "\n";
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        new EventImporter(service, 1).importNdjson(stream(input), out);
+
+        List<JsonNode> lines = parse(out);
+        assertEquals(2, lines.size());
+        assertLine(lines.get(0), 1, "ADDED");
+        assertEquals("Error saving or loading data", lines.get(1).get("error").asText());
+        verify(service, times(2)).addEvents(anyList());
+    }
+
+    @Test
+    void testRejectsNonPositiveChunkSize() {
+        assertThrows(IllegalArgumentException.class, () -> new EventImporter(service, 0));
+    }
+
+    private static String request(String title, String start, String end) {
+        return "{\"title\":\"" + title + "\",\"startDate\":\"2025-07-14\",\"startTime\":\"" + start
+                + "\",\"endDate\":\"2025-07-14\",\"endTime\":\"" + end + "\",\"zone\":\"UTC\"}";
+    }
+
+    private static ByteArrayInputStream stream(String input) {
+        return new ByteArrayInputStream(input.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static List<JsonNode> parse(ByteArrayOutputStream out) throws IOException {
+        ObjectMapper mapper = new ObjectMapper();
+        List<JsonNode> lines = new ArrayList<>();
+        for (String line : out.toString(StandardCharsets.UTF_8.name()).split("\n")) {
+            lines.add(mapper.readTree(line));
+        }
+        return lines;
+    }
+
+    private static void assertLine(JsonNode node, long line, String status) {
+        assertEquals(line, node.get("line").asLong());
+        assertEquals(status, node.get("status").asText());
+    }
+}
@@ -0,0 +1,61 @@
+package com.calendar.index;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class FreeBusyBitmapTest {
+
+    private static final long DAY = 20_000L * FreeBusyBitmap.DAY_MILLIS;
+    private static final long MINUTE = 60_000L;
+
+    @Test
+    public void testEmptyDayIsFree() {
+        FreeBusyBitmap bitmap = FreeBusyBitmap.empty(DAY, MINUTE);
+        assertEquals(1440, bitmap.size());
+        assertEquals(0, bitmap.nextFree(0));
+        assertEquals(-1, bitmap.nextBusy(0));
+    }
+
+    @Test
+    public void testPartialMinutesAreBusy() {
+        FreeBusyBitmap bitmap = FreeBusyBitmap.empty(DAY, MINUTE)
+                .withBusy(DAY + 10 * MINUTE + 30_000L, DAY + 12 * MINUTE + 1L);
+
+        assertFalse(bitmap.isBusy(9));
+        assertTrue(bitmap.isBusy(10));
+        assertTrue(bitmap.isBusy(12));
+        assertFalse(bitmap.isBusy(13));
+        assertEquals(10, bitmap.nextBusy(0));
+        assertEquals(13, bitmap.nextFree(10));
+    }
+
+    @Test
+    public void testScanCrossesWordBoundaries() {
+        FreeBusyBitmap bitmap = FreeBusyBitmap.empty(DAY, MINUTE).withBusy(DAY + 60 * MINUTE, DAY + 200 * MINUTE);
+
+        assertEquals(60, bitmap.nextBusy(0));
+        assertEquals(200, bitmap.nextFree(60));
+        assertEquals(-1, bitmap.nextBusy(200));
+    }
+
+    @Test
+    public void testFullDayHasNoFreeSlot() {
+        FreeBusyBitmap bitmap = FreeBusyBitmap.empty(DAY, MINUTE).withBusy(DAY - 1, DAY + FreeBusyBitmap.DAY_MILLIS + 1);
+        assertEquals(-1, bitmap.nextFree(0));
+        assertEquals(1439, bitmap.nextBusy(1439));
+    }
+
+    @Test
+    public void testWithBusyLeavesOriginalUnchanged() {
+        FreeBusyBitmap empty = FreeBusyBitmap.empty(DAY, MINUTE);
+        empty.withBusy(DAY, DAY + MINUTE);
+        assertFalse(empty.isBusy(0));
+    }
+
+    @Test
+    public void testRejectsSlotLengthNotDividingDay() {
+        assertThrows(IllegalArgumentException.class, () -> FreeBusyBitmap.empty(DAY, 7 * MINUTE));
+        assertThrows(IllegalArgumentException.class, () -> FreeBusyBitmap.empty(DAY + 1, MINUTE));
+    }
+}
@@ -0,0 +1,86 @@
+package com.calendar.index;
+
+import com.calendar.model.Event;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class IntervalIndexTest {
+
+    @Test
+    public void testEmptyIndex() {
+        IntervalIndex index = IntervalIndex.empty();
+        assertEquals(0, index.size());
+        assertNull(index.findFirstOverlap(0L, Long.MAX_VALUE));
+        assertTrue(index.findOverlapping(0L, Long.MAX_VALUE).isEmpty());
+    }
+
+    @Test
+    public void testFindFirstOverlap() {
+        IntervalIndex index = IntervalIndex.of(Arrays.asList(
+                new Event("B", 3000L, 4000L),
+                new Event("A", 1000L, 2000L)));
+
+        assertEquals("A", index.findFirstOverlap(1500L, 3500L).getTitle());
+        assertEquals("B", index.findFirstOverlap(2000L, 3001L).getTitle());
+        assertNull(index.findFirstOverlap(2000L, 3000L));
+    }
+
+    @Test
+    public void testFindOverlappingIncludesLongRunningEvents() {
+        IntervalIndex index = IntervalIndex.of(Arrays.asList(
+                new Event("Conference", 0L, 10_000L),
+                new Event("Short", 100L, 200L),
+                new Event("Later", 6000L, 7000L)));
+
+        List<Event> result = index.findOverlapping(5000L, 6500L);
+        assertEquals(2, result.size());
+        assertEquals("Conference", result.get(0).getTitle());
+        assertEquals("Later", result.get(1).getTitle());
+    }
+
+    @Test
+    public void testInsertIsPersistent() {
+        IntervalIndex before = IntervalIndex.of(Arrays.asList(new Event("A", 1000L, 2000L)));
+        IntervalIndex after = before.insert(new Event("B", 3000L, 4000L));
+
+        assertEquals(1, before.size());
+        assertEquals(2, after.size());
+        assertNull(before.findFirstOverlap(3000L, 4000L));
+        assertEquals("B", after.findFirstOverlap(3000L, 4000L).getTitle());
+    }
+
+    @Test
+    public void testMatchesLinearScan() {
+        Random random = new Random(42);
+        List<Event> events = new ArrayList<>();
+        IntervalIndex index = IntervalIndex.empty();
+        for (int i = 0; i < 2000; i++) {
+            long start = random.nextInt(1_000_000);
+            Event event = new Event("E" + i, start, start + 1 + random.nextInt(5000));
+            events.add(event);
+            index = index.insert(event);
+        }
+        events.sort(Comparator.comparingLong(Event::getStartEpochMillis));
+        assertEquals(events, index.toList());
+
+        for (int i = 0; i < 500; i++) {
+            long start = random.nextInt(1_000_000);
+            long end = start + 1 + random.nextInt(20_000);
+            List<Event> expected = new ArrayList<>();
+            for (Event e : events) {
+                if (e.getStartEpochMillis() < end && e.getEndEpochMillis() > start) {
+                    expected.add(e);
+                }
+            }
+            assertEquals(expected, index.findOverlapping(start, end));
+            assertEquals(expected.isEmpty() ? null : expected.get(0), index.findFirstOverlap(start, end));
+        }
+    }
+}
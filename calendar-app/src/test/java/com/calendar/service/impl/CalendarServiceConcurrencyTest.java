@@ -0,0 +1,123 @@
+package com.calendar.service.impl;
+
+import com.calendar.exception.EventConflictException;
+import com.calendar.model.Event;
+import com.calendar.storage.impl.CachingEventStorage;
+import com.calendar.storage.impl.EventFileStorage;
+import com.calendar.storage.impl.GroupCommitEventStorage;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CalendarServiceConcurrencyTest {
+
+    private static final int WRITERS = 16;
+    private static final int ATTEMPTS_PER_WRITER = 50;
+    private static final long DAY_START = 1_762_000_000_000L;
+    private static final long MINUTE = 60_000L;
+
+    private Path tempFile;
+    private CachingEventStorage cachingStorage;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        tempFile = Files.createTempFile("events", ".json");
+        cachingStorage = new CachingEventStorage(new EventFileStorage(tempFile.toString()), tempFile.toString());
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        Files.deleteIfExists(tempFile);
+    }
+
+    @Test
+    void testConcurrentAddsLoseNothingAndNeverOverlap() throws Exception {
+        assertConcurrentAddsAreLinearizable(new CalendarServiceImpl(cachingStorage));
+    }
+
+    @Test
+    void testConcurrentAddsWithGroupCommit() throws Exception {
+        GroupCommitEventStorage groupCommit = new GroupCommitEventStorage(cachingStorage, 8, 1L);
+        try {
+            assertConcurrentAddsAreLinearizable(new CalendarServiceImpl(groupCommit));
+        } finally {
+            groupCommit.close();
+        }
+    }
+
+    private void assertConcurrentAddsAreLinearizable(CalendarServiceImpl service) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(WRITERS + 2);
+        CountDownLatch startGate = new CountDownLatch(1);
+        ConcurrentLinkedQueue<Event> accepted = new ConcurrentLinkedQueue<>();
+        AtomicBoolean writing = new AtomicBoolean(true);
+        List<Future<?>> futures = new ArrayList<>();
+
+        for (int w = 0; w < WRITERS; w++) {
+            final int writer = w;
+            futures.add(pool.submit(() -> {
+                Random random = new Random(writer);
+                startGate.await();
+                for (int i = 0; i < ATTEMPTS_PER_WRITER; i++) {
+                    long start = DAY_START + random.nextInt(24 * 60) * MINUTE;
+                    Event event = new Event("W" + writer + "-" + i, start, start + (15 + random.nextInt(45)) * MINUTE);
+                    try {
+                        accepted.add(service.addEvent(event));
+                    } catch (EventConflictException expected) {
+                        // another writer got there first
+                    }
+                }
+                return null;
+            }));
+        }
+        for (int r = 0; r < 2; r++) {
+            futures.add(pool.submit(() -> {
+                startGate.await();
+                while (writing.get()) {
+                    assertNoOverlaps(service.listEventsForDay("2025-11-01", "UTC"));
+                }
+                return null;
+            }));
+        }
+
+        startGate.countDown();
+        for (int i = 0; i < WRITERS; i++) {
+            futures.get(i).get(60, TimeUnit.SECONDS);
+        }
+        writing.set(false);
+        for (Future<?> f : futures) {
+            f.get(60, TimeUnit.SECONDS);
+        }
+        pool.shutdown();
+
+        List<Event> persisted = new EventFileStorage(tempFile.toString()).loadEvents();
+        assertFalse(accepted.isEmpty());
+        assertEquals(accepted.size(), persisted.size());
+        assertTrue(persisted.containsAll(accepted));
+        assertNoOverlaps(persisted);
+    }
+
+    private static void assertNoOverlaps(List<Event> events) {
+        List<Event> sorted = new ArrayList<>(events);
+        sorted.sort((a, b) -> Long.compare(a.getStartEpochMillis(), b.getStartEpochMillis()));
+        for (int i = 1; i < sorted.size(); i++) {
+            assertTrue(sorted.get(i - 1).getEndEpochMillis() <= sorted.get(i).getStartEpochMillis(),
+                    "Overlapping events " + sorted.get(i - 1) + " and " + sorted.get(i));
+        }
+    }
+}
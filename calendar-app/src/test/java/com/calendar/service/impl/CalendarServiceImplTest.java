@@ -1,7 +1,11 @@
 package com.calendar.service.impl;
 
+import com.calendar.dto.EventBatchResult;
+import com.calendar.dto.EventChange;
+import com.calendar.dto.EventChanges;
 import com.calendar.exception.EventConflictException;
 import com.calendar.exception.EventStorageException;
+import com.calendar.exception.ValidationException;
 import com.calendar.model.Event;
 import com.calendar.storage.EventStorage;
 import org.junit.jupiter.api.BeforeEach;
@@ -9,6 +13,8 @@ import org.junit.jupiter.api.Test;
 
 import java.time.*;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -20,7 +26,7 @@ class CalendarServiceImplTest {
 
     @BeforeEach
     void setUp() {
-        storage = mock(EventStorage.class);
+        storage = mock(EventStorage.class, CALLS_REAL_METHODS);
         service = new CalendarServiceImpl(storage);
     }
 
@@ -43,6 +49,15 @@ class CalendarServiceImplTest {
         assertThrowsExactly(EventConflictException.class, () -> service.addEvent(conflict));
     }
 
+    @Test
+    void testAddEventConflictDetectedByStorage() {
+        Event event = new Event("Meeting", epoch("2025-11-01T10:00", "America/New_York"), epoch("2025-11-01T11:00", "America/New_York"));
+        when(storage.loadEvents()).thenReturn(Collections.emptyList());
+        doThrow(new EventConflictException("Event conflicts with an existing event - Call")).when(storage).insertEvent(event);
+
+        assertThrowsExactly(EventConflictException.class, () -> service.addEvent(event));
+    }
+
 //    @Test
 //    void testAddEventThrowsStorageException() {
 //        Event event = new Event("Crash", epoch("2025-11-01T10:00", "America/New_York"), epoch("2025-11-01T11:00", "America/New_York"));
@@ -127,6 +142,246 @@ class CalendarServiceImplTest {
         assertEquals(1, results.size());
     }
 
+    @Test
+    void testListEventsForDayIncludesEventsSpanningDays() {
+        Event conference = new Event("Conference", epoch("2025-10-30T09:00", "UTC"), epoch("2025-11-02T17:00", "UTC"));
+        Event dinner = new Event("Dinner", epoch("2025-11-01T19:00", "UTC"), epoch("2025-11-01T21:00", "UTC"));
+        Event breakfast = new Event("Breakfast", epoch("2025-11-01T07:00", "UTC"), epoch("2025-11-01T08:00", "UTC"));
+        Event nextDay = new Event("Next Day", epoch("2025-11-02T07:00", "UTC"), epoch("2025-11-02T08:00", "UTC"));
+        when(storage.loadEvents()).thenReturn(Arrays.asList(dinner, nextDay, conference, breakfast));
+
+        List<Event> results = service.listEventsForDay("2025-11-01", "UTC");
+        assertEquals(Arrays.asList(conference, breakfast, dinner), results);
+    }
+
+    @Test
+    void testAddEventsReportsConflictsPerItemAndSavesOnce() {
+        Event existing = new Event("Call", epoch("2025-11-01T10:00", "UTC"), epoch("2025-11-01T11:00", "UTC"));
+        when(storage.loadEvents()).thenReturn(Collections.singletonList(existing));
+
+        Event late = new Event("Late", epoch("2025-11-01T15:00", "UTC"), epoch("2025-11-01T16:00", "UTC"));
+        Event beforeCall = new Event("Before call", epoch("2025-11-01T09:30", "UTC"), epoch("2025-11-01T10:30", "UTC"));
+        Event early = new Event("Early", epoch("2025-11-01T08:00", "UTC"), epoch("2025-11-01T09:00", "UTC"));
+        Event overlapsEarly = new Event("Overlaps early", epoch("2025-11-01T08:30", "UTC"), epoch("2025-11-01T09:15", "UTC"));
+        Event afterCall = new Event("After call", epoch("2025-11-01T10:45", "UTC"), epoch("2025-11-01T12:00", "UTC"));
+
+        List<EventBatchResult> results = service.addEvents(Arrays.asList(late, beforeCall, null, early, overlapsEarly, afterCall));
+
+        assertEquals(Arrays.asList(EventBatchResult.Status.ADDED, EventBatchResult.Status.CONFLICT,
+                EventBatchResult.Status.INVALID, EventBatchResult.Status.ADDED, EventBatchResult.Status.CONFLICT,
+                EventBatchResult.Status.CONFLICT), statusesOf(results));
+        assertEquals("Event conflicts with an existing event - Call", results.get(1).getMessage());
+        assertEquals("Event conflicts with another event in the batch - Early", results.get(4).getMessage());
+        assertEquals("Event conflicts with an existing event - Call", results.get(5).getMessage());
+        verify(storage, times(1)).saveEvents(Arrays.asList(early, existing, late));
+    }
+
+    @Test
+    void testAddEventsUpdatesFreeBusy() {
+        List<Event> stored = new ArrayList<>();
+        when(storage.loadEvents()).thenAnswer(invocation -> stored);
+        doAnswer(invocation -> {
+            stored.clear();
+            stored.addAll(invocation.getArgument(0));
+            return null;
+        }).when(storage).saveEvents(anyList());
+
+        assertEquals(Collections.singletonList(epoch("2099-03-02T00:00", "UTC")),
+                startsOf(service.findAvailableSlots(60, "2099-03-02", "2099-03-02", 1, "UTC")));
+        service.addEvents(Collections.singletonList(
+                new Event("Night", epoch("2099-03-02T00:00", "UTC"), epoch("2099-03-02T08:00", "UTC"))));
+
+        assertEquals(Collections.singletonList(epoch("2099-03-02T08:00", "UTC")),
+                startsOf(service.findAvailableSlots(60, "2099-03-02", "2099-03-02", 1, "UTC")));
+    }
+
+    @Test
+    void testAddEventsFailsWholeBatchWhenSaveFails() {
+        when(storage.loadEvents()).thenReturn(Collections.emptyList());
+        doThrow(new EventStorageException("Disk full", null)).when(storage).saveEvents(anyList());
+
+        assertThrows(EventStorageException.class, () -> service.addEvents(Collections.singletonList(
+                new Event("Meeting", epoch("2025-11-01T10:00", "UTC"), epoch("2025-11-01T11:00", "UTC")))));
+    }
+
+    private List<EventBatchResult.Status> statusesOf(List<EventBatchResult> results) {
+        List<EventBatchResult.Status> statuses = new ArrayList<>();
+        for (EventBatchResult result : results) {
+            statuses.add(result.getStatus());
+        }
+        return statuses;
+    }
+
+    @Test
+    void testForEachEventForDayMatchesList() {
+        Event conference = new Event("Conference", epoch("2025-10-30T09:00", "UTC"), epoch("2025-11-02T17:00", "UTC"));
+        Event dinner = new Event("Dinner", epoch("2025-11-01T19:00", "UTC"), epoch("2025-11-01T21:00", "UTC"));
+        Event nextDay = new Event("Next Day", epoch("2025-11-02T07:00", "UTC"), epoch("2025-11-02T08:00", "UTC"));
+        when(storage.loadEvents()).thenReturn(Arrays.asList(dinner, nextDay, conference));
+
+        List<Event> streamed = new ArrayList<>();
+        service.forEachEventForDay("2025-11-01", "UTC", view -> streamed.add(view.toEvent()));
+
+        assertEquals(service.listEventsForDay("2025-11-01", "UTC"), streamed);
+        assertThrows(ValidationException.class, () -> service.forEachEventForDay("2025-11-01", "Mars/Base", view -> { }));
+    }
+
+    @Test
+    void testForEachRemainingEventForTodaySkipsEndedEvents() {
+        ZonedDateTime now = ZonedDateTime.now(ZoneOffset.UTC);
+        long startOfDay = now.toLocalDate().atStartOfDay(ZoneOffset.UTC).toInstant().toEpochMilli();
+        long nowMillis = now.toInstant().toEpochMilli();
+        Event ended = new Event("Ended", startOfDay, Math.max(startOfDay + 1, nowMillis - 1));
+        Event later = new Event("Later", nowMillis + 60_000L, nowMillis + 120_000L);
+        when(storage.loadEvents()).thenReturn(Arrays.asList(ended, later));
+
+        List<Event> streamed = new ArrayList<>();
+        service.forEachRemainingEventForToday("UTC", view -> streamed.add(view.toEvent()));
+
+        assertFalse(streamed.contains(ended));
+        assertEquals(service.listRemainingEventsForToday("UTC"), streamed);
+    }
+
+    @Test
+    void testDayListIsCachedUntilAnOverlappingEventIsAdded() {
+        List<Event> stored = new ArrayList<>(Collections.singletonList(
+                new Event("Breakfast", epoch("2025-11-01T07:00", "UTC"), epoch("2025-11-01T08:00", "UTC"))));
+        when(storage.loadEvents()).thenAnswer(invocation -> new ArrayList<>(stored));
+        doAnswer(invocation -> {
+            stored.clear();
+            stored.addAll(invocation.getArgument(0));
+            return null;
+        }).when(storage).saveEvents(anyList());
+
+        service.listEventsForDay("2025-11-01", "UTC");
+        service.listEventsForDay("2025-11-02", "UTC");
+        service.listEventsForDay("2025-11-01", "UTC");
+        service.addEvent(new Event("Dinner", epoch("2025-11-01T19:00", "UTC"), epoch("2025-11-01T21:00", "UTC")));
+
+        assertEquals(2, service.listEventsForDay("2025-11-01", "UTC").size());
+        service.listEventsForDay("2025-11-02", "UTC");
+        Map<String, Object> stats = service.getDayCacheStats();
+        assertEquals(2L, stats.get("hits"));
+        assertEquals(3L, stats.get("misses"));
+        assertEquals(1L, stats.get("invalidations"));
+    }
+
+    @Test
+    void testDayListTagChangesWithWrites() {
+        List<Event> stored = new ArrayList<>();
+        long[] version = {0L};
+        when(storage.loadEvents()).thenAnswer(invocation -> new ArrayList<>(stored));
+        doAnswer(invocation -> version[0]).when(storage).getVersion();
+        doAnswer(invocation -> {
+            stored.clear();
+            stored.addAll(invocation.getArgument(0));
+            version[0]++;
+            return null;
+        }).when(storage).saveEvents(anyList());
+
+        String tag = service.getDayListTag("2025-11-01", "UTC", false);
+        assertEquals(tag, service.getDayListTag("2025-11-01", "UTC", false));
+        assertNotEquals(tag, service.getDayListTag("2025-11-02", "UTC", false));
+        assertNotEquals(tag, service.getDayListTag("2025-11-01", "Asia/Kolkata", false));
+
+        service.addEvent(new Event("Dinner", epoch("2025-11-01T19:00", "UTC"), epoch("2025-11-01T21:00", "UTC")));
+        assertNotEquals(tag, service.getDayListTag("2025-11-01", "UTC", false));
+    }
+
+    @Test
+    void testDayListTagOfUntrackedStorageIsNull() {
+        when(storage.loadEvents()).thenReturn(Collections.emptyList());
+
+        assertNull(service.getDayListTag(null, "UTC", false));
+        assertNull(service.getDayListTag(null, "UTC", true));
+    }
+
+    @Test
+    void testDayListTagRejectsRemainingEventsOfOtherDay() {
+        assertThrows(ValidationException.class, () -> service.getDayListTag("2025-11-01", "UTC", true));
+        assertThrows(ValidationException.class, () -> service.getDayListTag("2025-11-01", "Mars/Olympus", false));
+    }
+
+    @Test
+    void testAddedEventsAppearInChangeFeed() throws Exception {
+        when(storage.loadEvents()).thenReturn(Collections.emptyList());
+        String cursor = service.getChanges(null, 10).getCursor();
+        CompletableFuture<EventChanges> waiting = service.awaitChanges(cursor, 10, 5_000L);
+
+        Event dinner = new Event("Dinner", epoch("2025-11-01T19:00", "UTC"), epoch("2025-11-01T21:00", "UTC"));
+        service.addEvent(dinner);
+
+        EventChanges changes = waiting.get(5, TimeUnit.SECONDS);
+        assertEquals(1, changes.getChanges().size());
+        assertEquals(EventChange.Type.ADDED, changes.getChanges().get(0).getType());
+        assertEquals(dinner, changes.getChanges().get(0).getEvent());
+        assertEquals(changes.getChanges(), service.getChanges(cursor, 10).getChanges());
+    }
+
+    @Test
+    void testFailedEventIsNotInChangeFeed() {
+        when(storage.loadEvents()).thenReturn(Collections.emptyList());
+        doThrow(new EventStorageException("Disk full", null)).when(storage).saveEvents(anyList());
+        String cursor = service.getChanges(null, 10).getCursor();
+
+        assertThrows(EventStorageException.class, () -> service.addEvent(
+                new Event("Dinner", epoch("2025-11-01T19:00", "UTC"), epoch("2025-11-01T21:00", "UTC"))));
+        assertTrue(service.getChanges(cursor, 10).getChanges().isEmpty());
+    }
+
+    @Test
+    void testChangeFeedLimitsAreValidated() {
+        assertThrows(ValidationException.class, () -> service.getChanges(null, 0));
+        assertThrows(ValidationException.class, () -> service.getChanges(null, CalendarServiceImpl.MAX_CHANGES_PER_READ + 1));
+        assertThrows(ValidationException.class, () -> service.awaitChanges(null, 10, -1L));
+        assertThrows(ValidationException.class,
+                () -> service.awaitChanges(null, 10, CalendarServiceImpl.MAX_CHANGE_WAIT_MILLIS + 1));
+    }
+
+    @Test
+    void testFindAvailableSlotsAcrossDaysInOneQuery() {
+        when(storage.loadEvents()).thenReturn(Arrays.asList(
+                new Event("Morning", epoch("2099-03-02T00:00", "UTC"), epoch("2099-03-02T09:00", "UTC")),
+                new Event("Rest of day", epoch("2099-03-02T10:00", "UTC"), epoch("2099-03-03T12:00", "UTC")),
+                new Event("Afternoon", epoch("2099-03-03T12:20", "UTC"), epoch("2099-03-04T00:00", "UTC"))));
+
+        List<Map<String, Object>> slots = service.findAvailableSlots(30, "2099-03-02", "2099-03-05", 5, "UTC");
+
+        assertEquals(Arrays.asList(epoch("2099-03-02T09:00", "UTC"), epoch("2099-03-04T00:00", "UTC"),
+                epoch("2099-03-05T00:00", "UTC")), startsOf(slots));
+        assertEquals(epoch("2099-03-02T09:30", "UTC"), slots.get(0).get("endEpochMillis"));
+        verify(storage, times(1)).loadEvents();
+    }
+
+    @Test
+    void testFindAvailableSlotsStopsAtLimit() {
+        when(storage.loadEvents()).thenReturn(Collections.singletonList(
+                new Event("Lunch", epoch("2099-03-02T12:00", "UTC"), epoch("2099-03-02T13:00", "UTC"))));
+
+        List<Map<String, Object>> slots = service.findAvailableSlots(60, "2099-03-02", "2099-03-08", 2, "UTC");
+
+        assertEquals(Arrays.asList(epoch("2099-03-02T00:00", "UTC"), epoch("2099-03-02T13:00", "UTC")), startsOf(slots));
+    }
+
+    @Test
+    void testFindAvailableSlotsRejectsInvalidRange() {
+        assertThrows(ValidationException.class,
+                () -> service.findAvailableSlots(30, "2099-03-05", "2099-03-02", 5, "UTC"));
+        assertThrows(ValidationException.class,
+                () -> service.findAvailableSlots(30, "2099-03-01", "2099-04-01", 5, "UTC"));
+        assertThrows(ValidationException.class,
+                () -> service.findAvailableSlots(30, "2099-03-01", "2099-03-01", 0, "UTC"));
+        assertDoesNotThrow(() -> service.findAvailableSlots(30, "2099-03-01", "2099-03-31", 5, "UTC"));
+    }
+
+    private List<Object> startsOf(List<Map<String, Object>> slots) {
+        List<Object> starts = new ArrayList<>();
+        for (Map<String, Object> slot : slots) {
+            starts.add(slot.get("startEpochMillis"));
+        }
+        return starts;
+    }
+
     private long epoch(String datetime, String zoneId) {
         ZonedDateTime zdt = ZonedDateTime.of(LocalDateTime.parse(datetime), ZoneId.of(zoneId));
         return zdt.toInstant().toEpochMilli();
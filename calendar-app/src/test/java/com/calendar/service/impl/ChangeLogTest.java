@@ -0,0 +1,135 @@
+package com.calendar.service.impl;
+
+import com.calendar.dto.EventChange;
+import com.calendar.dto.EventChanges;
+import com.calendar.exception.ValidationException;
+import com.calendar.model.Event;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ChangeLogTest {
+
+    private ChangeLog log;
+
+    @BeforeEach
+    void setUp() {
+        log = new ChangeLog("e1", 3);
+    }
+
+    @Test
+    void testReadWithoutCursorStartsAtNewestChange() {
+        append("First");
+        EventChanges changes = log.read(null, 10);
+
+        assertEquals("e1-1", changes.getCursor());
+        assertTrue(changes.getChanges().isEmpty());
+        assertFalse(changes.isReset());
+    }
+
+    @Test
+    void testReadReturnsChangesAfterCursorInPages() {
+        String cursor = log.read(null, 10).getCursor();
+        append("First", "Second", "Third");
+
+        EventChanges page = log.read(cursor, 2);
+        assertEquals(Arrays.asList("First", "Second"), titles(page));
+        assertTrue(page.isMore());
+
+        page = log.read(page.getCursor(), 2);
+        assertEquals(Collections.singletonList("Third"), titles(page));
+        assertFalse(page.isMore());
+        assertEquals("e1-3", page.getCursor());
+
+        assertTrue(log.read(page.getCursor(), 2).getChanges().isEmpty());
+    }
+
+    @Test
+    void testDroppedOrForeignCursorIsReset() {
+        append("First", "Second", "Third");
+        assertEquals(Collections.singletonList("Third"), titles(log.read("e1-2", 10)));
+
+        append("Fourth");
+        EventChanges stale = log.read("e1-0", 10);
+        assertTrue(stale.isReset());
+        assertEquals("e1-4", stale.getCursor());
+        assertTrue(stale.getChanges().isEmpty());
+
+        assertEquals(Arrays.asList("Second", "Third", "Fourth"), titles(log.read("e1-1", 10)));
+        assertTrue(log.read("e0-4", 10).isReset());
+        assertTrue(log.read("e1-9", 10).isReset());
+    }
+
+    @Test
+    void testMalformedCursorIsRejected() {
+        assertThrows(ValidationException.class, () -> log.read("e1", 10));
+        assertThrows(ValidationException.class, () -> log.read("e1-x", 10));
+        assertThrows(ValidationException.class, () -> log.read("-1", 10));
+    }
+
+    @Test
+    void testAwaitCompletesWithNextChange() throws Exception {
+        String cursor = log.read(null, 10).getCursor();
+        CompletableFuture<EventChanges> waiting = log.await(cursor, 10, 5_000L);
+        assertFalse(waiting.isDone());
+        assertEquals(1, log.waiting());
+
+        append("First");
+
+        assertEquals(Collections.singletonList("First"), titles(waiting.get(5, TimeUnit.SECONDS)));
+        assertEquals(0, log.waiting());
+    }
+
+    @Test
+    void testAwaitReturnsAtOnceWhenChangesArePending() {
+        append("First");
+        CompletableFuture<EventChanges> result = log.await("e1-0", 10, 5_000L);
+
+        assertTrue(result.isDone());
+        assertEquals(Collections.singletonList("First"), titles(result.join()));
+    }
+
+    @Test
+    void testAwaitTimesOutWithoutChanges() throws Exception {
+        CompletableFuture<EventChanges> waiting = log.await("e1-0", 10, 20L);
+
+        EventChanges changes = waiting.get(5, TimeUnit.SECONDS);
+        assertTrue(changes.getChanges().isEmpty());
+        assertEquals("e1-0", changes.getCursor());
+        assertEquals(0, log.waiting());
+    }
+
+    @Test
+    void testEachChangeCarriesCursorAfterIt() {
+        append("A", "B");
+
+        EventChanges changes = log.read("e1-0", 10);
+        assertEquals("e1-1", changes.getChanges().get(0).getCursor());
+        assertEquals("e1-2", changes.getChanges().get(1).getCursor());
+        assertEquals(Collections.singletonList("B"), titles(log.read(changes.getChanges().get(0).getCursor(), 10)));
+    }
+
+    private void append(String... titles) {
+        List<EventChange> changes = new ArrayList<>();
+        for (String title : titles) {
+            changes.add(EventChange.added(new Event(title, 1000L, 2000L)));
+        }
+        log.append(changes);
+    }
+
+    private static List<String> titles(EventChanges changes) {
+        List<String> titles = new ArrayList<>();
+        for (EventChange change : changes.getChanges()) {
+            titles.add(change.getEvent().getTitle());
+        }
+        return titles;
+    }
+}
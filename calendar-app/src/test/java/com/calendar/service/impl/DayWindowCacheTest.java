@@ -0,0 +1,300 @@
+package com.calendar.service.impl;
+
+import com.calendar.model.Event;
+import com.calendar.storage.EventStorage;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class DayWindowCacheTest {
+
+    private static final long DAY = 86_400_000L;
+
+    private List<Event> events;
+    private EventStorage storage;
+    private DayWindowCache cache;
+
+    @BeforeEach
+    void setUp() {
+        events = new ArrayList<>(Arrays.asList(
+                new Event("Monday", 1000L, 2000L),
+                new Event("Tuesday", DAY + 1000L, DAY + 2000L)));
+        storage = mock(EventStorage.class, CALLS_REAL_METHODS);
+        when(storage.loadEvents()).thenAnswer(invocation -> new ArrayList<>(events));
+        cache = new DayWindowCache(storage, 2);
+    }
+
+    @Test
+    void testRepeatedReadsHitCache() {
+        assertEquals(Collections.singletonList(new Event("Monday", 1000L, 2000L)), cache.get(0L, DAY));
+        assertEquals(Collections.singletonList(new Event("Monday", 1000L, 2000L)), cache.get(0L, DAY));
+
+        List<Event> streamed = new ArrayList<>();
+        cache.forEach(0L, DAY, e -> streamed.add(e.toEvent()));
+        assertEquals(Collections.singletonList(new Event("Monday", 1000L, 2000L)), streamed);
+
+        verify(storage, times(1)).loadEvents();
+        assertStats(1, 2, 1, 0, 0);
+        assertThrows(UnsupportedOperationException.class, () -> cache.get(0L, DAY).clear());
+    }
+
+    @Test
+    void testStreamedMissIsCached() {
+        List<Event> streamed = new ArrayList<>();
+        cache.forEach(DAY, 2 * DAY, e -> streamed.add(e.toEvent()));
+
+        assertEquals(streamed, cache.get(DAY, 2 * DAY));
+        verify(storage, times(1)).loadEvents();
+    }
+
+    @Test
+    void testLeastRecentlyUsedWindowIsEvicted() {
+        cache.get(0L, DAY);
+        cache.get(DAY, 2 * DAY);
+        cache.get(0L, DAY);
+        cache.get(2 * DAY, 3 * DAY);
+
+        assertStats(2, 1, 3, 1, 0);
+        cache.get(0L, DAY);
+        cache.get(DAY, 2 * DAY);
+        assertStats(2, 2, 4, 2, 0);
+    }
+
+    @Test
+    void testInvalidateDropsOnlyOverlappingWindows() {
+        cache.get(0L, DAY);
+        cache.get(DAY, 2 * DAY);
+
+        events.add(new Event("Late Monday", DAY - 1000L, DAY - 500L));
+        cache.invalidate(DAY - 1000L, DAY - 500L);
+
+        assertEquals(2, cache.get(0L, DAY).size());
+        cache.get(DAY, 2 * DAY);
+        assertStats(2, 1, 3, 0, 1);
+    }
+
+    @Test
+    void testLoadRacingInvalidationIsNotCached() {
+        when(storage.loadEvents()).thenAnswer(invocation -> {
+            List<Event> snapshot = new ArrayList<>(events);
+            // A write lands while this read is in flight.
+            cache.invalidate(5 * DAY, 6 * DAY);
+            return snapshot;
+        });
+
+        cache.get(0L, DAY);
+        cache.get(0L, DAY);
+
+        verify(storage, times(2)).loadEvents();
+        assertEquals(0, cache.stats().get("size"));
+    }
+
+    @Test
+    void testOversizedWindowIsNotCached() {
+        events.clear();
+        for (int i = 0; i <= DayWindowCache.MAX_EVENTS_PER_WINDOW; i++) {
+            events.add(new Event("E" + i, i, i + 1));
+        }
+        int[] count = {0};
+        cache.forEach(0L, DAY, e -> count[0]++);
+        cache.forEach(0L, DAY, e -> count[0]++);
+
+        assertEquals(2 * (DayWindowCache.MAX_EVENTS_PER_WINDOW + 1), count[0]);
+        // The first call stops loading at the limit and scans on its own; the second scans directly.
+        verify(storage, times(3)).loadEvents();
+        assertEquals(DayWindowCache.MAX_EVENTS_PER_WINDOW + 1, cache.get(0L, DAY).size());
+    }
+
+    @Test
+    void testOversizedWindowIsReadOutsideTheLock() throws Exception {
+        for (int i = 0; i <= DayWindowCache.MAX_EVENTS_PER_WINDOW; i++) {
+            events.add(new Event("E" + i, 2 * DAY + i, 2 * DAY + i + 1));
+        }
+        cache.get(0L, DAY);
+        cache.get(2 * DAY, 3 * DAY);
+        CountDownLatch reading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            reading.countDown();
+            assertTrue(release.await(5, TimeUnit.SECONDS));
+            return invocation.callRealMethod();
+        }).when(storage).findOverlapping(2 * DAY, 3 * DAY);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<List<Event>> oversized = executor.submit(() -> cache.get(2 * DAY, 3 * DAY));
+            assertTrue(reading.await(5, TimeUnit.SECONDS));
+
+            assertEquals(Collections.singletonList(new Event("Monday", 1000L, 2000L)), cache.get(0L, DAY));
+            cache.invalidate(5 * DAY, 5 * DAY + 1000L);
+
+            release.countDown();
+            assertEquals(DayWindowCache.MAX_EVENTS_PER_WINDOW + 1, oversized.get(5, TimeUnit.SECONDS).size());
+        } finally {
+            release.countDown();
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void testConcurrentMissesShareOneLoad() throws Exception {
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(storage.loadEvents()).thenAnswer(invocation -> {
+            loading.countDown();
+            assertTrue(release.await(5, TimeUnit.SECONDS));
+            return new ArrayList<>(events);
+        });
+        ExecutorService executor = Executors.newFixedThreadPool(3);
+        try {
+            Future<List<Event>> first = executor.submit(() -> cache.get(0L, DAY));
+            assertTrue(loading.await(5, TimeUnit.SECONDS));
+            Future<List<Event>> second = executor.submit(() -> cache.get(0L, DAY));
+            Future<List<Event>> streamed = executor.submit(() -> {
+                List<Event> collected = new ArrayList<>();
+                cache.forEach(0L, DAY, e -> collected.add(e.toEvent()));
+                return collected;
+            });
+            while (((Long) cache.stats().get("coalesced")) < 2) {
+                Thread.sleep(1);
+            }
+            release.countDown();
+
+            List<Event> expected = Collections.singletonList(new Event("Monday", 1000L, 2000L));
+            assertEquals(expected, first.get(5, TimeUnit.SECONDS));
+            assertEquals(expected, second.get(5, TimeUnit.SECONDS));
+            assertEquals(expected, streamed.get(5, TimeUnit.SECONDS));
+        } finally {
+            executor.shutdownNow();
+        }
+        verify(storage, times(1)).loadEvents();
+        assertStats(1, 0, 3, 0, 0);
+    }
+
+    @Test
+    void testSlowConsumerDoesNotHoldUpCallersSharingItsLoad() throws Exception {
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch clientGone = new CountDownLatch(1);
+        when(storage.loadEvents()).thenAnswer(invocation -> {
+            loading.countDown();
+            assertTrue(release.await(5, TimeUnit.SECONDS));
+            return new ArrayList<>(events);
+        });
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<?> slow = executor.submit(() -> cache.forEach(0L, DAY, e -> {
+                try {
+                    clientGone.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                }
+            }));
+            assertTrue(loading.await(5, TimeUnit.SECONDS));
+            Future<List<Event>> waiting = executor.submit(() -> {
+                List<Event> collected = new ArrayList<>();
+                cache.forEach(0L, DAY, e -> collected.add(e.toEvent()));
+                return collected;
+            });
+            while (((Long) cache.stats().get("coalesced")) < 1) {
+                Thread.sleep(1);
+            }
+            release.countDown();
+
+            assertEquals(1, waiting.get(5, TimeUnit.SECONDS).size());
+            assertFalse(slow.isDone());
+            clientGone.countDown();
+            slow.get(5, TimeUnit.SECONDS);
+        } finally {
+            executor.shutdownNow();
+        }
+        verify(storage, times(1)).loadEvents();
+    }
+
+    @Test
+    void testLoadIsNotSharedAcrossInvalidation() {
+        when(storage.loadEvents()).thenAnswer(invocation -> {
+            List<Event> snapshot = new ArrayList<>(events);
+            events.add(new Event("Late Monday", DAY - 1000L, DAY - 500L));
+            cache.invalidate(DAY - 1000L, DAY - 500L);
+            // Started after the write: must not receive the snapshot read before it.
+            assertEquals(2, cache.get(0L, DAY).size());
+            return snapshot;
+        }).thenAnswer(invocation -> new ArrayList<>(events));
+
+        assertEquals(1, cache.get(0L, DAY).size());
+        assertEquals(0L, cache.stats().get("coalesced"));
+    }
+
+    @Test
+    void testFailingStreamStillCachesWindow() {
+        RuntimeException clientGone = new IllegalStateException("client gone");
+        assertSame(clientGone, assertThrows(IllegalStateException.class,
+                () -> cache.forEach(0L, DAY, e -> {
+                    throw clientGone;
+                })));
+
+        assertEquals(1, cache.get(0L, DAY).size());
+        verify(storage, times(1)).loadEvents();
+    }
+
+    @Test
+    void testExternalChangeDropsAllWindows() {
+        long[] version = {0L};
+        doAnswer(invocation -> version[0]).when(storage).getVersion();
+        cache = new DayWindowCache(storage, 2);
+        cache.get(0L, DAY);
+        cache.get(DAY, 2 * DAY);
+
+        // e.g. seed data written to the file by another process
+        events.add(new Event("Seeded", DAY + 5000L, DAY + 6000L));
+        version[0]++;
+
+        assertEquals(2, cache.get(DAY, 2 * DAY).size());
+        cache.get(0L, DAY);
+        assertStats(2, 0, 4, 0, 2);
+    }
+
+    @Test
+    void testOwnWritesDoNotDropOtherWindows() {
+        long[] version = {0L};
+        doAnswer(invocation -> version[0]).when(storage).getVersion();
+        StorageVersionWatch watch = new StorageVersionWatch(storage);
+        cache = new DayWindowCache(storage, watch, 2);
+        cache.get(0L, DAY);
+        cache.get(DAY, 2 * DAY);
+
+        watch.writeStarted();
+        events.add(new Event("Late Monday", DAY - 1000L, DAY - 500L));
+        version[0]++;
+        cache.invalidate(DAY - 1000L, DAY - 500L);
+        cache.get(DAY, 2 * DAY);
+        version[0]++;
+        watch.writeFinished();
+
+        assertEquals(2, cache.get(0L, DAY).size());
+        cache.get(DAY, 2 * DAY);
+        assertStats(2, 2, 3, 0, 1);
+    }
+
+    private void assertStats(int size, long hits, long misses, long evictions, long invalidations) {
+        Map<String, Object> stats = cache.stats();
+        assertEquals(size, stats.get("size"));
+        assertEquals(hits, stats.get("hits"));
+        assertEquals(misses, stats.get("misses"));
+        assertEquals(evictions, stats.get("evictions"));
+        assertEquals(invalidations, stats.get("invalidations"));
+    }
+}
@@ -0,0 +1,154 @@
+package com.calendar.service.impl;
+
+import com.calendar.index.FreeBusyBitmap;
+import com.calendar.model.Event;
+import com.calendar.storage.EventStorage;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class FreeBusyCacheTest {
+
+    private static final long DAY = 20_000L * FreeBusyBitmap.DAY_MILLIS;
+    private static final long MINUTE = 60_000L;
+    private static final long HOUR = 60 * MINUTE;
+
+    private EventStorage storage;
+    private List<Event> events;
+    private FreeBusyCache cache;
+
+    @BeforeEach
+    void setUp() {
+        events = new ArrayList<>();
+        storage = mock(EventStorage.class, CALLS_REAL_METHODS);
+        when(storage.loadEvents()).thenAnswer(invocation -> events);
+        cache = new FreeBusyCache(storage, MINUTE);
+    }
+
+    @Test
+    void testFindsFirstGapLongEnough() {
+        events.addAll(Arrays.asList(
+                new Event("A", DAY + 9 * HOUR, DAY + 10 * HOUR),
+                new Event("B", DAY + 10 * HOUR + 20 * MINUTE, DAY + 11 * HOUR)));
+
+        assertEquals(DAY + 11 * HOUR, cache.findFreeSlot(DAY + 9 * HOUR, DAY + 24 * HOUR, 30 * MINUTE));
+        assertEquals(DAY + 10 * HOUR, cache.findFreeSlot(DAY + 9 * HOUR, DAY + 24 * HOUR, 20 * MINUTE));
+    }
+
+    @Test
+    void testStartsAtSearchStartInsideFreeMinute() {
+        long now = DAY + 8 * HOUR + 12_345L;
+        assertEquals(now, cache.findFreeSlot(now, DAY + 24 * HOUR, 30 * MINUTE));
+    }
+
+    @Test
+    void testFreeRunContinuesAcrossUtcMidnight() {
+        events.add(new Event("Late", DAY, DAY + 23 * HOUR + 30 * MINUTE));
+
+        long from = DAY + 12 * HOUR;
+        assertEquals(DAY + 23 * HOUR + 30 * MINUTE, cache.findFreeSlot(from, DAY + 36 * HOUR, 2 * HOUR));
+    }
+
+    @Test
+    void testNoSlotBeforeSearchEnd() {
+        events.add(new Event("All day", DAY, DAY + 23 * HOUR + 45 * MINUTE));
+        assertEquals(-1, cache.findFreeSlot(DAY, DAY + 24 * HOUR, 30 * MINUTE));
+    }
+
+    @Test
+    void testMarkBusyUpdatesCachedDayWithoutRescanning() {
+        assertEquals(DAY, cache.findFreeSlot(DAY, DAY + 24 * HOUR, HOUR));
+        verify(storage, times(1)).loadEvents();
+
+        cache.markBusy(new Event("New", DAY, DAY + 2 * HOUR));
+
+        assertEquals(DAY + 2 * HOUR, cache.findFreeSlot(DAY, DAY + 24 * HOUR, HOUR));
+        verify(storage, times(1)).loadEvents();
+    }
+
+    @Test
+    void testInvalidateRebuildsFromStorage() {
+        cache.findFreeSlot(DAY, DAY + 24 * HOUR, HOUR);
+        cache.markBusy(new Event("Failed", DAY, DAY + 2 * HOUR));
+
+        cache.invalidate(new Event("Failed", DAY, DAY + 2 * HOUR));
+
+        assertEquals(DAY, cache.findFreeSlot(DAY, DAY + 24 * HOUR, HOUR));
+    }
+
+    @Test
+    void testScanFreeReportsEachLongEnoughGap() {
+        events.addAll(Arrays.asList(
+                new Event("A", DAY + 9 * HOUR, DAY + 10 * HOUR),
+                new Event("B", DAY + 10 * HOUR + 20 * MINUTE, DAY + 11 * HOUR)));
+
+        List<Long> gaps = new ArrayList<>();
+        cache.scanFree(DAY + 8 * HOUR, DAY + 12 * HOUR, 30 * MINUTE, (start, end) -> {
+            gaps.add(start);
+            gaps.add(end);
+            return true;
+        });
+        assertEquals(Arrays.asList(DAY + 8 * HOUR, DAY + 9 * HOUR, DAY + 11 * HOUR, DAY + 12 * HOUR), gaps);
+    }
+
+    @Test
+    void testPrefetchBuildsRangeFromOneQuery() {
+        events.add(new Event("Overnight", DAY + 20 * HOUR, DAY + 28 * HOUR));
+        cache.prefetch(DAY, DAY + 7 * FreeBusyBitmap.DAY_MILLIS);
+        verify(storage, times(1)).loadEvents();
+
+        assertEquals(DAY + 28 * HOUR, cache.findFreeSlot(DAY + 20 * HOUR, DAY + 7 * FreeBusyBitmap.DAY_MILLIS, HOUR));
+        assertEquals(DAY + 6 * FreeBusyBitmap.DAY_MILLIS,
+                cache.findFreeSlot(DAY + 6 * FreeBusyBitmap.DAY_MILLIS, DAY + 7 * FreeBusyBitmap.DAY_MILLIS, HOUR));
+        verify(storage, times(1)).loadEvents();
+    }
+
+    @Test
+    void testPrefetchKeepsCachedDays() {
+        cache.findFreeSlot(DAY, DAY + 24 * HOUR, HOUR);
+        cache.markBusy(new Event("Tracked", DAY, DAY + 2 * HOUR));
+
+        cache.prefetch(DAY, DAY + 2 * FreeBusyBitmap.DAY_MILLIS);
+
+        assertEquals(DAY + 2 * HOUR, cache.findFreeSlot(DAY, DAY + 24 * HOUR, HOUR));
+    }
+
+    @Test
+    void testExternalChangeRebuildsCachedDays() {
+        long[] version = {0L};
+        doAnswer(invocation -> version[0]).when(storage).getVersion();
+        cache = new FreeBusyCache(storage, MINUTE);
+        assertEquals(DAY + 9 * HOUR, cache.findFreeSlot(DAY + 9 * HOUR, DAY + 24 * HOUR, 30 * MINUTE));
+
+        events.add(new Event("Seeded", DAY + 9 * HOUR, DAY + 10 * HOUR));
+        assertEquals(DAY + 9 * HOUR, cache.findFreeSlot(DAY + 9 * HOUR, DAY + 24 * HOUR, 30 * MINUTE));
+        version[0]++;
+
+        assertEquals(DAY + 10 * HOUR, cache.findFreeSlot(DAY + 9 * HOUR, DAY + 24 * HOUR, 30 * MINUTE));
+    }
+
+    @Test
+    void testOwnWritesKeepCachedDays() {
+        long[] version = {0L};
+        doAnswer(invocation -> version[0]).when(storage).getVersion();
+        StorageVersionWatch watch = new StorageVersionWatch(storage);
+        cache = new FreeBusyCache(storage, watch, MINUTE);
+        cache.findFreeSlot(DAY, DAY + 24 * HOUR, 30 * MINUTE);
+
+        watch.writeStarted();
+        Event added = new Event("Added", DAY + 9 * HOUR, DAY + 10 * HOUR);
+        events.add(added);
+        version[0]++;
+        cache.markBusy(added);
+        watch.writeFinished();
+
+        assertEquals(DAY + 10 * HOUR, cache.findFreeSlot(DAY + 9 * HOUR, DAY + 24 * HOUR, 30 * MINUTE));
+        verify(storage, times(1)).loadEvents();
+    }
+}
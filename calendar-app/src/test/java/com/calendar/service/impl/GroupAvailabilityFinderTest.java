@@ -0,0 +1,138 @@
+package com.calendar.service.impl;
+
+import com.calendar.exception.EventStorageException;
+import com.calendar.exception.ValidationException;
+import com.calendar.model.Event;
+import com.calendar.storage.EventStorage;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class GroupAvailabilityFinderTest {
+
+    private static final long MINUTE = 60_000L;
+    private static final long HOUR = 60 * MINUTE;
+
+    @Test
+    void testFindsWindowsWhereEveryoneIsFree() {
+        EventStorage alice = calendar(new Event("Standup", 9 * HOUR, 10 * HOUR), new Event("Lunch", 12 * HOUR, 13 * HOUR));
+        EventStorage bob = calendar(new Event("Review", 9 * HOUR + 30 * MINUTE, 11 * HOUR));
+        EventStorage carol = calendar();
+
+        List<Map<String, Object>> windows = new GroupAvailabilityFinder(Arrays.asList(alice, bob, carol))
+                .findCommonFreeWindows(8 * HOUR, 17 * HOUR, 30 * MINUTE, 10);
+
+        assertEquals(Arrays.asList(
+                window(8 * HOUR, 9 * HOUR), window(11 * HOUR, 12 * HOUR), window(13 * HOUR, 17 * HOUR)), windows);
+    }
+
+    @Test
+    void testSkipsShortWindowsAndStopsAtLimit() {
+        EventStorage alice = calendar(new Event("A", 9 * HOUR, 10 * HOUR), new Event("B", 10 * HOUR + 15 * MINUTE, 11 * HOUR));
+        EventStorage bob = calendar(new Event("C", 12 * HOUR, 13 * HOUR));
+
+        GroupAvailabilityFinder finder = new GroupAvailabilityFinder(Arrays.asList(alice, bob));
+
+        assertEquals(Arrays.asList(window(11 * HOUR, 12 * HOUR)),
+                finder.findCommonFreeWindows(9 * HOUR, 17 * HOUR, 30 * MINUTE, 1));
+        assertEquals(Collections.emptyList(), finder.findCommonFreeWindows(9 * HOUR, 10 * HOUR, MINUTE, 1));
+    }
+
+    @Test
+    void testParallelReadsMatchBruteForce() {
+        Random random = new Random(11);
+        List<EventStorage> calendars = new ArrayList<>();
+        List<Event> all = new ArrayList<>();
+        for (int c = 0; c < 8; c++) {
+            List<Event> events = new ArrayList<>();
+            for (int i = 0; i < 20; i++) {
+                long start = random.nextInt(24 * 60) * MINUTE;
+                events.add(new Event("E" + i, start, start + (1 + random.nextInt(90)) * MINUTE));
+            }
+            all.addAll(events);
+            calendars.add(calendar(events.toArray(new Event[0])));
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Map<String, Object>> windows = new GroupAvailabilityFinder(calendars, executor)
+                    .findCommonFreeWindows(0L, 24 * HOUR, 10 * MINUTE, Integer.MAX_VALUE);
+            assertEquals(bruteForce(all, 24 * 60, 10), windows);
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    void testReadFailureIsReported() {
+        EventStorage broken = mock(EventStorage.class, CALLS_REAL_METHODS);
+        when(broken.loadEvents()).thenThrow(new EventStorageException("Disk error", null));
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            GroupAvailabilityFinder finder = new GroupAvailabilityFinder(Arrays.asList(calendar(), broken), executor);
+            assertThrows(EventStorageException.class, () -> finder.findCommonFreeWindows(0L, HOUR, MINUTE, 1));
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    void testRejectsInvalidArguments() {
+        GroupAvailabilityFinder finder = new GroupAvailabilityFinder(Collections.singletonList(calendar()));
+        assertThrows(ValidationException.class, () -> finder.findCommonFreeWindows(HOUR, HOUR, MINUTE, 1));
+        assertThrows(ValidationException.class, () -> finder.findCommonFreeWindows(0L, HOUR, 0L, 1));
+        assertThrows(ValidationException.class, () -> finder.findCommonFreeWindows(0L, HOUR, MINUTE, 0));
+    }
+
+    /**
+     * Marks busy minutes one by one; the random events all start and end on minute boundaries.
+     */
+    private static List<Map<String, Object>> bruteForce(List<Event> events, int minutes, int minMinutes) {
+        boolean[] busy = new boolean[minutes];
+        for (Event e : events) {
+            for (long m = e.getStartEpochMillis() / MINUTE; m < Math.min(minutes, e.getEndEpochMillis() / MINUTE); m++) {
+                busy[(int) m] = true;
+            }
+        }
+        List<Map<String, Object>> windows = new ArrayList<>();
+        int m = 0;
+        while (m < minutes) {
+            if (busy[m]) {
+                m++;
+                continue;
+            }
+            int start = m;
+            while (m < minutes && !busy[m]) {
+                m++;
+            }
+            if (m - start >= minMinutes) {
+                windows.add(window(start * MINUTE, m * MINUTE));
+            }
+        }
+        return windows;
+    }
+
+    private static EventStorage calendar(Event... events) {
+        EventStorage storage = mock(EventStorage.class, CALLS_REAL_METHODS);
+        when(storage.loadEvents()).thenReturn(Arrays.asList(events));
+        return storage;
+    }
+
+    private static Map<String, Object> window(long start, long end) {
+        Map<String, Object> window = new HashMap<>();
+        window.put("startEpochMillis", start);
+        window.put("endEpochMillis", end);
+        return window;
+    }
+}
@@ -0,0 +1,107 @@
+package com.calendar.service.impl;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SingleFlightTest {
+
+    private final SingleFlight<String, Integer> flights = new SingleFlight<>();
+
+    @Test
+    void testConcurrentCallsShareOneComputation() throws Exception {
+        int callers = 8;
+        AtomicInteger computations = new AtomicInteger();
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(callers);
+        try {
+            Future<Integer> leader = executor.submit(() -> flights.execute("today", () -> {
+                computations.incrementAndGet();
+                started.countDown();
+                await(release);
+                return 42;
+            }));
+            assertTrue(started.await(5, TimeUnit.SECONDS));
+
+            List<Future<Integer>> followers = new ArrayList<>();
+            for (int i = 1; i < callers; i++) {
+                followers.add(executor.submit(() -> flights.execute("today", computations::incrementAndGet)));
+            }
+            while (flights.sharedCount() < callers - 1) {
+                Thread.sleep(1);
+            }
+            release.countDown();
+
+            assertEquals(42, leader.get(5, TimeUnit.SECONDS));
+            for (Future<Integer> follower : followers) {
+                assertEquals(42, follower.get(5, TimeUnit.SECONDS));
+            }
+            assertEquals(1, computations.get());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void testNothingIsKeptAfterCompletion() {
+        assertEquals(1, flights.execute("today", () -> 1));
+        assertEquals(2, flights.execute("today", () -> 2));
+        assertEquals(0, flights.sharedCount());
+    }
+
+    @Test
+    void testDifferentKeysDoNotShare() {
+        assertEquals(1, flights.execute("today", () -> flights.execute("tomorrow", () -> 1)));
+        assertEquals(0, flights.sharedCount());
+    }
+
+    @Test
+    void testFailureIsPassedToWaitingCalls() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<Integer> leader = executor.submit(() -> flights.execute("today", () -> {
+                started.countDown();
+                await(release);
+                throw new IllegalStateException("storage down");
+            }));
+            assertTrue(started.await(5, TimeUnit.SECONDS));
+            Future<Integer> follower = executor.submit(() -> flights.execute("today", () -> 1));
+            while (flights.sharedCount() < 1) {
+                Thread.sleep(1);
+            }
+            release.countDown();
+
+            Exception leaderFailure = assertThrows(Exception.class, () -> leader.get(5, TimeUnit.SECONDS));
+            Exception followerFailure = assertThrows(Exception.class, () -> follower.get(5, TimeUnit.SECONDS));
+            assertEquals("storage down", leaderFailure.getCause().getMessage());
+            assertInstanceOf(IllegalStateException.class, followerFailure.getCause());
+            assertEquals("storage down", followerFailure.getCause().getMessage());
+        } finally {
+            executor.shutdownNow();
+        }
+
+        // A failed computation is not remembered either.
+        assertEquals(3, flights.execute("today", () -> 3));
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            assertTrue(latch.await(5, TimeUnit.SECONDS));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package com.calendar.storage.impl;
+
+import com.calendar.exception.EventStorageException;
+import com.calendar.model.Event;
+import com.calendar.storage.EventStorage;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+public class CachingEventStorageTest {
+
+    private Path tempFile;
+    private EventStorage fileStorage;
+    private CachingEventStorage storage;
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        tempFile = Files.createTempFile("events", ".json");
+        fileStorage = spy(new EventFileStorage(tempFile.toString()));
+        storage = new CachingEventStorage(fileStorage, tempFile.toString());
+    }
+
+    @AfterEach
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(tempFile);
+    }
+
+    @Test
+    public void testRepeatedLoadsReadFileOnce() {
+        storage.saveEvents(Collections.singletonList(new Event("Meeting", 1000L, 2000L)));
+
+        List<Event> first = storage.loadEvents();
+        List<Event> second = storage.loadEvents();
+
+        assertEquals(1, first.size());
+        assertSame(first, second);
+        verify(fileStorage, never()).loadEvents();
+    }
+
+    @Test
+    public void testLoadedListIsReadOnly() {
+        List<Event> events = storage.loadEvents();
+        assertThrows(UnsupportedOperationException.class, () -> events.add(new Event("X", 1L, 2L)));
+    }
+
+    @Test
+    public void testReloadsWhenFileChangesExternally() throws IOException {
+        storage.saveEvents(Collections.singletonList(new Event("Meeting", 1000L, 2000L)));
+        storage.loadEvents();
+
+        new EventFileStorage(tempFile.toString()).saveEvents(
+                Arrays.asList(new Event("Meeting", 1000L, 2000L), new Event("Lunch", 3000L, 4000L)));
+        Files.setLastModifiedTime(tempFile, FileTime.fromMillis(System.currentTimeMillis() + 5_000));
+
+        assertEquals(2, storage.loadEvents().size());
+        verify(fileStorage, times(1)).loadEvents();
+    }
+
+    @Test
+    public void testFailedSaveInvalidatesCache() {
+        storage.loadEvents();
+        doThrow(new EventStorageException("Boom", null)).when(fileStorage).saveEvents(anyList());
+
+        assertThrowsExactly(EventStorageException.class,
+                () -> storage.saveEvents(Collections.singletonList(new Event("Meeting", 1000L, 2000L))));
+        assertTrue(storage.loadEvents().isEmpty());
+        verify(fileStorage, times(2)).loadEvents();
+    }
+
+    @Test
+    public void testFindOverlappingAndInsertUseCache() {
+        storage.saveEvents(Arrays.asList(new Event("Meeting", 1000L, 2000L), new Event("Lunch", 3000L, 4000L)));
+        assertEquals(Collections.singletonList(new Event("Lunch", 3000L, 4000L)), storage.findOverlapping(2500L, 3500L));
+
+        storage.insertEvent(new Event("Coffee", 2000L, 2500L));
+
+        assertEquals(Arrays.asList(new Event("Meeting", 1000L, 2000L), new Event("Coffee", 2000L, 2500L)),
+                storage.findOverlapping(1500L, 2200L));
+        assertEquals(3, new EventFileStorage(tempFile.toString()).loadEvents().size());
+        verify(fileStorage, never()).loadEvents();
+    }
+
+    @Test
+    public void testVersionCountsWritesAndExternalChanges() throws IOException {
+        long initial = storage.getVersion();
+        assertEquals(initial, storage.getVersion());
+
+        storage.insertEvent(new Event("Meeting", 1000L, 2000L));
+        long written = storage.getVersion();
+        assertTrue(written > initial);
+
+        new EventFileStorage(tempFile.toString()).saveEvents(Collections.singletonList(new Event("Lunch", 3000L, 4000L)));
+        Files.setLastModifiedTime(tempFile, FileTime.fromMillis(System.currentTimeMillis() + 5_000));
+
+        assertTrue(storage.getVersion() > written);
+    }
+}
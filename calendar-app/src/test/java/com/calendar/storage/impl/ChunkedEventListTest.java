@@ -0,0 +1,57 @@
+package com.calendar.storage.impl;
+
+import com.calendar.model.Event;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ChunkedEventListTest {
+
+    @Test
+    public void testOfSortsByStartKeepingTies() {
+        ChunkedEventList list = ChunkedEventList.of(Arrays.asList(
+                new Event("Lunch", 3000L, 4000L), new Event("First", 1000L, 2000L), new Event("Second", 1000L, 1500L)));
+
+        assertEquals(Arrays.asList(new Event("First", 1000L, 2000L), new Event("Second", 1000L, 1500L),
+                new Event("Lunch", 3000L, 4000L)), list);
+    }
+
+    @Test
+    public void testInsertsAcrossChunkSplitsMatchSortedCopy() {
+        Random random = new Random(7);
+        List<Event> expected = new ArrayList<>();
+        for (int i = 0; i < 2 * ChunkedEventList.CHUNK_SIZE; i++) {
+            expected.add(new Event("Saved " + i, random.nextInt(100_000), 100_000L));
+        }
+        ChunkedEventList list = ChunkedEventList.of(expected);
+        expected.sort(Comparator.comparingLong(Event::getStartEpochMillis));
+        List<Event> before = new ArrayList<>(expected);
+        ChunkedEventList original = list;
+
+        for (int i = 0; i < 3 * ChunkedEventList.CHUNK_SIZE; i++) {
+            Event event = new Event("Inserted " + i, i % 4 == 0 ? 200_000L + i : random.nextInt(100_000), 300_000L);
+            list = list.with(event);
+            expected.add(event);
+        }
+
+        expected.sort(Comparator.comparingLong(Event::getStartEpochMillis));
+        assertEquals(expected, list);
+        assertEquals(before, original);
+    }
+
+    @Test
+    public void testEventStartingWithOthersGoesAfterThem() {
+        ChunkedEventList list = ChunkedEventList.EMPTY
+                .withAll(Arrays.asList(new Event("A", 1000L, 2000L), new Event("C", 3000L, 4000L)))
+                .with(new Event("B", 1000L, 1500L));
+
+        assertEquals(Arrays.asList(new Event("A", 1000L, 2000L), new Event("B", 1000L, 1500L),
+                new Event("C", 3000L, 4000L)), list);
+    }
+}
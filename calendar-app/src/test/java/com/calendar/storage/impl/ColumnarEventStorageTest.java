@@ -0,0 +1,132 @@
+package com.calendar.storage.impl;
+
+import com.calendar.model.Event;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+public class ColumnarEventStorageTest {
+
+    private Path tempFile;
+    private EventFileStorage fileStorage;
+    private ColumnarEventStorage storage;
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        tempFile = Files.createTempFile("events", ".json");
+        fileStorage = spy(new EventFileStorage(tempFile.toString()));
+        storage = new ColumnarEventStorage(fileStorage);
+    }
+
+    @AfterEach
+    public void tearDown() throws IOException {
+        for (String suffix : new String[]{"", ".sum", ".prev", ".prev.sum"}) {
+            Files.deleteIfExists(tempFile.resolveSibling(tempFile.getFileName() + suffix));
+        }
+    }
+
+    @Test
+    public void testLoadsUnsortedFileInStartOrder() {
+        new EventFileStorage(tempFile.toString()).saveEvents(Arrays.asList(
+                new Event("Lunch", 3000L, 4000L), new Event(null, 5000L, 6000L), new Event("Meeting", 1000L, 2000L)));
+
+        assertEquals(Arrays.asList(new Event("Meeting", 1000L, 2000L), new Event("Lunch", 3000L, 4000L),
+                new Event(null, 5000L, 6000L)), storage.loadEvents());
+    }
+
+    @Test
+    public void testTitlesAreDictionaryEncoded() {
+        List<Event> events = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            events.add(new Event(i % 2 == 0 ? "Standup" : "Review", i * 1000L, i * 1000L + 500L));
+        }
+        storage.saveEvents(events);
+
+        assertEquals(2, storage.distinctTitles());
+        assertEquals(events, storage.loadEvents());
+    }
+
+    @Test
+    public void testReadsDoNotGoBackToDelegate() {
+        storage.saveEvents(Collections.singletonList(new Event("Meeting", 1000L, 2000L)));
+
+        storage.loadEvents();
+        storage.findOverlapping(0L, 5000L);
+        verify(fileStorage, never()).loadEvents();
+    }
+
+    @Test
+    public void testInsertKeepsStartOrderAndPersists() {
+        storage.insertEvent(new Event("Lunch", 3000L, 4000L));
+        storage.insertEvent(new Event("Meeting", 1000L, 2000L));
+        storage.insertEvent(new Event("Coffee", 2000L, 2500L));
+
+        List<Event> expected = Arrays.asList(new Event("Meeting", 1000L, 2000L),
+                new Event("Coffee", 2000L, 2500L), new Event("Lunch", 3000L, 4000L));
+        assertEquals(expected, storage.loadEvents());
+        assertEquals(expected, new EventFileStorage(tempFile.toString()).loadEvents());
+    }
+
+    @Test
+    public void testInsertEventsMergesBatchWithOneSave() {
+        storage.saveEvents(Arrays.asList(new Event("Standup", 1000L, 1500L), new Event("Lunch", 3000L, 4000L)));
+        storage.insertEvents(Arrays.asList(new Event("Dinner", 7000L, 8000L), new Event("Standup", 500L, 900L),
+                new Event("Review", 3000L, 3500L)));
+
+        List<Event> expected = Arrays.asList(new Event("Standup", 500L, 900L), new Event("Standup", 1000L, 1500L),
+                new Event("Lunch", 3000L, 4000L), new Event("Review", 3000L, 3500L), new Event("Dinner", 7000L, 8000L));
+        assertEquals(expected, storage.loadEvents());
+        assertEquals(expected, new EventFileStorage(tempFile.toString()).loadEvents());
+        assertEquals(4, storage.distinctTitles());
+        verify(fileStorage, times(2)).saveEvents(anyList());
+        verify(fileStorage, never()).loadEvents();
+    }
+
+    @Test
+    public void testFindOverlappingIncludesLongEventsStartedEarlier() {
+        storage.saveEvents(Arrays.asList(
+                new Event("Conference", 0L, 10_000L),
+                new Event("Short", 100L, 200L),
+                new Event("Later", 6000L, 7000L),
+                new Event("After", 20_000L, 21_000L)));
+
+        assertEquals(Arrays.asList(new Event("Conference", 0L, 10_000L), new Event("Later", 6000L, 7000L)),
+                storage.findOverlapping(5000L, 6500L));
+        assertEquals(Collections.emptyList(), storage.findOverlapping(10_000L, 20_000L));
+    }
+
+    @Test
+    public void testFindOverlappingMatchesLinearScan() {
+        Random random = new Random(42);
+        List<Event> events = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            long start = random.nextInt(100_000);
+            events.add(new Event("E" + i, start, start + 1 + random.nextInt(5_000)));
+        }
+        storage.saveEvents(events);
+
+        for (int q = 0; q < 200; q++) {
+            long start = random.nextInt(110_000) - 5_000;
+            long end = start + 1 + random.nextInt(3_000);
+            List<Event> expected = new ArrayList<>();
+            for (Event e : storage.loadEvents()) {
+                if (e.getStartEpochMillis() < end && e.getEndEpochMillis() > start) {
+                    expected.add(e);
+                }
+            }
+            assertEquals(expected, storage.findOverlapping(start, end));
+        }
+    }
+}
@@ -0,0 +1,175 @@
+package com.calendar.storage.impl;
+
+import com.calendar.exception.EventStorageException;
+import com.calendar.model.Event;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class EventBinaryStorageTest {
+
+    private Path tempDir;
+    private Path binaryFile;
+    private EventBinaryStorage storage;
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        tempDir = Files.createTempDirectory("event-binary");
+        binaryFile = tempDir.resolve("events.bin");
+        storage = new EventBinaryStorage(binaryFile.toString());
+    }
+
+    @AfterEach
+    public void tearDown() throws IOException {
+        try (Stream<Path> files = Files.list(tempDir)) {
+            for (Path p : files.collect(Collectors.toList())) {
+                Files.deleteIfExists(p);
+            }
+        }
+        Files.deleteIfExists(tempDir);
+    }
+
+    @Test
+    public void testLoadMissingFileReturnsEmptyList() {
+        assertTrue(storage.loadEvents().isEmpty());
+        assertTrue(storage.findOverlapping(0L, Long.MAX_VALUE).isEmpty());
+    }
+
+    @Test
+    public void testSaveAndReloadSortsByStart() {
+        storage.saveEvents(Arrays.asList(new Event("Lunch", 3000L, 4000L), new Event("Café ☕", 1000L, 2000L)));
+
+        List<Event> loaded = new EventBinaryStorage(binaryFile.toString()).loadEvents();
+        assertEquals(Arrays.asList(new Event("Café ☕", 1000L, 2000L), new Event("Lunch", 3000L, 4000L)), loaded);
+    }
+
+    @Test
+    public void testFindOverlappingUsesMaxDurationForLongEvents() {
+        storage.saveEvents(Arrays.asList(
+                new Event("Conference", 0L, 10_000L),
+                new Event("Short", 100L, 200L),
+                new Event("Later", 6000L, 7000L),
+                new Event("After", 20_000L, 21_000L)));
+
+        List<Event> result = new EventBinaryStorage(binaryFile.toString()).findOverlapping(5000L, 6500L);
+        assertEquals(Arrays.asList(new Event("Conference", 0L, 10_000L), new Event("Later", 6000L, 7000L)), result);
+    }
+
+    @Test
+    public void testJsonImportAndExport() {
+        Path json = tempDir.resolve("events.json");
+        new EventFileStorage(json.toString()).saveEvents(Arrays.asList(new Event("Meeting", 1000L, 2000L)));
+
+        assertEquals(1, storage.importJson(json.toString()));
+        assertEquals("Meeting", storage.loadEvents().get(0).getTitle());
+
+        Path exported = tempDir.resolve("exported.json");
+        storage.exportJson(exported.toString());
+        assertEquals(storage.loadEvents(), new EventFileStorage(exported.toString()).loadEvents());
+    }
+
+    @Test
+    public void testDamagedFileThrows() throws IOException {
+        storage.saveEvents(Arrays.asList(new Event("Meeting", 1000L, 2000L)));
+        byte[] bytes = Files.readAllBytes(binaryFile);
+        Files.write(binaryFile, Arrays.copyOf(bytes, bytes.length - 3));
+
+        EventBinaryStorage reopened = new EventBinaryStorage(binaryFile.toString());
+        assertThrowsExactly(EventStorageException.class, reopened::loadEvents);
+    }
+
+    @Test
+    public void testInsertAppendsWithoutRewritingRecords() throws IOException {
+        storage.saveEvents(Arrays.asList(new Event("First", 1000L, 2000L), new Event("Third", 5000L, 6000L)));
+        byte[] saved = Files.readAllBytes(binaryFile);
+
+        storage.insertEvent(new Event("Second", 3000L, 4000L));
+        storage.insertEvents(Arrays.asList(new Event("Long", 0L, 9000L), new Event("Fourth", 7000L, 8000L)));
+
+        byte[] appended = Files.readAllBytes(binaryFile);
+        assertArrayEquals(saved, Arrays.copyOf(appended, saved.length));
+        List<Event> expected = Arrays.asList(new Event("Long", 0L, 9000L), new Event("First", 1000L, 2000L),
+                new Event("Second", 3000L, 4000L), new Event("Third", 5000L, 6000L),
+                new Event("Fourth", 7000L, 8000L));
+        assertEquals(expected, storage.loadEvents());
+        EventBinaryStorage reopened = new EventBinaryStorage(binaryFile.toString());
+        assertEquals(expected, reopened.loadEvents());
+        assertEquals(expected.subList(0, 4), reopened.findOverlapping(1500L, 5500L));
+        assertEquals(Arrays.asList(new Event("Long", 0L, 9000L), new Event("Third", 5000L, 6000L)),
+                reopened.findOverlapping(4500L, 5500L));
+    }
+
+    @Test
+    public void testTornAppendIsDiscarded() throws IOException {
+        storage.saveEvents(Arrays.asList(new Event("Saved", 1000L, 2000L)));
+        storage.insertEvent(new Event("Appended", 3000L, 4000L));
+        storage.insertEvent(new Event("Torn", 5000L, 6000L));
+        byte[] bytes = Files.readAllBytes(binaryFile);
+        Files.write(binaryFile, Arrays.copyOf(bytes, bytes.length - 3));
+
+        EventBinaryStorage reopened = new EventBinaryStorage(binaryFile.toString());
+        assertEquals(Arrays.asList(new Event("Saved", 1000L, 2000L), new Event("Appended", 3000L, 4000L)),
+                reopened.loadEvents());
+        reopened.insertEvent(new Event("Retried", 5000L, 6000L));
+        assertEquals(Arrays.asList(new Event("Saved", 1000L, 2000L), new Event("Appended", 3000L, 4000L),
+                new Event("Retried", 5000L, 6000L)), new EventBinaryStorage(binaryFile.toString()).loadEvents());
+    }
+
+    @Test
+    public void testZeroFilledOrDamagedAppendIsDiscarded() throws IOException {
+        storage.saveEvents(Arrays.asList(new Event("Saved", 1000L, 2000L)));
+        storage.insertEvent(new Event("Appended", 3000L, 4000L));
+        long appendedEnd = Files.size(binaryFile);
+        storage.insertEvent(new Event("Damaged", 5000L, 6000L));
+        byte[] bytes = Files.readAllBytes(binaryFile);
+        bytes[bytes.length - 1] ^= 1;
+        Files.write(binaryFile, bytes);
+        Files.write(binaryFile, new byte[64], StandardOpenOption.APPEND);
+
+        EventBinaryStorage reopened = new EventBinaryStorage(binaryFile.toString());
+        assertEquals(Arrays.asList(new Event("Saved", 1000L, 2000L), new Event("Appended", 3000L, 4000L)),
+                reopened.loadEvents());
+        reopened.insertEvent(new Event("Retried", 5000L, 6000L));
+        assertTrue(Files.size(binaryFile) < bytes.length + 64L);
+        assertTrue(Files.size(binaryFile) > appendedEnd);
+        assertEquals(3, new EventBinaryStorage(binaryFile.toString()).loadEvents().size());
+    }
+
+    @Test
+    public void testAppendedEventsAreFoldedIntoRecordsOnceTooMany() throws IOException {
+        storage.saveEvents(Arrays.asList(new Event("Saved", 0L, 1000L)));
+        List<Event> expected = new ArrayList<>();
+        expected.add(new Event("Saved", 0L, 1000L));
+        for (int i = EventBinaryStorage.MAX_APPENDED; i > 0; i--) {
+            Event e = new Event("Event " + i, i * 1000L, i * 1000L + 500L);
+            storage.insertEvent(e);
+            expected.add(1, e);
+        }
+        assertEquals(1, recordCount());
+
+        Event last = new Event("Last", (EventBinaryStorage.MAX_APPENDED + 1) * 1000L,
+                (EventBinaryStorage.MAX_APPENDED + 1) * 1000L + 500L);
+        storage.insertEvent(last);
+        expected.add(last);
+
+        assertEquals(EventBinaryStorage.MAX_APPENDED + 2, recordCount());
+        assertEquals(expected, new EventBinaryStorage(binaryFile.toString()).loadEvents());
+    }
+
+    private int recordCount() throws IOException {
+        return ByteBuffer.wrap(Files.readAllBytes(binaryFile)).getInt(8);
+    }
+}
@@ -8,9 +8,12 @@ import org.junit.jupiter.api.Test;
 
 import java.io.IOException;
 import java.nio.file.Files;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Path;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.stream.Collectors;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -29,6 +32,9 @@ public class EventFileStorageTest {
     @AfterEach
     public void tearDown() throws IOException {
         Files.deleteIfExists(tempFile);
+        Files.deleteIfExists(sibling(".sum"));
+        Files.deleteIfExists(sibling(".prev"));
+        Files.deleteIfExists(sibling(".prev.sum"));
     }
 
     @Test
@@ -69,18 +75,106 @@ public class EventFileStorageTest {
 
     @Test
     public void testSaveEventsThrowsOnIoError() throws IOException {
-        Path readOnlyDir = Files.createTempDirectory("readonly-dir");
-        Path readOnlyFile = Files.createFile(readOnlyDir.resolve("readonly.json"));
-        readOnlyFile.toFile().setReadOnly();
+        // A regular file where the storage expects its directory fails regardless of permissions.
+        Path notADir = Files.createTempFile("not-a-dir", ".json");
 
         try {
-            EventFileStorage roStorage = new EventFileStorage(readOnlyFile.toString());
+            EventFileStorage badStorage = new EventFileStorage(notADir.resolve("events.json").toString());
             List<Event> events = Collections.singletonList(new Event());
-            assertThrows(EventStorageException.class, () -> roStorage.saveEvents(events));
+            assertThrows(EventStorageException.class, () -> badStorage.saveEvents(events));
         } finally {
-            readOnlyFile.toFile().setWritable(true);
-            Files.deleteIfExists(readOnlyFile);
-            Files.deleteIfExists(readOnlyDir);
+            Files.deleteIfExists(notADir);
         }
     }
+
+    @Test
+    public void testSaveKeepsPreviousGeneration() {
+        storage.saveEvents(Collections.singletonList(new Event("First", 1000L, 2000L)));
+        storage.saveEvents(Arrays.asList(new Event("First", 1000L, 2000L), new Event("Second", 3000L, 4000L)));
+
+        assertTrue(Files.exists(sibling(".prev")));
+        assertTrue(Files.exists(sibling(".sum")));
+        assertFalse(Files.exists(sibling(".tmp")));
+        assertEquals(2, storage.loadEvents().size());
+    }
+
+    @Test
+    public void testLoadFallsBackToPreviousGenerationOnTruncatedFile() throws IOException {
+        storage.saveEvents(Collections.singletonList(new Event("First", 1000L, 2000L)));
+        storage.saveEvents(Arrays.asList(new Event("First", 1000L, 2000L), new Event("Second", 3000L, 4000L)));
+
+        byte[] content = Files.readAllBytes(tempFile);
+        Files.write(tempFile, Arrays.copyOf(content, content.length / 2));
+
+        List<Event> events = storage.loadEvents();
+        assertEquals(1, events.size());
+        assertEquals("First", events.get(0).getTitle());
+    }
+
+    @Test
+    public void testLoadFallsBackToPreviousGenerationOnChecksumMismatch() throws IOException {
+        storage.saveEvents(Collections.singletonList(new Event("First", 1000L, 2000L)));
+        storage.saveEvents(Collections.singletonList(new Event("Second", 3000L, 4000L)));
+
+        String content = new String(Files.readAllBytes(tempFile), StandardCharsets.UTF_8);
+        Files.write(tempFile, content.replace("Second", "Sec0nd").getBytes(StandardCharsets.UTF_8));
+
+        assertEquals("First", storage.loadEvents().get(0).getTitle());
+    }
+
+    @Test
+    public void testLoadFallsBackToPreviousGenerationWhenCurrentIsMissing() throws IOException {
+        storage.saveEvents(Collections.singletonList(new Event("First", 1000L, 2000L)));
+        storage.saveEvents(Collections.singletonList(new Event("Second", 3000L, 4000L)));
+        Files.delete(tempFile);
+
+        assertEquals("First", storage.loadEvents().get(0).getTitle());
+    }
+
+    @Test
+    public void testLoadSurvivesSaveInterruptedBeforeRename() throws IOException {
+        storage.saveEvents(Collections.singletonList(new Event("First", 1000L, 2000L)));
+        storage.saveEvents(Collections.singletonList(new Event("Second", 3000L, 4000L)));
+        byte[] second = Files.readAllBytes(tempFile);
+        storage.saveEvents(Collections.singletonList(new Event("Third", 5000L, 6000L)));
+
+        // As if the process died after replacing the checksums but before renaming the new file.
+        Files.write(tempFile, second);
+
+        assertEquals("Second", storage.loadEvents().get(0).getTitle());
+    }
+
+    @Test
+    public void testPreviousGenerationKeepsReplacedContent() throws IOException {
+        storage.saveEvents(Collections.singletonList(new Event("First", 1000L, 2000L)));
+        byte[] first = Files.readAllBytes(tempFile);
+        storage.saveEvents(Collections.singletonList(new Event("Second", 3000L, 4000L)));
+
+        assertArrayEquals(first, Files.readAllBytes(sibling(".prev")));
+        assertFalse(Files.exists(sibling(".prev.tmp")));
+    }
+
+    private Path sibling(String suffix) {
+        return tempFile.resolveSibling(tempFile.getFileName() + suffix);
+    }
+
+    @Test
+    public void testFindOverlappingStreamsMatchesInStartOrder() {
+        storage.saveEvents(Arrays.asList(
+                new Event("Late", 5000L, 6000L), new Event("Early", 1000L, 2000L), new Event("Middle", 3000L, 4000L)));
+
+        List<Event> result = storage.findOverlapping(1500L, 5500L);
+        assertEquals(Arrays.asList("Early", "Middle", "Late"),
+                result.stream().map(Event::getTitle).collect(Collectors.toList()));
+    }
+
+    @Test
+    public void testFindOverlappingFallsBackToPreviousGeneration() throws IOException {
+        storage.saveEvents(Collections.singletonList(new Event("First", 1000L, 2000L)));
+        storage.saveEvents(Collections.singletonList(new Event("Second", 3000L, 4000L)));
+        byte[] content = Files.readAllBytes(tempFile);
+        Files.write(tempFile, Arrays.copyOf(content, content.length / 2));
+
+        assertEquals("First", storage.findOverlapping(0L, 5000L).get(0).getTitle());
+    }
 }
@@ -0,0 +1,161 @@
+package com.calendar.storage.impl;
+
+import com.calendar.model.Event;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class EventLogStorageTest {
+
+    private Path tempDir;
+    private Path logFile;
+    private EventLogStorage storage;
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        tempDir = Files.createTempDirectory("event-log");
+        logFile = tempDir.resolve("events.log");
+        storage = new EventLogStorage(logFile.toString(), 3);
+    }
+
+    @AfterEach
+    public void tearDown() throws IOException {
+        storage.close();
+        try (Stream<Path> files = Files.list(tempDir)) {
+            for (Path p : files.collect(Collectors.toList())) {
+                Files.deleteIfExists(p);
+            }
+        }
+        Files.deleteIfExists(tempDir);
+    }
+
+    @Test
+    public void testLoadEmptyLog() {
+        assertTrue(storage.loadEvents().isEmpty());
+    }
+
+    @Test
+    public void testAppendsAreReplayedOnRestart() {
+        List<Event> events = new ArrayList<>();
+        events.add(new Event("Meeting", 1000L, 2000L));
+        storage.saveEvents(events);
+        events.add(new Event("Lunch", 3000L, 4000L));
+        storage.saveEvents(events);
+        storage.close();
+
+        EventLogStorage reopened = new EventLogStorage(logFile.toString(), 3);
+        assertEquals(events, reopened.loadEvents());
+        reopened.close();
+    }
+
+    @Test
+    public void testAppendOnlyWritesNewRecords() throws IOException {
+        List<Event> events = new ArrayList<>();
+        events.add(new Event("Meeting", 1000L, 2000L));
+        storage.saveEvents(events);
+        long sizeAfterFirst = Files.size(logFile);
+
+        events.add(new Event("Lunch", 3000L, 4000L));
+        storage.saveEvents(events);
+        long secondRecordSize = Files.size(logFile) - sizeAfterFirst;
+
+        assertEquals(4 + 4 + 8 + 8 + "Lunch".length(), secondRecordSize);
+    }
+
+    @Test
+    public void testSnapshotIsWrittenAfterInterval() throws IOException {
+        List<Event> events = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            events.add(new Event("Event " + i, 1000L * (i + 1), 1000L * (i + 1) + 500));
+            storage.saveEvents(events);
+        }
+        storage.close();
+
+        assertTrue(Files.exists(tempDir.resolve("events.log.snapshot")));
+        EventLogStorage reopened = new EventLogStorage(logFile.toString(), 3);
+        assertEquals(events, reopened.loadEvents());
+        reopened.close();
+    }
+
+    @Test
+    public void testRemovalRewritesSnapshot() {
+        storage.saveEvents(Arrays.asList(new Event("Meeting", 1000L, 2000L), new Event("Lunch", 3000L, 4000L)));
+        storage.saveEvents(Collections.singletonList(new Event("Lunch", 3000L, 4000L)));
+        storage.close();
+
+        EventLogStorage reopened = new EventLogStorage(logFile.toString(), 3);
+        assertEquals(Collections.singletonList(new Event("Lunch", 3000L, 4000L)), reopened.loadEvents());
+        reopened.close();
+    }
+
+    @Test
+    public void testTornTailIsDiscarded() throws IOException {
+        List<Event> events = new ArrayList<>();
+        events.add(new Event("Meeting", 1000L, 2000L));
+        storage.saveEvents(events);
+        events.add(new Event("Lunch", 3000L, 4000L));
+        storage.saveEvents(events);
+        storage.close();
+
+        try (FileChannel channel = FileChannel.open(logFile, StandardOpenOption.WRITE)) {
+            channel.truncate(channel.size() - 3);
+        }
+
+        EventLogStorage reopened = new EventLogStorage(logFile.toString(), 3);
+        assertEquals(Collections.singletonList(new Event("Meeting", 1000L, 2000L)), reopened.loadEvents());
+
+        List<Event> updated = new ArrayList<>(reopened.loadEvents());
+        updated.add(new Event("Dinner", 5000L, 6000L));
+        updated.sort(Comparator.comparingLong(Event::getStartEpochMillis));
+        reopened.saveEvents(updated);
+        reopened.close();
+
+        EventLogStorage again = new EventLogStorage(logFile.toString(), 3);
+        assertEquals(updated, again.loadEvents());
+        again.close();
+    }
+
+    @Test
+    public void testInsertAppendsSingleRecord() throws IOException {
+        storage.insertEvent(new Event("Lunch", 3000L, 4000L));
+        long sizeAfterFirst = Files.size(logFile);
+        storage.insertEvent(new Event("Meeting", 1000L, 2000L));
+
+        assertEquals(4 + 4 + 8 + 8 + "Meeting".length(), Files.size(logFile) - sizeAfterFirst);
+        assertEquals(Arrays.asList(new Event("Meeting", 1000L, 2000L), new Event("Lunch", 3000L, 4000L)),
+                storage.loadEvents());
+        assertEquals(Collections.singletonList(new Event("Meeting", 1000L, 2000L)), storage.findOverlapping(0L, 2500L));
+    }
+
+    @Test
+    public void testInsertEventsAppendsOneRecordEach() throws IOException {
+        storage.close();
+        storage = new EventLogStorage(logFile.toString(), 100);
+        storage.insertEvent(new Event("Lunch", 3000L, 4000L));
+        long sizeAfterFirst = Files.size(logFile);
+        storage.insertEvents(Arrays.asList(new Event("Dinner", 5000L, 6000L), new Event("Meeting", 1000L, 2000L)));
+
+        assertEquals(2 * (4 + 4 + 8 + 8) + "Dinner".length() + "Meeting".length(), Files.size(logFile) - sizeAfterFirst);
+        List<Event> expected = Arrays.asList(new Event("Meeting", 1000L, 2000L), new Event("Lunch", 3000L, 4000L),
+                new Event("Dinner", 5000L, 6000L));
+        assertEquals(expected, storage.loadEvents());
+        storage.close();
+        storage = new EventLogStorage(logFile.toString(), 100);
+        assertEquals(expected, storage.findOverlapping(0L, Long.MAX_VALUE));
+    }
+}
@@ -0,0 +1,298 @@
+package com.calendar.storage.impl;
+
+import com.calendar.exception.EventConflictException;
+import com.calendar.exception.EventStorageException;
+import com.calendar.model.Event;
+import com.calendar.storage.EventStorage;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class GroupCommitEventStorageTest {
+
+    private GroupCommitEventStorage storage;
+
+    @AfterEach
+    public void tearDown() {
+        if (storage != null) {
+            storage.close();
+        }
+    }
+
+    @Test
+    public void testQueuedWritesAreCommittedTogether() throws Exception {
+        BlockingStorage delegate = new BlockingStorage();
+        storage = new GroupCommitEventStorage(delegate, 64, 0L);
+
+        List<Event> state = new ArrayList<>();
+        state.add(new Event("First", 1000L, 2000L));
+        CompletableFuture<Void> first = storage.saveEventsAsync(state);
+        assertTrue(delegate.saving.await(5, TimeUnit.SECONDS));
+
+        List<CompletableFuture<Void>> queued = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            state.add(new Event("Queued " + i, 3000L + i * 10, 3005L + i * 10));
+            queued.add(storage.saveEventsAsync(state));
+        }
+        assertEquals(11, storage.loadEvents().size());
+        assertFalse(first.isDone());
+
+        delegate.release.countDown();
+        first.get(5, TimeUnit.SECONDS);
+        for (CompletableFuture<Void> f : queued) {
+            f.get(5, TimeUnit.SECONDS);
+        }
+
+        assertEquals(2, delegate.saves);
+        assertEquals(state, delegate.stored);
+        assertEquals(state, storage.loadEvents());
+    }
+
+    @Test
+    public void testLoadReturnsCommittedListWhileDelegateIsUnchanged() {
+        storage = new GroupCommitEventStorage(new BlockingStorage(true));
+        List<Event> state = Collections.singletonList(new Event("First", 1000L, 2000L));
+        storage.saveEvents(state);
+
+        assertSame(storage.loadEvents(), storage.loadEvents());
+    }
+
+    @Test
+    public void testFailedWriteFailsCallersAndFallsBackToDelegate() {
+        BlockingStorage delegate = new BlockingStorage(true);
+        delegate.fail = true;
+        storage = new GroupCommitEventStorage(delegate);
+
+        CompletableFuture<Void> result = storage.saveEventsAsync(Collections.singletonList(new Event("First", 1000L, 2000L)));
+
+        CompletionException e = assertThrows(CompletionException.class, result::join);
+        assertInstanceOf(EventStorageException.class, e.getCause());
+        assertTrue(storage.loadEvents().isEmpty());
+    }
+
+    @Test
+    public void testPendingInsertsAreVisibleToRangeQueries() throws Exception {
+        BlockingStorage delegate = new BlockingStorage();
+        storage = new GroupCommitEventStorage(delegate, 64, 0L);
+
+        CompletableFuture<Void> first = storage.insertEventAsync(new Event("First", 1000L, 2000L));
+        assertTrue(delegate.saving.await(5, TimeUnit.SECONDS));
+        CompletableFuture<Void> second = storage.insertEventAsync(new Event("Second", 3000L, 4000L));
+
+        assertEquals(Collections.singletonList(new Event("Second", 3000L, 4000L)), storage.findOverlapping(2500L, 3500L));
+
+        delegate.release.countDown();
+        first.get(5, TimeUnit.SECONDS);
+        second.get(5, TimeUnit.SECONDS);
+        assertEquals(2, delegate.stored.size());
+        assertEquals(Collections.singletonList(new Event("First", 1000L, 2000L)), storage.findOverlapping(0L, 1500L));
+    }
+
+    @Test
+    public void testInsertEventsIsQueuedAsOneWrite() throws Exception {
+        BlockingStorage delegate = new BlockingStorage();
+        storage = new GroupCommitEventStorage(delegate, 64, 0L);
+
+        CompletableFuture<Void> first = storage.insertEventAsync(new Event("First", 1000L, 2000L));
+        assertTrue(delegate.saving.await(5, TimeUnit.SECONDS));
+        CompletableFuture<Void> batch = storage.insertEventsAsync(Arrays.asList(
+                new Event("Third", 5000L, 6000L), new Event("Second", 3000L, 4000L)));
+
+        assertEquals(Arrays.asList(new Event("Second", 3000L, 4000L), new Event("Third", 5000L, 6000L)),
+                storage.findOverlapping(2500L, 7000L));
+
+        delegate.release.countDown();
+        first.get(5, TimeUnit.SECONDS);
+        batch.get(5, TimeUnit.SECONDS);
+        assertEquals(2, delegate.saves);
+        assertEquals(3, delegate.stored.size());
+    }
+
+    @Test
+    public void testVersionCountsSubmittedStatesBeforeTheyAreWritten() throws Exception {
+        BlockingStorage delegate = new BlockingStorage();
+        storage = new GroupCommitEventStorage(delegate, 64, 0L);
+        long initial = storage.getVersion();
+
+        CompletableFuture<Void> first = storage.saveEventsAsync(Collections.singletonList(new Event("First", 1000L, 2000L)));
+        assertTrue(delegate.saving.await(5, TimeUnit.SECONDS));
+        assertEquals(initial + 1, storage.getVersion());
+
+        delegate.release.countDown();
+        first.get(5, TimeUnit.SECONDS);
+        assertEquals(initial + 1, storage.getVersion());
+    }
+
+    @Test
+    public void testVersionCountsFailedWrite() {
+        BlockingStorage delegate = new BlockingStorage(true);
+        delegate.fail = true;
+        storage = new GroupCommitEventStorage(delegate);
+        long initial = storage.getVersion();
+
+        CompletableFuture<Void> result = storage.saveEventsAsync(Collections.singletonList(new Event("First", 1000L, 2000L)));
+
+        assertThrows(CompletionException.class, result::join);
+        assertEquals(initial + 2, storage.getVersion());
+    }
+
+    @Test
+    public void testQueuedInsertsReachDelegateAsOneInsert() throws Exception {
+        AppendingStorage delegate = new AppendingStorage();
+        storage = new GroupCommitEventStorage(delegate, 64, 0L);
+
+        CompletableFuture<Void> first = storage.insertEventAsync(new Event("First", 1000L, 2000L));
+        assertTrue(delegate.saving.await(5, TimeUnit.SECONDS));
+        List<CompletableFuture<Void>> queued = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            queued.add(storage.insertEventAsync(new Event("Queued " + i, 3000L + i * 10, 3005L + i * 10)));
+        }
+        assertEquals(4, storage.findOverlapping(0L, 4000L).size());
+
+        delegate.release.countDown();
+        first.get(5, TimeUnit.SECONDS);
+        for (CompletableFuture<Void> f : queued) {
+            f.get(5, TimeUnit.SECONDS);
+        }
+
+        assertEquals(Arrays.asList(1, 3), delegate.batches);
+        assertEquals(0, delegate.saves);
+        assertEquals(0, delegate.loads);
+        assertEquals(4, storage.findOverlapping(0L, 4000L).size());
+    }
+
+    @Test
+    public void testConflictInBatchWithSaveFailsOnlyTheConflictingWrite() throws Exception {
+        RejectingStorage delegate = new RejectingStorage();
+        storage = new GroupCommitEventStorage(delegate, 64, 0L);
+
+        CompletableFuture<Void> first = storage.insertEventAsync(new Event("First", 1000L, 2000L));
+        assertTrue(delegate.saving.await(5, TimeUnit.SECONDS));
+        List<Event> state = Arrays.asList(new Event("First", 1000L, 2000L), new Event("Saved", 3000L, 4000L));
+        CompletableFuture<Void> saved = storage.saveEventsAsync(state);
+        CompletableFuture<Void> conflicting = storage.insertEventAsync(new Event("Clash", 3500L, 4500L));
+        CompletableFuture<Void> later = storage.insertEventAsync(new Event("Later", 5000L, 6000L));
+
+        delegate.release.countDown();
+        first.get(5, TimeUnit.SECONDS);
+        saved.get(5, TimeUnit.SECONDS);
+        ExecutionException e = assertThrows(ExecutionException.class, () -> conflicting.get(5, TimeUnit.SECONDS));
+        assertInstanceOf(EventConflictException.class, e.getCause());
+        later.get(5, TimeUnit.SECONDS);
+
+        List<Event> expected = Arrays.asList(new Event("First", 1000L, 2000L), new Event("Saved", 3000L, 4000L),
+                new Event("Later", 5000L, 6000L));
+        assertEquals(expected, delegate.stored);
+        assertEquals(expected, storage.loadEvents());
+    }
+
+    private static class BlockingStorage implements EventStorage {
+        final CountDownLatch saving = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        volatile List<Event> stored = Collections.emptyList();
+        volatile int saves;
+        volatile int loads;
+        volatile boolean fail;
+
+        BlockingStorage() {
+        }
+
+        BlockingStorage(boolean released) {
+            if (released) {
+                release.countDown();
+            }
+        }
+
+        @Override
+        public List<Event> loadEvents() {
+            loads++;
+            return stored;
+        }
+
+        @Override
+        public void saveEvents(List<Event> events) {
+            block();
+            if (fail) {
+                throw new EventStorageException("Disk full", null);
+            }
+            saves++;
+            stored = Collections.unmodifiableList(new ArrayList<>(events));
+        }
+
+        void block() {
+            saving.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * Appends inserts without reading or rewriting the stored events.
+     */
+    private static class AppendingStorage extends BlockingStorage {
+        final List<Integer> batches = Collections.synchronizedList(new ArrayList<>());
+
+        @Override
+        public List<Event> findOverlapping(long startMillis, long endMillis) {
+            List<Event> result = new ArrayList<>();
+            for (Event e : stored) {
+                if (e.getStartEpochMillis() < endMillis && e.getEndEpochMillis() > startMillis) {
+                    result.add(e);
+                }
+            }
+            return result;
+        }
+
+        @Override
+        public void insertEvents(List<Event> events) {
+            block();
+            batches.add(events.size());
+            stored = EventStorage.withEvents(stored, events);
+        }
+    }
+
+    /**
+     * Rejects any write that would leave two stored events overlapping.
+     */
+    private static class RejectingStorage extends AppendingStorage {
+
+        @Override
+        public void saveEvents(List<Event> events) {
+            block();
+            stored = Collections.unmodifiableList(checked(events));
+            saves++;
+        }
+
+        @Override
+        public void insertEvents(List<Event> events) {
+            block();
+            stored = Collections.unmodifiableList(checked(EventStorage.withEvents(stored, events)));
+            batches.add(events.size());
+        }
+
+        private static List<Event> checked(List<Event> events) {
+            List<Event> sorted = EventStorage.withEvents(events, Collections.<Event>emptyList());
+            for (int i = 1; i < sorted.size(); i++) {
+                if (sorted.get(i).getStartEpochMillis() < sorted.get(i - 1).getEndEpochMillis()) {
+                    throw new EventConflictException("Event conflicts with an existing event - "
+                            + sorted.get(i - 1).getTitle());
+                }
+            }
+            return sorted;
+        }
+    }
+}
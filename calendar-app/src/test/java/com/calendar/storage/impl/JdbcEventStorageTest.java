@@ -0,0 +1,140 @@
+package com.calendar.storage.impl;
+
+import com.calendar.exception.EventConflictException;
+import com.calendar.model.Event;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class JdbcEventStorageTest {
+
+    private Path tempDir;
+    private String url;
+    private JdbcEventStorage storage;
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        tempDir = Files.createTempDirectory("event-db");
+        url = "jdbc:h2:" + tempDir.resolve("events").toAbsolutePath();
+        storage = new JdbcEventStorage(url);
+    }
+
+    @AfterEach
+    public void tearDown() throws IOException {
+        storage.close();
+        try (Stream<Path> files = Files.list(tempDir)) {
+            for (Path p : files.collect(Collectors.toList())) {
+                Files.deleteIfExists(p);
+            }
+        }
+        Files.deleteIfExists(tempDir);
+    }
+
+    @Test
+    public void testLoadEmptyDatabase() {
+        assertTrue(storage.loadEvents().isEmpty());
+        assertTrue(storage.findOverlapping(0L, Long.MAX_VALUE).isEmpty());
+    }
+
+    @Test
+    public void testSaveAndReloadAfterRestart() {
+        storage.saveEvents(Arrays.asList(new Event("Lunch", 3000L, 4000L), new Event("Meeting", 1000L, 2000L)));
+        storage.close();
+
+        JdbcEventStorage reopened = new JdbcEventStorage(url);
+        try {
+            assertEquals(Arrays.asList(new Event("Meeting", 1000L, 2000L), new Event("Lunch", 3000L, 4000L)),
+                    reopened.loadEvents());
+        } finally {
+            reopened.close();
+        }
+    }
+
+    @Test
+    public void testReopensAfterClose() {
+        storage.insertEvent(new Event("Meeting", 1000L, 2000L));
+        storage.close();
+
+        storage.insertEvent(new Event("Lunch", 3000L, 4000L));
+        assertEquals(Arrays.asList(new Event("Meeting", 1000L, 2000L), new Event("Lunch", 3000L, 4000L)),
+                storage.loadEvents());
+    }
+
+    @Test
+    public void testFindOverlappingIncludesLongEventsStartedEarlier() {
+        storage.saveEvents(Arrays.asList(
+                new Event("Conference", 0L, 10_000L),
+                new Event("Short", 100L, 200L),
+                new Event("Later", 6000L, 7000L),
+                new Event("After", 20_000L, 21_000L)));
+
+        assertEquals(Arrays.asList(new Event("Conference", 0L, 10_000L), new Event("Later", 6000L, 7000L)),
+                storage.findOverlapping(5000L, 6500L));
+    }
+
+    @Test
+    public void testInsertRejectsOverlapInsideTransaction() {
+        storage.insertEvent(new Event("Meeting", 1000L, 2000L));
+        storage.insertEvent(new Event("Adjacent", 2000L, 3000L));
+
+        EventConflictException e = assertThrows(EventConflictException.class,
+                () -> storage.insertEvent(new Event("Clash", 1500L, 2500L)));
+        assertTrue(e.getMessage().contains("Meeting"));
+        assertEquals(2, storage.loadEvents().size());
+    }
+
+    @Test
+    public void testBatchInsertIsAllOrNothing() {
+        storage.insertEvent(new Event("Meeting", 1000L, 2000L));
+
+        storage.insertEvents(Arrays.asList(new Event("A", 3000L, 4000L), new Event("B", 0L, 1000L)));
+        assertEquals(3, storage.loadEvents().size());
+
+        EventConflictException e = assertThrows(EventConflictException.class, () -> storage.insertEvents(
+                Arrays.asList(new Event("C", 5000L, 6000L), new Event("Clash", 5500L, 7000L))));
+        assertTrue(e.getMessage().contains("C"));
+        assertEquals(3, storage.loadEvents().size());
+        assertTrue(storage.findOverlapping(5000L, 7000L).isEmpty());
+    }
+
+    @Test
+    public void testInsertWidensRangeQueryBound() {
+        storage.insertEvent(new Event("Short", 0L, 100L));
+        storage.insertEvent(new Event("Retreat", 1000L, 100_000L));
+
+        assertEquals(Collections.singletonList(new Event("Retreat", 1000L, 100_000L)),
+                storage.findOverlapping(50_000L, 50_001L));
+    }
+
+    @Test
+    public void testForEachEventStreamsInStartOrder() {
+        storage.saveEvents(Arrays.asList(new Event("B", 3000L, 4000L), new Event("A", 1000L, 2000L)));
+
+        List<String> titles = new ArrayList<>();
+        storage.forEachEvent(e -> titles.add(e.getTitle()));
+        assertEquals(Arrays.asList("A", "B"), titles);
+    }
+
+    @Test
+    public void testVersionCountsCommittedWritesOnly() {
+        assertEquals(0L, storage.getVersion());
+        storage.insertEvent(new Event("Meeting", 1000L, 2000L));
+        storage.saveEvents(Arrays.asList(new Event("Meeting", 1000L, 2000L), new Event("Lunch", 3000L, 4000L)));
+        assertEquals(2L, storage.getVersion());
+
+        assertThrows(EventConflictException.class, () -> storage.insertEvent(new Event("Clash", 1500L, 2500L)));
+        assertEquals(2L, storage.getVersion());
+    }
+}
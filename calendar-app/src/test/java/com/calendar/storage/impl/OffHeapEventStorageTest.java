@@ -0,0 +1,182 @@
+package com.calendar.storage.impl;
+
+import com.calendar.model.Event;
+import com.calendar.storage.EventStorage;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+public class OffHeapEventStorageTest {
+
+    private Path tempFile;
+    private OffHeapEventStorage storage;
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        tempFile = Files.createTempFile("events", ".json");
+        storage = new OffHeapEventStorage(new EventFileStorage(tempFile.toString()));
+    }
+
+    @AfterEach
+    public void tearDown() throws IOException {
+        for (String suffix : new String[]{"", ".sum", ".prev", ".prev.sum"}) {
+            Files.deleteIfExists(tempFile.resolveSibling(tempFile.getFileName() + suffix));
+        }
+    }
+
+    @Test
+    public void testLoadsFromDelegateInStartOrder() {
+        new EventFileStorage(tempFile.toString()).saveEvents(Arrays.asList(
+                new Event("Lunch", 3000L, 4000L), new Event(null, 5000L, 6000L), new Event("Café ☕", 1000L, 2000L)));
+
+        assertEquals(Arrays.asList(new Event("Café ☕", 1000L, 2000L), new Event("Lunch", 3000L, 4000L),
+                new Event(null, 5000L, 6000L)), storage.loadEvents());
+    }
+
+    @Test
+    public void testInsertsInAnyOrderArePersisted() {
+        storage.insertEvent(new Event("Lunch", 3000L, 4000L));
+        storage.insertEvent(new Event("Dinner", 7000L, 8000L));
+        storage.insertEvent(new Event("Meeting", 1000L, 2000L));
+
+        List<Event> expected = Arrays.asList(new Event("Meeting", 1000L, 2000L),
+                new Event("Lunch", 3000L, 4000L), new Event("Dinner", 7000L, 8000L));
+        assertEquals(expected, storage.loadEvents());
+        assertEquals(expected, new EventFileStorage(tempFile.toString()).loadEvents());
+    }
+
+    @Test
+    public void testOlderSnapshotIsUnaffectedByLaterInserts() {
+        storage.insertEvent(new Event("First", 1000L, 2000L));
+        List<Event> before = storage.loadEvents();
+
+        storage.insertEvent(new Event("Second", 3000L, 4000L));
+        storage.insertEvent(new Event("Zeroth", 0L, 500L));
+
+        assertEquals(1, before.size());
+        assertEquals(new Event("First", 1000L, 2000L), before.get(0));
+    }
+
+    @Test
+    public void testScanPassesFlyweightViewsAndStops() {
+        storage.saveEvents(Arrays.asList(
+                new Event("A", 1000L, 2000L), new Event("B", 3000L, 4000L), new Event("C", 5000L, 6000L)));
+
+        List<Long> starts = new ArrayList<>();
+        storage.scanOverlapping(0L, 10_000L, view -> {
+            starts.add(view.getStartEpochMillis());
+            return starts.size() < 2;
+        });
+        assertEquals(Arrays.asList(1000L, 3000L), starts);
+    }
+
+    @Test
+    public void testFindOverlappingMatchesLinearScan() {
+        Random random = new Random(7);
+        List<Event> events = new ArrayList<>();
+        for (int i = 0; i < 300; i++) {
+            long start = random.nextInt(100_000);
+            storage.insertEvent(new Event("E" + i, start, start + 1 + random.nextInt(5_000)));
+        }
+        events.addAll(storage.loadEvents());
+
+        for (int q = 0; q < 200; q++) {
+            long start = random.nextInt(110_000) - 5_000;
+            long end = start + 1 + random.nextInt(3_000);
+            List<Event> expected = new ArrayList<>();
+            for (Event e : events) {
+                if (e.getStartEpochMillis() < end && e.getEndEpochMillis() > start) {
+                    expected.add(e);
+                }
+            }
+            assertEquals(expected, storage.findOverlapping(start, end));
+        }
+    }
+
+    @Test
+    public void testInsertsAcrossChunkSplitsMatchLinearScan() {
+        Random random = new Random(11);
+        List<Event> initial = new ArrayList<>();
+        for (int i = 0; i < OffHeapEventStorage.CHUNK_RECORDS * 2; i++) {
+            long start = random.nextInt(1_000_000);
+            initial.add(new Event("S" + i, start, start + 1 + random.nextInt(20_000)));
+        }
+        storage.saveEvents(initial);
+        List<Event> before = storage.loadEvents();
+        List<Event> beforeCopy = new ArrayList<>(before);
+        for (int i = 0; i < OffHeapEventStorage.CHUNK_RECORDS * 2; i++) {
+            long start = random.nextInt(1_000_000);
+            storage.insertEvent(new Event("I" + i, start, start + 1 + random.nextInt(20_000)));
+        }
+
+        List<Event> events = storage.loadEvents();
+        assertEquals(OffHeapEventStorage.CHUNK_RECORDS * 4, events.size());
+        for (int i = 1; i < events.size(); i++) {
+            assertTrue(events.get(i - 1).getStartEpochMillis() <= events.get(i).getStartEpochMillis());
+        }
+        assertEquals(beforeCopy, new ArrayList<>(before));
+        for (int q = 0; q < 200; q++) {
+            long start = random.nextInt(1_100_000) - 50_000;
+            long end = start + 1 + random.nextInt(10_000);
+            List<Event> expected = new ArrayList<>();
+            for (Event e : events) {
+                if (e.getStartEpochMillis() < end && e.getEndEpochMillis() > start) {
+                    expected.add(e);
+                }
+            }
+            assertEquals(expected, storage.findOverlapping(start, end));
+        }
+    }
+
+    @Test
+    public void testInsertsAreAppendedByTheDelegate() {
+        EventStorage delegate = mock(EventStorage.class, CALLS_REAL_METHODS);
+        doReturn(new ArrayList<Event>()).when(delegate).loadEvents();
+        doNothing().when(delegate).insertEvents(anyList());
+        OffHeapEventStorage offHeap = new OffHeapEventStorage(delegate);
+
+        offHeap.insertEvent(new Event("Lunch", 3000L, 4000L));
+        offHeap.insertEvents(Arrays.asList(new Event("Meeting", 1000L, 2000L), new Event("Dinner", 7000L, 8000L)));
+
+        verify(delegate).insertEvents(Collections.singletonList(new Event("Lunch", 3000L, 4000L)));
+        verify(delegate, never()).saveEvents(anyList());
+        assertEquals(3, offHeap.loadEvents().size());
+    }
+
+    @Test
+    public void testLoadsFromBinaryDelegateWithoutMaterializingIt() throws IOException {
+        Path binaryFile = Files.createTempFile("events", ".bin");
+        Files.delete(binaryFile);
+        try {
+            EventBinaryStorage binary = new EventBinaryStorage(binaryFile.toString());
+            binary.saveEvents(Arrays.asList(new Event("Lunch", 3000L, 4000L), new Event("Meeting", 1000L, 2000L)));
+            binary.insertEvent(new Event("Breakfast", 500L, 800L));
+            EventBinaryStorage delegate = spy(new EventBinaryStorage(binaryFile.toString()));
+            OffHeapEventStorage offHeap = new OffHeapEventStorage(delegate);
+
+            offHeap.insertEvent(new Event("Dinner", 7000L, 8000L));
+
+            List<Event> expected = Arrays.asList(new Event("Breakfast", 500L, 800L), new Event("Meeting", 1000L, 2000L),
+                    new Event("Lunch", 3000L, 4000L), new Event("Dinner", 7000L, 8000L));
+            assertEquals(expected, offHeap.loadEvents());
+            assertEquals(expected, new EventBinaryStorage(binaryFile.toString()).loadEvents());
+            verify(delegate, never()).loadEvents();
+            verify(delegate, never()).forEachEvent(any());
+            verify(delegate, never()).saveEvents(anyList());
+        } finally {
+            Files.deleteIfExists(binaryFile);
+        }
+    }
+}
@@ -0,0 +1,158 @@
+package com.calendar.storage.impl;
+
+import com.calendar.model.Event;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PartitionedEventStorageTest {
+
+    private static final long JAN_10 = Instant.parse("2025-01-10T10:00:00Z").toEpochMilli();
+    private static final long JAN_31_LATE = Instant.parse("2025-01-31T23:00:00Z").toEpochMilli();
+    private static final long FEB_01 = Instant.parse("2025-02-01T00:00:00Z").toEpochMilli();
+    private static final long FEB_15 = Instant.parse("2025-02-15T09:00:00Z").toEpochMilli();
+    private static final long MAR_03 = Instant.parse("2025-03-03T12:00:00Z").toEpochMilli();
+    private static final long HOUR = 3_600_000L;
+
+    private Path tempDir;
+    private PartitionedEventStorage storage;
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        tempDir = Files.createTempDirectory("event-partitions");
+        storage = new PartitionedEventStorage(tempDir.toString());
+    }
+
+    @AfterEach
+    public void tearDown() throws IOException {
+        try (Stream<Path> files = Files.walk(tempDir)) {
+            for (Path p : files.sorted(Comparator.reverseOrder()).collect(Collectors.toList())) {
+                Files.deleteIfExists(p);
+            }
+        }
+    }
+
+    @Test
+    public void testLoadEmptyDirectoryReturnsEmptyList() {
+        assertTrue(storage.loadEvents().isEmpty());
+        assertTrue(storage.findOverlapping(0L, Long.MAX_VALUE).isEmpty());
+    }
+
+    @Test
+    public void testSaveSplitsEventsByMonth() {
+        storage.saveEvents(sampleEvents());
+
+        assertTrue(Files.exists(tempDir.resolve("segment-2025-01.json")));
+        assertTrue(Files.exists(tempDir.resolve("segment-2025-02.json")));
+        assertTrue(Files.exists(tempDir.resolve("segment-2025-03.json")));
+        assertTrue(Files.exists(tempDir.resolve("manifest.json")));
+
+        List<Event> reloaded = new PartitionedEventStorage(tempDir.toString()).loadEvents();
+        assertEquals(sampleEvents().size(), reloaded.size());
+        assertTrue(reloaded.containsAll(sampleEvents()));
+    }
+
+    @Test
+    public void testFindOverlappingFindsEventCrossingPartitionBoundary() {
+        storage.saveEvents(sampleEvents());
+
+        List<Event> result = new PartitionedEventStorage(tempDir.toString()).findOverlapping(FEB_01, FEB_01 + HOUR);
+        assertEquals(Arrays.asList(new Event("Overnight", JAN_31_LATE, FEB_01 + 2 * HOUR)), result);
+    }
+
+    @Test
+    public void testSaveRewritesOnlyChangedSegments() throws IOException {
+        storage.saveEvents(sampleEvents());
+        Path january = tempDir.resolve("segment-2025-01.json");
+        Path march = tempDir.resolve("segment-2025-03.json");
+        FileTime old = FileTime.fromMillis(0L);
+        Files.setLastModifiedTime(january, old);
+        Files.setLastModifiedTime(march, old);
+
+        List<Event> updated = new ArrayList<>(sampleEvents());
+        updated.add(new Event("Added", FEB_15 + 2 * HOUR, FEB_15 + 3 * HOUR));
+        updated.removeIf(e -> e.getStartEpochMillis() == MAR_03);
+        storage.saveEvents(updated);
+
+        assertEquals(old, Files.getLastModifiedTime(january));
+        assertFalse(Files.exists(march));
+        assertEquals(2, storage.findOverlapping(FEB_15, FEB_15 + 4 * HOUR).size());
+    }
+
+    @Test
+    public void testSaveWritesChangedSegmentWithSameCountAndHash() {
+        // "Aa" and "BB" have the same hash code, so the lists do too.
+        storage.saveEvents(Arrays.asList(new Event("Aa", MAR_03, MAR_03 + HOUR)));
+        storage.saveEvents(Arrays.asList(new Event("BB", MAR_03, MAR_03 + HOUR)));
+
+        PartitionedEventStorage reopened = new PartitionedEventStorage(tempDir.toString());
+        assertEquals("BB", reopened.findOverlapping(MAR_03, MAR_03 + HOUR).get(0).getTitle());
+    }
+
+    @Test
+    public void testInsertEventsRewritesOnlyTouchedSegments() throws IOException {
+        storage.saveEvents(sampleEvents());
+        Path january = tempDir.resolve("segment-2025-01.json");
+        FileTime old = FileTime.fromMillis(0L);
+        Files.setLastModifiedTime(january, old);
+
+        storage.insertEvents(Arrays.asList(
+                new Event("Added", FEB_15 + 2 * HOUR, FEB_15 + 3 * HOUR),
+                new Event("April", MAR_03 + 30 * 24 * HOUR, MAR_03 + 31 * 24 * HOUR)));
+
+        assertEquals(old, Files.getLastModifiedTime(january));
+        assertTrue(Files.exists(tempDir.resolve("segment-2025-04.json")));
+        PartitionedEventStorage reopened = new PartitionedEventStorage(tempDir.toString());
+        assertEquals(sampleEvents().size() + 2, reopened.loadEvents().size());
+        assertEquals(2, reopened.findOverlapping(FEB_15, FEB_15 + 4 * HOUR).size());
+    }
+
+    @Test
+    public void testStaleManifestIsRepairedOnOpen() throws IOException {
+        storage.saveEvents(sampleEvents());
+        new EventFileStorage(tempDir.resolve("segment-2025-02.json").toString())
+                .saveEvents(Arrays.asList(new Event("Rewritten", FEB_15, FEB_15 + HOUR)));
+
+        PartitionedEventStorage reopened = new PartitionedEventStorage(tempDir.toString());
+        assertEquals(Arrays.asList(new Event("Rewritten", FEB_15, FEB_15 + HOUR)),
+                reopened.findOverlapping(FEB_01 + 3 * HOUR, MAR_03));
+    }
+
+    @Test
+    public void testDailyGranularity() {
+        PartitionedEventStorage daily = new PartitionedEventStorage(tempDir.toString(), ChronoUnit.DAYS);
+        daily.saveEvents(sampleEvents());
+
+        assertTrue(Files.exists(tempDir.resolve("segment-2025-01-31.json")));
+        assertEquals(1, daily.findOverlapping(JAN_10, JAN_10 + HOUR).size());
+    }
+
+    @Test
+    public void testUnsupportedGranularityIsRejected() {
+        assertThrows(IllegalArgumentException.class,
+                () -> new PartitionedEventStorage(tempDir.toString(), ChronoUnit.HOURS));
+    }
+
+    private static List<Event> sampleEvents() {
+        return Arrays.asList(
+                new Event("Standup", JAN_10, JAN_10 + HOUR),
+                new Event("Overnight", JAN_31_LATE, FEB_01 + 2 * HOUR),
+                new Event("Review", FEB_15, FEB_15 + HOUR),
+                new Event("Planning", MAR_03, MAR_03 + HOUR));
+    }
+}
@@ -4,6 +4,13 @@ import com.calendar.exception.JsonProcessingException;
 import com.calendar.model.Event;
 import org.junit.jupiter.api.Test;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
 import static org.junit.jupiter.api.Assertions.*;
 
 public class JsonUtilTest {
@@ -38,4 +45,47 @@ public class JsonUtilTest {
         String invalidJson = "{\"title\":\"Meeting\",\"startEpochMillis\":\"notANumber\"}";
         assertThrowsExactly(JsonProcessingException.class, () -> JsonUtil.fromJson(invalidJson, Event.class));
     }
+
+    @Test
+    public void testReadArray_StreamsElements() {
+        String json = "[{\"title\":\"A\",\"startEpochMillis\":1,\"endEpochMillis\":2},"
+                + "{\"title\":\"B\",\"startEpochMillis\":3,\"endEpochMillis\":4}]";
+        List<Event> events = new ArrayList<>();
+        JsonUtil.readArray(new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8)), Event.class, events::add);
+        assertEquals(2, events.size());
+        assertEquals("B", events.get(1).getTitle());
+    }
+
+    @Test
+    public void testReadArray_EmptyInput() {
+        List<Event> events = new ArrayList<>();
+        JsonUtil.readArray(new ByteArrayInputStream("  ".getBytes(StandardCharsets.UTF_8)), Event.class, events::add);
+        assertTrue(events.isEmpty());
+    }
+
+    @Test
+    public void testReadArray_TruncatedInput() {
+        String json = "[{\"title\":\"A\",\"startEpochMillis\":1,\"endEpochMillis\":2},";
+        assertThrowsExactly(JsonProcessingException.class, () -> JsonUtil.readArray(
+                new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8)), Event.class, e -> { }));
+    }
+
+    @Test
+    public void testReadArray_NotAnArray() {
+        String json = "{\"title\":\"A\"}";
+        assertThrowsExactly(JsonProcessingException.class, () -> JsonUtil.readArray(
+                new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8)), Event.class, e -> { }));
+    }
+
+    @Test
+    public void testWriteLineWritesCompactJsonAndNewline() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        JsonUtil.writeLine(out, new Event("Meeting", 1L, 2L));
+        JsonUtil.writeLine(out, new Event("Lunch", 3L, 4L));
+
+        String[] lines = out.toString(StandardCharsets.UTF_8.name()).split("\n", -1);
+        assertEquals(3, lines.length);
+        assertEquals("", lines[2]);
+        assertEquals(new Event("Lunch", 3L, 4L), JsonUtil.fromJson(lines[1], Event.class));
+    }
 }